@@ -0,0 +1,307 @@
+package Trabajo;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+// Copia columnar de los lotes de un Inventario para los recorridos de todo el
+// inventario (stock total, valor total, valor por vencer, valor por categoría):
+// cantidad, costo total, día de vencimiento y número de ítem de cada lote en
+// arreglos paralelos de primitivos, que se suman con lazos secuenciales sin
+// pasar por las colas ni por los objetos Lote. Es una copia, no el lugar
+// donde viven los lotes: cada uno sigue en la cola de su ítem y cuesta aquí
+// unos 28 bytes más (ver Inventario.activarAlmacenColumnar).
+//
+// Como IndiceVencimientos, lo mantienen los propios ítems: cada lote que se
+// agrega, se reduce o se retira avisa al almacén (ver ItemConLotes), y cada
+// lote guarda su posición (ver Lote.posicionAlmacen). Ingrediente, Envase y
+// Producto siguen siendo la interfaz para modificar el stock.
+//
+// Un lote retirado deja una lápida (ítem SIN_ITEM, cantidad y costo en cero,
+// así las sumas no necesitan saltarla); cuando las lápidas pasan de la mitad
+// se compacta moviendo los lotes vivos hacia el principio.
+//
+// Concurrencia: los lotes se reparten en FRANJAS franjas según el número de
+// ítem, cada una con sus columnas y su propio lock. Los avisos toman el lock
+// de escritura de la franja del ítem, así que las altas y consumos de ítems
+// de franjas distintas no se esperan entre sí (ver ItemConLotes, que ya los
+// serializa por ítem). Las consultas recorren las franjas de a una con su
+// lock de lectura: ven un estado consistente de cada ítem, pero no un corte
+// único de todo el inventario, y mientras recorren una franja solo frenan
+// las escrituras de esa.
+public class AlmacenColumnar {
+    static final int SIN_ITEM = -1;
+    static final int FRANJAS = 16; // Potencia de dos
+    private static final int COMPACTAR_DESDE = 1024; // Lápidas mínimas para compactar (por franja)
+
+    private final Franja[] franjas = new Franja[FRANJAS];
+
+    public AlmacenColumnar() {
+        for (int i = 0; i < FRANJAS; i++) {
+            franjas[i] = new Franja();
+        }
+    }
+
+    private Franja franja(int item) {
+        return franjas[item & (FRANJAS - 1)];
+    }
+
+    // --- Avisos de ItemConLotes, siempre con el lock del ítem tomado ---
+
+    void agregado(Lote lote, int item) {
+        franja(item).agregado(lote, item);
+    }
+
+    void reducido(Lote lote, int item) {
+        franja(item).reducido(lote);
+    }
+
+    void retirado(Lote lote, int item) {
+        franja(item).retirado(lote);
+    }
+
+    // --- Consultas ---
+
+    // Ejecuta 'consulta' sobre cada franja, una por vez, con su lock de lectura
+    // tomado: mientras dura no hay altas, bajas ni compactaciones en esa franja.
+    // Las columnas se pueden repartir entre varios hilos (ver ValoradorInventario),
+    // que no deben tomar otros locks.
+    void consultar(Consumer<Columnas> consulta) {
+        for (Franja franja : franjas) {
+            franja.consultar(consulta);
+        }
+    }
+
+    // Suma 'valor' de las columnas de cada franja
+    private long sumar(ToLongFunction<Columnas> valor) {
+        long[] total = new long[1];
+        consultar(columnas -> total[0] = Fijo.sumar(total[0], valor.applyAsLong(columnas)));
+        return total[0];
+    }
+
+    public long getCantidadTotalFija() {
+        return sumar(columnas -> columnas.cantidadTotal(0, columnas.tamano));
+    }
+
+    public long getValorTotalFijo() {
+        return sumar(columnas -> columnas.valorTotal(0, columnas.tamano));
+    }
+
+    // Costo de los lotes que vencen entre 'desde' y 'hasta' (ambos incluidos)
+    public long getValorPorVencerFijo(LocalDate desde, LocalDate hasta) {
+        int primerDia = (int) desde.toEpochDay();
+        int ultimoDia = (int) hasta.toEpochDay();
+        return sumar(columnas -> columnas.valorEntreDias(primerDia, ultimoDia, 0, columnas.tamano));
+    }
+
+    public int getNumeroLotes() {
+        int total = 0;
+        for (Franja franja : franjas) {
+            total += franja.getNumeroLotes();
+        }
+        return total;
+    }
+
+    public long getCompactaciones() {
+        long total = 0;
+        for (Franja franja : franjas) {
+            total += franja.getCompactaciones();
+        }
+        return total;
+    }
+
+    // Columnas y lock de los lotes de los ítems de una franja
+    private static final class Franja {
+        private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+        private Lote[] lotes = new Lote[64]; // Solo para actualizar posiciones al compactar
+        private long[] cantidades = new long[64];      // Punto fijo, ver Fijo
+        private long[] costosTotales = new long[64];   // Punto fijo, ver Fijo
+        private int[] dias = new int[64];              // Ver Lote.getDiaVencimiento
+        private int[] items = new int[64];             // Número del ítem (ver ItemConLotes.getNumero)
+        private int tamano = 0;
+        private int lapidas = 0;
+        private long compactaciones = 0;
+
+        void agregado(Lote lote, int item) {
+            cerrojo.writeLock().lock();
+            try {
+                if (tamano == lotes.length) {
+                    crecer();
+                }
+                int posicion = tamano++;
+                lotes[posicion] = lote;
+                cantidades[posicion] = lote.getCantidadFija();
+                costosTotales[posicion] = lote.getCostoTotalFijo();
+                dias[posicion] = lote.getDiaVencimiento();
+                items[posicion] = item;
+                lote.setPosicionAlmacen(posicion);
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+
+        void reducido(Lote lote) {
+            cerrojo.writeLock().lock();
+            try {
+                int posicion = lote.getPosicionAlmacen();
+                if (posicion >= 0 && lotes[posicion] == lote) {
+                    cantidades[posicion] = lote.getCantidadFija();
+                    costosTotales[posicion] = lote.getCostoTotalFijo();
+                }
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+
+        void retirado(Lote lote) {
+            cerrojo.writeLock().lock();
+            try {
+                int posicion = lote.getPosicionAlmacen();
+                if (posicion < 0 || lotes[posicion] != lote) {
+                    return;
+                }
+                lotes[posicion] = null;
+                cantidades[posicion] = 0;
+                costosTotales[posicion] = 0;
+                dias[posicion] = Lote.SIN_VENCIMIENTO;
+                items[posicion] = SIN_ITEM;
+                lote.setPosicionAlmacen(-1);
+                if (++lapidas >= COMPACTAR_DESDE && lapidas > tamano / 2) {
+                    compactar();
+                }
+            } finally {
+                cerrojo.writeLock().unlock();
+            }
+        }
+
+        private void crecer() {
+            int capacidad = lotes.length * 2;
+            lotes = Arrays.copyOf(lotes, capacidad);
+            cantidades = Arrays.copyOf(cantidades, capacidad);
+            costosTotales = Arrays.copyOf(costosTotales, capacidad);
+            dias = Arrays.copyOf(dias, capacidad);
+            items = Arrays.copyOf(items, capacidad);
+        }
+
+        // Mueve los lotes vivos hacia el principio, en el mismo orden, y libera el resto
+        private void compactar() {
+            int destino = 0;
+            for (int origen = 0; origen < tamano; origen++) {
+                Lote lote = lotes[origen];
+                if (lote == null) {
+                    continue;
+                }
+                if (destino != origen) {
+                    lotes[destino] = lote;
+                    cantidades[destino] = cantidades[origen];
+                    costosTotales[destino] = costosTotales[origen];
+                    dias[destino] = dias[origen];
+                    items[destino] = items[origen];
+                    lote.setPosicionAlmacen(destino);
+                }
+                destino++;
+            }
+            Arrays.fill(lotes, destino, tamano, null);
+            Arrays.fill(cantidades, destino, tamano, 0);
+            Arrays.fill(costosTotales, destino, tamano, 0);
+            Arrays.fill(dias, destino, tamano, Lote.SIN_VENCIMIENTO);
+            Arrays.fill(items, destino, tamano, SIN_ITEM);
+            tamano = destino;
+            lapidas = 0;
+            compactaciones++;
+        }
+
+        void consultar(Consumer<Columnas> consulta) {
+            cerrojo.readLock().lock();
+            try {
+                consulta.accept(new Columnas(cantidades, costosTotales, dias, items, tamano));
+            } finally {
+                cerrojo.readLock().unlock();
+            }
+        }
+
+        int getNumeroLotes() {
+            cerrojo.readLock().lock();
+            try {
+                return tamano - lapidas;
+            } finally {
+                cerrojo.readLock().unlock();
+            }
+        }
+
+        long getCompactaciones() {
+            cerrojo.readLock().lock();
+            try {
+                return compactaciones;
+            } finally {
+                cerrojo.readLock().unlock();
+            }
+        }
+    }
+
+    // Las columnas vistas por una consulta; las posiciones [0, tamano) incluyen lápidas
+    static final class Columnas {
+        final long[] cantidades;
+        final long[] costosTotales;
+        final int[] dias;
+        final int[] items;
+        final int tamano;
+
+        private Columnas(long[] cantidades, long[] costosTotales, int[] dias, int[] items, int tamano) {
+            this.cantidades = cantidades;
+            this.costosTotales = costosTotales;
+            this.dias = dias;
+            this.items = items;
+            this.tamano = tamano;
+        }
+
+        long cantidadTotal(int desde, int hasta) {
+            long total = 0;
+            for (int i = desde; i < hasta; i++) {
+                total = Fijo.sumar(total, cantidades[i]);
+            }
+            return total;
+        }
+
+        long valorTotal(int desde, int hasta) {
+            long total = 0;
+            for (int i = desde; i < hasta; i++) {
+                total = Fijo.sumar(total, costosTotales[i]);
+            }
+            return total;
+        }
+
+        long valorEntreDias(int primerDia, int ultimoDia, int desde, int hasta) {
+            long total = 0;
+            for (int i = desde; i < hasta; i++) {
+                int dia = dias[i];
+                if (dia >= primerDia && dia <= ultimoDia) {
+                    total = Fijo.sumar(total, costosTotales[i]);
+                }
+            }
+            return total;
+        }
+
+        // Suma lotes, cantidad y costo de [desde, hasta) en el grupo de su ítem,
+        // grupoPorItem[número de ítem]; los ítems fuera de la tabla o con grupo
+        // negativo no se cuentan
+        void sumarPorGrupo(int[] grupoPorItem, long[] lotes, long[] cantidadesGrupo, long[] valoresGrupo,
+                           int desde, int hasta) {
+            for (int i = desde; i < hasta; i++) {
+                int item = items[i];
+                if (item < 0 || item >= grupoPorItem.length) {
+                    continue;
+                }
+                int grupo = grupoPorItem[item];
+                if (grupo < 0) {
+                    continue;
+                }
+                lotes[grupo]++;
+                cantidadesGrupo[grupo] = Fijo.sumar(cantidadesGrupo[grupo], cantidades[i]);
+                valoresGrupo[grupo] = Fijo.sumar(valoresGrupo[grupo], costosTotales[i]);
+            }
+        }
+    }
+}
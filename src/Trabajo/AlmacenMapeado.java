@@ -0,0 +1,453 @@
+package Trabajo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Lotes fuera del heap, en registros de 64 bytes de un archivo proyectado en
+// memoria: sirve para guardar años de historial sin que el heap (ni las
+// pausas del GC) crezcan con él. Cada ítem que lo usa tiene una ColaMapeada
+// (FIFO) con nombre, que encadena sus lotes por número de registro; los
+// registros de los lotes consumidos pasan a una lista libre y se reutilizan.
+// Lo escrito queda en el archivo: al volver a abrirlo solo se recorre el
+// directorio de colas (uno por ítem), no los lotes. cerrar(secuencia) deja
+// anotado con qué registro del diario quedó al día; SistemaInventario lo usa
+// así con -Dinventario.almacen.mapeado (ver abrirAlmacenMapeado), e
+// Instantanea restaura esos ítems sobre sus colas sin leer sus lotes.
+//
+// Formato (big-endian), registro n en el byte n × 64; el registro 0 es la cabecera:
+//   cabecera: int MAGICO, int VERSION, int TAMANO_REGISTRO, int registros usados,
+//             int primer registro libre, int primera cola, int registros libres,
+//             int estado (ABIERTO o CERRADO), long secuencia del diario al cerrar
+//   lote:     byte LOTE, byte largo del código (0 = compacto), int siguiente lote,
+//             long cantidad, long ingreso, long costo unitario, int día de
+//             vencimiento, 28 bytes de código (2 × long si es compacto, si no UTF-8)
+//   cola:     byte COLA, int siguiente cola, int primer lote, int último lote,
+//             int lotes, int resto del nombre, long cantidad, long costo total,
+//             long suma de costos unitarios, int largo del nombre, 12 bytes de nombre
+//   nombre:   byte NOMBRE, int siguiente, 56 bytes de nombre
+//   libre:    byte LIBRE, int siguiente libre
+// Cantidades y costos van en punto fijo (ver Fijo); NINGUNO (0) termina las cadenas.
+//
+// El archivo crece de a segmentos de REGISTROS_POR_SEGMENTO registros. Las
+// escrituras no se sincronizan a disco hasta sincronizar() o close(), y una
+// caída a mitad de una operación puede dejar una cola incompleta: la copia
+// de seguridad del inventario siguen siendo la instantánea y el diario.
+// Los lotes de estas colas no entran en IndiceVencimientos ni en AlmacenColumnar.
+public class AlmacenMapeado implements Closeable {
+    private static final int MAGICO = 0x494E564D; // "INVM"
+    private static final int VERSION = 2;
+    static final int TAMANO_REGISTRO = 64;
+    private static final int REGISTROS_POR_SEGMENTO = 1 << 20; // 64 MiB
+    private static final long BYTES_SEGMENTO = (long) REGISTROS_POR_SEGMENTO * TAMANO_REGISTRO;
+    static final int NINGUNO = 0;
+
+    private static final byte LIBRE = 0;
+    private static final byte LOTE = 1;
+    private static final byte COLA = 2;
+    private static final byte NOMBRE = 3;
+
+    // Estados del archivo
+    private static final int ABIERTO = 0;
+    private static final int CERRADO = 1;
+
+    // Campos de la cabecera
+    private static final int CAB_MAGICO = 0;
+    private static final int CAB_VERSION = 4;
+    private static final int CAB_TAMANO_REGISTRO = 8;
+    private static final int CAB_REGISTROS = 12;
+    private static final int CAB_LIBRE = 16;
+    private static final int CAB_COLAS = 20;
+    private static final int CAB_LIBRES = 24;
+    private static final int CAB_ESTADO = 28;
+    private static final int CAB_SECUENCIA = 32;
+
+    // Campos comunes
+    private static final int TIPO = 0;
+    static final int SIGUIENTE = 4;
+
+    // Campos de un lote
+    private static final int LOTE_LARGO_CODIGO = 1;
+    private static final int LOTE_CANTIDAD = 8;
+    private static final int LOTE_INGRESO = 16;
+    private static final int LOTE_COSTO = 24;
+    private static final int LOTE_DIA = 32;
+    private static final int LOTE_CODIGO = 36;
+    private static final int MAX_CODIGO = TAMANO_REGISTRO - LOTE_CODIGO;
+
+    // Campos de una cola
+    static final int COLA_PRIMERO = 8;
+    static final int COLA_ULTIMO = 12;
+    static final int COLA_TAMANO = 16;
+    private static final int COLA_RESTO_NOMBRE = 20;
+    static final int COLA_CANTIDAD = 24;
+    static final int COLA_COSTO = 32;
+    static final int COLA_COSTO_UNITARIO = 40;
+    private static final int COLA_LARGO_NOMBRE = 48;
+    private static final int COLA_NOMBRE = 52;
+    private static final int NOMBRE_DATOS = 8;
+
+    private final FileChannel canal;
+    private volatile MappedByteBuffer[] segmentos;
+    private final Map<String, ColaMapeada> colas = new HashMap<>();
+    // Con el monitor de this:
+    private int registros;
+    private int libre;
+    private int libres;
+    private int primeraCola;
+    private long secuenciaCierre = -1;
+
+    public AlmacenMapeado(Path archivo) throws IOException {
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            this.segmentos = new MappedByteBuffer[0];
+            if (canal.size() == 0) {
+                asegurarSegmento(0);
+                entero(0, CAB_MAGICO, MAGICO);
+                entero(0, CAB_VERSION, VERSION);
+                entero(0, CAB_TAMANO_REGISTRO, TAMANO_REGISTRO);
+                registros = 1;
+                guardarCabecera();
+            } else {
+                abrir();
+            }
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    private void abrir() throws IOException {
+        if (canal.size() < BYTES_SEGMENTO) {
+            throw new IOException("El archivo no es un almacén de lotes.");
+        }
+        asegurarSegmento(0);
+        if (entero(0, CAB_MAGICO) != MAGICO) {
+            throw new IOException("El archivo no es un almacén de lotes.");
+        }
+        int version = entero(0, CAB_VERSION);
+        if (version != VERSION || entero(0, CAB_TAMANO_REGISTRO) != TAMANO_REGISTRO) {
+            throw new IOException("Versión de almacén de lotes no soportada: " + version);
+        }
+        registros = entero(0, CAB_REGISTROS);
+        libre = entero(0, CAB_LIBRE);
+        libres = entero(0, CAB_LIBRES);
+        primeraCola = entero(0, CAB_COLAS);
+        if (entero(0, CAB_ESTADO) == CERRADO) {
+            secuenciaCierre = largo(0, CAB_SECUENCIA);
+        }
+        // Abierto desde ya, y en disco antes del primer cambio: si se cae no parecerá al día
+        entero(0, CAB_ESTADO, ABIERTO);
+        segmentos[0].force(0, TAMANO_REGISTRO);
+        asegurarSegmento((registros - 1) / REGISTROS_POR_SEGMENTO);
+        for (int cola = primeraCola; cola != NINGUNO; cola = entero(cola, SIGUIENTE)) {
+            if (tipo(cola) != COLA) {
+                throw new IOException("Directorio de colas dañado en el registro " + cola);
+            }
+            colas.put(leerNombre(cola), new ColaMapeada(this, cola));
+        }
+    }
+
+    // La cola del ítem 'nombre', creada vacía si no existe. Cada cola debe
+    // usarla un solo ítem (ver ItemConLotes).
+    public synchronized ColaMapeada cola(String nombre) {
+        ColaMapeada cola = colas.get(nombre);
+        if (cola == null) {
+            int registro = reservar();
+            byte[] bytes = nombre.getBytes(StandardCharsets.UTF_8);
+            limpiar(registro);
+            tipo(registro, COLA);
+            entero(registro, COLA_LARGO_NOMBRE, bytes.length);
+            int escritos = Math.min(bytes.length, TAMANO_REGISTRO - COLA_NOMBRE);
+            poner(registro, COLA_NOMBRE, bytes, 0, escritos);
+            int anterior = registro;
+            int campo = COLA_RESTO_NOMBRE;
+            while (escritos < bytes.length) {
+                int resto = reservar();
+                limpiar(resto);
+                tipo(resto, NOMBRE);
+                int n = Math.min(bytes.length - escritos, TAMANO_REGISTRO - NOMBRE_DATOS);
+                poner(resto, NOMBRE_DATOS, bytes, escritos, n);
+                entero(anterior, campo, resto);
+                escritos += n;
+                anterior = resto;
+                campo = SIGUIENTE;
+            }
+            entero(registro, SIGUIENTE, primeraCola);
+            primeraCola = registro;
+            guardarCabecera();
+            cola = new ColaMapeada(this, registro);
+            colas.put(nombre, cola);
+        }
+        return cola;
+    }
+
+    // La cola 'nombre' si ya está en el archivo, sin crearla (null si no)
+    public synchronized ColaMapeada colaExistente(String nombre) {
+        return colas.get(nombre);
+    }
+
+    public synchronized List<String> getNombresColas() {
+        return new ArrayList<>(colas.keySet());
+    }
+
+    // Registros ocupados por lotes, colas y nombres (sin la cabecera ni los libres)
+    public synchronized int getRegistrosUsados() {
+        return registros - 1 - libres;
+    }
+
+    public synchronized int getRegistrosLibres() {
+        return libres;
+    }
+
+    // Secuencia del diario que se pasó a cerrar(secuencia) la vez anterior; -1
+    // si el archivo es nuevo o no se cerró así (una caída, o close())
+    public long getSecuenciaCierre() {
+        return secuenciaCierre;
+    }
+
+    // Descarta todas las colas y sus lotes. El archivo no se achica: los
+    // registros se vuelven a usar desde el principio. Solo sin colas en uso.
+    public synchronized void vaciar() {
+        colas.clear();
+        registros = 1;
+        libre = NINGUNO;
+        libres = 0;
+        primeraCola = NINGUNO;
+        guardarCabecera();
+    }
+
+    // Fuerza a disco todo lo escrito
+    public void sincronizar() {
+        for (MappedByteBuffer segmento : segmentos) {
+            segmento.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sincronizar();
+        } finally {
+            canal.close();
+        }
+    }
+
+    // Como close(), pero anota que el contenido está al día con el registro
+    // 'secuencia' del diario (ver getSecuenciaCierre)
+    public void cerrar(long secuencia) throws IOException {
+        try {
+            sincronizar();
+            synchronized (this) {
+                largo(0, CAB_SECUENCIA, secuencia);
+                entero(0, CAB_ESTADO, CERRADO);
+            }
+            segmentos[0].force(0, TAMANO_REGISTRO);
+        } finally {
+            canal.close();
+        }
+    }
+
+    // --- Registros, para ColaMapeada ---
+
+    // Un registro sin usar: de la lista libre o, si está vacía, al final del archivo
+    synchronized int reservar() {
+        int registro;
+        if (libre != NINGUNO) {
+            registro = libre;
+            libre = entero(registro, SIGUIENTE);
+            libres--;
+        } else {
+            if (registros == Integer.MAX_VALUE) {
+                throw new IllegalStateException("El almacén de lotes está lleno.");
+            }
+            registro = registros;
+            asegurarSegmento(registro / REGISTROS_POR_SEGMENTO);
+            registros++;
+        }
+        guardarCabecera();
+        return registro;
+    }
+
+    synchronized void liberar(int registro) {
+        tipo(registro, LIBRE);
+        entero(registro, SIGUIENTE, libre);
+        libre = registro;
+        libres++;
+        guardarCabecera();
+    }
+
+    void escribirLote(int registro, Lote lote) {
+        limpiar(registro);
+        tipo(registro, LOTE);
+        largo(registro, LOTE_CANTIDAD, lote.getCantidadFija());
+        largo(registro, LOTE_INGRESO, lote.getFechaIngresoMilis());
+        largo(registro, LOTE_COSTO, lote.getCostoUnitarioFijo());
+        entero(registro, LOTE_DIA, lote.getDiaVencimiento());
+        if (lote.isCodigoCompacto()) {
+            largo(registro, LOTE_CODIGO, lote.getCodigoAlto());
+            largo(registro, LOTE_CODIGO + 8, lote.getCodigoBajo());
+        } else {
+            byte[] codigo = lote.getCodigoLote().getBytes(StandardCharsets.UTF_8);
+            if (codigo.length == 0 || codigo.length > MAX_CODIGO) {
+                throw new IllegalArgumentException("El código de lote '" + lote.getCodigoLote()
+                        + "' no entra en un registro (1 a " + MAX_CODIGO + " bytes).");
+            }
+            segmento(registro).put(posicion(registro) + LOTE_LARGO_CODIGO, (byte) codigo.length);
+            poner(registro, LOTE_CODIGO, codigo, 0, codigo.length);
+        }
+    }
+
+    Lote leerLote(int registro) {
+        long cantidad = largo(registro, LOTE_CANTIDAD);
+        long ingreso = largo(registro, LOTE_INGRESO);
+        long costo = largo(registro, LOTE_COSTO);
+        int dia = entero(registro, LOTE_DIA);
+        int largoCodigo = segmento(registro).get(posicion(registro) + LOTE_LARGO_CODIGO);
+        if (largoCodigo == 0) {
+            return Lote.restaurar(largo(registro, LOTE_CODIGO), largo(registro, LOTE_CODIGO + 8), cantidad, ingreso,
+                    dia, costo);
+        }
+        byte[] codigo = new byte[largoCodigo];
+        sacar(registro, LOTE_CODIGO, codigo, 0, largoCodigo);
+        return Lote.restaurar(new String(codigo, StandardCharsets.UTF_8), cantidad, new Date(ingreso), dia,
+                costo);
+    }
+
+    // Si el registro sigue guardando ese lote (mismo código e ingreso), su cantidad; -1 si no
+    long cantidadLote(int registro, Lote lote) {
+        if (registro <= NINGUNO || registro >= registros() || tipo(registro) != LOTE
+                || largo(registro, LOTE_INGRESO) != lote.getFechaIngresoMilis()) {
+            return -1;
+        }
+        int largoCodigo = segmento(registro).get(posicion(registro) + LOTE_LARGO_CODIGO);
+        boolean mismoCodigo;
+        if (lote.isCodigoCompacto()) {
+            mismoCodigo = largoCodigo == 0 && largo(registro, LOTE_CODIGO) == lote.getCodigoAlto()
+                    && largo(registro, LOTE_CODIGO + 8) == lote.getCodigoBajo();
+        } else {
+            byte[] codigo = new byte[Math.max(largoCodigo, 0)];
+            sacar(registro, LOTE_CODIGO, codigo, 0, codigo.length);
+            mismoCodigo = largoCodigo > 0 && new String(codigo, StandardCharsets.UTF_8).equals(lote.getCodigoLote());
+        }
+        return mismoCodigo ? largo(registro, LOTE_CANTIDAD) : -1;
+    }
+
+    void cantidadLote(int registro, long cantidad) {
+        largo(registro, LOTE_CANTIDAD, cantidad);
+    }
+
+    long costoUnitarioLote(int registro) {
+        return largo(registro, LOTE_COSTO);
+    }
+
+    int entero(int registro, int campo) {
+        return segmento(registro).getInt(posicion(registro) + campo);
+    }
+
+    void entero(int registro, int campo, int valor) {
+        segmento(registro).putInt(posicion(registro) + campo, valor);
+    }
+
+    long largo(int registro, int campo) {
+        return segmento(registro).getLong(posicion(registro) + campo);
+    }
+
+    void largo(int registro, int campo, long valor) {
+        segmento(registro).putLong(posicion(registro) + campo, valor);
+    }
+
+    // --- Internos ---
+
+    private synchronized int registros() {
+        return registros;
+    }
+
+    private byte tipo(int registro) {
+        return segmento(registro).get(posicion(registro) + TIPO);
+    }
+
+    private void tipo(int registro, byte tipo) {
+        segmento(registro).put(posicion(registro) + TIPO, tipo);
+    }
+
+    private void limpiar(int registro) {
+        MappedByteBuffer segmento = segmento(registro);
+        int inicio = posicion(registro);
+        for (int i = 0; i < TAMANO_REGISTRO; i += 8) {
+            segmento.putLong(inicio + i, 0);
+        }
+    }
+
+    private String leerNombre(int cola) {
+        byte[] bytes = new byte[entero(cola, COLA_LARGO_NOMBRE)];
+        int leidos = Math.min(bytes.length, TAMANO_REGISTRO - COLA_NOMBRE);
+        sacar(cola, COLA_NOMBRE, bytes, 0, leidos);
+        for (int resto = entero(cola, COLA_RESTO_NOMBRE); leidos < bytes.length; resto = entero(resto, SIGUIENTE)) {
+            int n = Math.min(bytes.length - leidos, TAMANO_REGISTRO - NOMBRE_DATOS);
+            sacar(resto, NOMBRE_DATOS, bytes, leidos, n);
+            leidos += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void poner(int registro, int campo, byte[] bytes, int desde, int largo) {
+        MappedByteBuffer segmento = segmento(registro);
+        int inicio = posicion(registro) + campo;
+        for (int i = 0; i < largo; i++) {
+            segmento.put(inicio + i, bytes[desde + i]);
+        }
+    }
+
+    private void sacar(int registro, int campo, byte[] bytes, int desde, int largo) {
+        MappedByteBuffer segmento = segmento(registro);
+        int inicio = posicion(registro) + campo;
+        for (int i = 0; i < largo; i++) {
+            bytes[desde + i] = segmento.get(inicio + i);
+        }
+    }
+
+    private void guardarCabecera() {
+        entero(0, CAB_REGISTROS, registros);
+        entero(0, CAB_LIBRE, libre);
+        entero(0, CAB_COLAS, primeraCola);
+        entero(0, CAB_LIBRES, libres);
+    }
+
+    private MappedByteBuffer segmento(int registro) {
+        return segmentos[registro / REGISTROS_POR_SEGMENTO];
+    }
+
+    private static int posicion(int registro) {
+        return (registro % REGISTROS_POR_SEGMENTO) * TAMANO_REGISTRO;
+    }
+
+    // Proyecta los segmentos hasta 'ultimo' inclusive (el archivo se agranda solo)
+    private synchronized void asegurarSegmento(int ultimo) {
+        MappedByteBuffer[] actuales = segmentos;
+        if (ultimo < actuales.length) {
+            return;
+        }
+        MappedByteBuffer[] nuevos = Arrays.copyOf(actuales, ultimo + 1);
+        try {
+            for (int i = actuales.length; i <= ultimo; i++) {
+                nuevos[i] = canal.map(FileChannel.MapMode.READ_WRITE, i * BYTES_SEGMENTO, BYTES_SEGMENTO);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo agrandar el almacén de lotes", e);
+        }
+        segmentos = nuevos;
+    }
+}
@@ -0,0 +1,194 @@
+package Trabajo;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+// Tokenizador del formato "Tipo|campo|campo|fecha" de data.txt. Trabaja
+// directamente sobre los bytes de la línea: separa los campos una sola vez y
+// lee decimales (a punto fijo, ver Fijo) y fechas dd/MM/yyyy sin crear
+// Strings intermedios. El estado se reutiliza de una línea a la siguiente.
+class AnalizadorLinea {
+    static final int VACIA = 0;
+    static final int INGREDIENTE = 1;
+    static final int ENVASE = 2;
+    static final int LOTE = 3;
+    static final int DESCONOCIDO = -1;
+
+    // Valor devuelto cuando un decimal o una fecha no se puede leer
+    static final long INVALIDO = Long.MIN_VALUE;
+
+    private static final int MAX_CAMPOS = 8;
+    private static final byte[] TIPO_INGREDIENTE = "ingrediente".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TIPO_ENVASE = "envase".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TIPO_LOTE = "lote".getBytes(StandardCharsets.US_ASCII);
+    private static final int TAMANO_CACHE_FECHAS = 512;
+
+    private byte[] linea;
+    private final int[] inicios = new int[MAX_CAMPOS];
+    private final int[] fines = new int[MAX_CAMPOS];
+    private int numeroCampos;
+
+    // Caché de fechas ya convertidas (clave yyyyMMdd -> milisegundos)
+    private final ZoneId zona = ZoneId.systemDefault();
+    private final int[] clavesFecha = new int[TAMANO_CACHE_FECHAS];
+    private final long[] milisFecha = new long[TAMANO_CACHE_FECHAS];
+
+    // Separa la línea en campos y devuelve su tipo
+    int preparar(byte[] linea, int largo) {
+        this.linea = linea;
+        numeroCampos = 0;
+        int inicio = 0;
+        for (int i = 0; i <= largo && numeroCampos < MAX_CAMPOS; i++) {
+            if (i == largo || linea[i] == '|') {
+                inicios[numeroCampos] = inicio;
+                fines[numeroCampos] = i;
+                numeroCampos++;
+                inicio = i + 1;
+            }
+        }
+        if (largo == 0) {
+            return VACIA;
+        }
+        if (igualSinMayusculas(0, TIPO_INGREDIENTE)) {
+            return INGREDIENTE;
+        }
+        if (igualSinMayusculas(0, TIPO_ENVASE)) {
+            return ENVASE;
+        }
+        if (igualSinMayusculas(0, TIPO_LOTE)) {
+            return LOTE;
+        }
+        return DESCONOCIDO;
+    }
+
+    int getNumeroCampos() {
+        return numeroCampos;
+    }
+
+    // Los nombres sí necesitan un String; solo se usa en las cabeceras
+    String texto(int campo) {
+        return new String(linea, inicios[campo], fines[campo] - inicios[campo], StandardCharsets.UTF_8);
+    }
+
+    // Decimal positivo o negativo a punto fijo, redondeado HALF_UP a 4 decimales
+    long decimal(int campo) {
+        int i = inicios[campo];
+        int fin = fines[campo];
+        boolean negativo = false;
+        if (i < fin && (linea[i] == '-' || linea[i] == '+')) {
+            negativo = linea[i] == '-';
+            i++;
+        }
+        long entero = 0;
+        int digitos = 0;
+        while (i < fin && linea[i] >= '0' && linea[i] <= '9') {
+            if (entero > (Long.MAX_VALUE / Fijo.UNO) / 10) {
+                return INVALIDO;
+            }
+            entero = entero * 10 + (linea[i] - '0');
+            digitos++;
+            i++;
+        }
+        long fraccion = 0;
+        int decimales = 0;
+        boolean redondearArriba = false;
+        if (i < fin && linea[i] == '.') {
+            i++;
+            while (i < fin && linea[i] >= '0' && linea[i] <= '9') {
+                if (decimales < Fijo.ESCALA) {
+                    fraccion = fraccion * 10 + (linea[i] - '0');
+                } else if (decimales == Fijo.ESCALA) {
+                    redondearArriba = linea[i] >= '5';
+                }
+                decimales++;
+                digitos++;
+                i++;
+            }
+        }
+        if (i != fin || digitos == 0) {
+            return INVALIDO;
+        }
+        for (int d = Math.min(decimales, Fijo.ESCALA); d < Fijo.ESCALA; d++) {
+            fraccion *= 10;
+        }
+        long valor = entero * Fijo.UNO + fraccion + (redondearArriba ? 1 : 0);
+        return negativo ? -valor : valor;
+    }
+
+    // Fecha dd/MM/yyyy a milisegundos (medianoche en la zona local, como SimpleDateFormat)
+    long fecha(int campo) {
+        int i = inicios[campo];
+        int fin = fines[campo];
+        int dia = 0;
+        int mes = 0;
+        int anio = 0;
+        int parte = 0;
+        int digitos = 0;
+        for (; i < fin; i++) {
+            byte b = linea[i];
+            if (b == '/') {
+                if (digitos == 0 || ++parte > 2) {
+                    return INVALIDO;
+                }
+                digitos = 0;
+            } else if (b >= '0' && b <= '9') {
+                if (++digitos > 4) {
+                    return INVALIDO;
+                }
+                int d = b - '0';
+                if (parte == 0) {
+                    dia = dia * 10 + d;
+                } else if (parte == 1) {
+                    mes = mes * 10 + d;
+                } else {
+                    anio = anio * 10 + d;
+                }
+            } else {
+                return INVALIDO;
+            }
+        }
+        if (parte != 2 || digitos == 0 || mes < 1 || mes > 12 || dia < 1 || dia > diasDelMes(mes, anio)) {
+            return INVALIDO;
+        }
+        int clave = anio * 10000 + mes * 100 + dia;
+        int ranura = (clave * 31) & (TAMANO_CACHE_FECHAS - 1);
+        if (clavesFecha[ranura] != clave) {
+            milisFecha[ranura] = LocalDate.of(anio, mes, dia).atStartOfDay(zona).toInstant().toEpochMilli();
+            clavesFecha[ranura] = clave;
+        }
+        return milisFecha[ranura];
+    }
+
+    private static int diasDelMes(int mes, int anio) {
+        switch (mes) {
+            case 2:
+                boolean bisiesto = (anio % 4 == 0 && anio % 100 != 0) || anio % 400 == 0;
+                return bisiesto ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private boolean igualSinMayusculas(int campo, byte[] esperado) {
+        int inicio = inicios[campo];
+        if (fines[campo] - inicio != esperado.length) {
+            return false;
+        }
+        for (int i = 0; i < esperado.length; i++) {
+            byte b = linea[inicio + i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != esperado[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
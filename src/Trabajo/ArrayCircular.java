@@ -0,0 +1,189 @@
+package Trabajo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Cola sobre un arreglo circular que crece según se necesite. Quitar por el
+// frente es O(1); quitar con el iterador deja un hueco (null) que se compacta
+// en bloque más adelante, en lugar de mover elementos en cada eliminación.
+public class ArrayCircular<T> implements Cola<T> {
+    private static final int CAPACIDAD_INICIAL = 8;
+
+    private Object[] elementos;
+    private int cabeza = 0;  // Posición física del primer elemento
+    private int ocupados = 0; // Posiciones usadas, incluidos los huecos
+    private int size = 0;     // Elementos vivos
+
+    public ArrayCircular() {
+        this(CAPACIDAD_INICIAL);
+    }
+
+    public ArrayCircular(int capacidadInicial) {
+        elementos = new Object[Math.max(1, capacidadInicial)];
+    }
+
+    @Override
+    public void addLast(T element) {
+        if (element == null) {
+            throw new IllegalArgumentException("No se admiten elementos nulos.");
+        }
+        if (ocupados == elementos.length) {
+            if (ocupados - size > ocupados / 2) {
+                compactar();
+            } else {
+                crecer();
+            }
+        }
+        elementos[posicion(ocupados)] = element;
+        ocupados++;
+        size++;
+    }
+
+    @Override
+    public T removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("La lista está vacía.");
+        }
+        T removedElement = elemento(0);
+        elementos[cabeza] = null;
+        avanzarCabeza();
+        size--;
+        saltarHuecosIniciales();
+        return removedElement;
+    }
+
+    @Override
+    public T getFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("La lista está vacía.");
+        }
+        return elemento(0);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new ArrayCircularIterator();
+    }
+
+    // Deja huecos en las posiciones retiradas, sin mover los demás
+    @Override
+    public List<T> retirar(BitSet posiciones) {
+        List<T> retirados = new ArrayList<>(posiciones.cardinality());
+        Iterator<T> iterador = iterator();
+        for (int posicion = 0; iterador.hasNext(); posicion++) {
+            T elemento = iterador.next();
+            if (posiciones.get(posicion)) {
+                iterador.remove();
+                retirados.add(elemento);
+            }
+        }
+        return retirados;
+    }
+
+    private int posicion(int indiceLogico) {
+        int posicion = cabeza + indiceLogico;
+        return posicion < elementos.length ? posicion : posicion - elementos.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elemento(int indiceLogico) {
+        return (T) elementos[posicion(indiceLogico)];
+    }
+
+    private void avanzarCabeza() {
+        cabeza = posicion(1);
+        ocupados--;
+    }
+
+    // El frente nunca queda en un hueco, así getFirst y removeFirst son O(1)
+    private void saltarHuecosIniciales() {
+        while (ocupados > 0 && elementos[cabeza] == null) {
+            avanzarCabeza();
+        }
+        if (ocupados == 0) {
+            cabeza = 0;
+        }
+    }
+
+    private void crecer() {
+        elementos = copiarVivos(elementos.length * 2);
+    }
+
+    // Elimina todos los huecos de una sola pasada
+    private void compactar() {
+        elementos = copiarVivos(elementos.length);
+    }
+
+    private Object[] copiarVivos(int capacidad) {
+        Object[] nuevos = new Object[capacidad];
+        int destino = 0;
+        for (int i = 0; i < ocupados; i++) {
+            Object elemento = elementos[posicion(i)];
+            if (elemento != null) {
+                nuevos[destino++] = elemento;
+            }
+        }
+        cabeza = 0;
+        ocupados = destino;
+        return nuevos;
+    }
+
+    private class ArrayCircularIterator implements Iterator<T> {
+        private final Object[] arreglo = elementos;
+        private int siguiente = 0;
+        private int ultimoDevuelto = -1;
+        private int elementsVisited = 0;
+
+        @Override
+        public boolean hasNext() {
+            return elementsVisited < size;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext() || arreglo != elementos) {
+                throw new NoSuchElementException();
+            }
+            while (elemento(siguiente) == null) {
+                siguiente++;
+            }
+            ultimoDevuelto = siguiente++;
+            elementsVisited++;
+            return elemento(ultimoDevuelto);
+        }
+
+        @Override
+        public void remove() {
+            if (ultimoDevuelto < 0) {
+                throw new IllegalStateException();
+            }
+            if (ultimoDevuelto == 0) {
+                // Quitar el primero no deja hueco
+                elementos[cabeza] = null;
+                avanzarCabeza();
+                size--;
+                saltarHuecosIniciales();
+                siguiente = 0;
+            } else {
+                elementos[posicion(ultimoDevuelto)] = null;
+                size--;
+            }
+            elementsVisited--;
+            ultimoDevuelto = -1;
+        }
+    }
+}
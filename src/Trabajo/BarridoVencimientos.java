@@ -0,0 +1,108 @@
+package Trabajo;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Saca del stock activo los lotes ya vencidos (vencimiento anterior a hoy) y
+// deja un movimiento "Vencimiento" por cada lote retirado. Con el índice de
+// vencimientos solo visita los ítems que tienen algún lote vencido. Se puede
+// llamar a barrer() directamente o programarlo con iniciar().
+public class BarridoVencimientos implements AutoCloseable {
+    private final Inventario inventario;
+    private final DiarioMovimientos diario; // Puede ser null (sin diario)
+    private final List<MovimientoInventario> movimientos;
+    private ScheduledExecutorService programador;
+
+    public BarridoVencimientos(Inventario inventario, DiarioMovimientos diario, List<MovimientoInventario> movimientos) {
+        this.inventario = inventario;
+        this.diario = diario;
+        this.movimientos = movimientos;
+    }
+
+    // Barre ahora y luego cada 'periodo' en un hilo de fondo
+    public synchronized void iniciar(long periodo, TimeUnit unidad) {
+        if (programador != null) {
+            throw new IllegalStateException("El barrido de vencimientos ya está iniciado.");
+        }
+        programador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "barrido-vencimientos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        programador.scheduleAtFixedRate(this::barrerProgramado, 0, periodo, unidad);
+    }
+
+    public int barrer() {
+        return barrer(LocalDate.now());
+    }
+
+    // Retira los lotes que vencieron antes de 'hoy' y devuelve cuántos fueron
+    public int barrer(LocalDate hoy) {
+        Set<ItemConLotes> items = new LinkedHashSet<>();
+        for (Lote lote : inventario.getIndiceVencimientos().lotesAntesDe(hoy)) {
+            ItemConLotes item = lote.getPropietario();
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        // Los lotes de un AlmacenMapeado no están en el índice: esos ítems se revisan siempre
+        agregarMapeados(inventario.getIngredientes(), items);
+        agregarMapeados(inventario.getEnvases(), items);
+        agregarMapeados(inventario.getProductos(), items);
+        int retirados = 0;
+        Date fecha = new Date();
+        for (ItemConLotes item : items) {
+            List<Lote> vencidos = item.retirarVencidos(hoy, diario);
+            synchronized (movimientos) {
+                for (Lote lote : vencidos) {
+                    movimientos.add(movimiento(item, lote, fecha));
+                }
+            }
+            retirados += vencidos.size();
+        }
+        Metricas.contar(Metricas.LOTES_VENCIDOS, retirados);
+        return retirados;
+    }
+
+    private static void agregarMapeados(List<? extends ItemConLotes> candidatos, Set<ItemConLotes> items) {
+        for (ItemConLotes item : candidatos) {
+            if (item.isLotesMapeados()) {
+                items.add(item);
+            }
+        }
+    }
+
+    static MovimientoInventario movimiento(ItemConLotes item, Lote lote, Date fecha) {
+        return new MovimientoInventario("Vencimiento", fecha, item.getNombre() + " (lote " + lote.getCodigoLote() + ")",
+                lote.getCantidad());
+    }
+
+    // Una excepción cancelaría las ejecuciones siguientes: se informa y se sigue
+    private void barrerProgramado() {
+        try {
+            barrer();
+        } catch (RuntimeException e) {
+            System.out.println("Error en el barrido de vencimientos: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (programador == null) {
+            return;
+        }
+        programador.shutdown();
+        try {
+            programador.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        programador = null;
+    }
+}
@@ -0,0 +1,210 @@
+package Trabajo;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Benchmarks de los caminos críticos del inventario a distintas escalas:
+// colas de lotes, consumo de stock, máxima producción de recetas, búsqueda
+// por nombre y carga de data.txt. Ver MedicionRendimiento.
+//
+// Uso: java Trabajo.BenchmarkNucleo [opciones]
+//   --lotes=10,1000        lotes por ítem
+//   --items=1000,100000    ítems por inventario
+//   --ancho=4,16           ingredientes por receta
+//   --calentamiento=3 --iteraciones=5 --ms=200
+//   --solo=texto           solo los benchmarks cuyo nombre contiene el texto
+//   --guardar=base.csv     guarda los resultados como línea base
+//   --comparar=base.csv    compara contra una línea base
+public class BenchmarkNucleo {
+    private static final int OPERACIONES_POR_LLAMADA = 1000;
+    private static final long MAX_LINEAS_CARGA = 2_000_000;
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (!arg.startsWith("--") || igual < 0) {
+                System.out.println("Opción inválida: " + arg);
+                return;
+            }
+            opciones.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+        int[] lotes = enteros(opciones.getOrDefault("lotes", "10,1000"));
+        int[] items = enteros(opciones.getOrDefault("items", "1000,100000"));
+        int[] anchos = enteros(opciones.getOrDefault("ancho", "4,16"));
+        String solo = opciones.getOrDefault("solo", "");
+        MedicionRendimiento medicion = new MedicionRendimiento(
+                Integer.parseInt(opciones.getOrDefault("calentamiento", "3")),
+                Integer.parseInt(opciones.getOrDefault("iteraciones", "5")),
+                Long.parseLong(opciones.getOrDefault("ms", "200")));
+
+        for (int n : lotes) {
+            if (incluir("CircularLinkedList ArrayCircular", solo)) {
+                colas(medicion, n);
+            }
+            if (incluir("Ingrediente.consumirCantidad", solo)) {
+                consumo(medicion, n);
+            }
+        }
+        for (int ancho : anchos) {
+            if (incluir("Receta.calcularMaximaProduccion", solo)) {
+                maximaProduccion(medicion, ancho);
+            }
+        }
+        for (int m : items) {
+            if (incluir("Inventario.buscarIngredientes", solo)) {
+                busqueda(medicion, m);
+            }
+        }
+        for (int m : items) {
+            for (int n : lotes) {
+                if (incluir("DataLoader.cargarDatos", solo)) {
+                    carga(medicion, m, n);
+                }
+            }
+        }
+
+        if (opciones.containsKey("guardar")) {
+            medicion.guardar(Paths.get(opciones.get("guardar")));
+        }
+        if (opciones.containsKey("comparar")) {
+            medicion.comparar(Paths.get(opciones.get("comparar")));
+        }
+        System.out.println("(sumidero " + medicion.getSumidero() + ")");
+    }
+
+    // addLast + removeFirst sobre una cola con 'n' lotes: el patrón de uso de los lotes FIFO
+    private static void colas(MedicionRendimiento medicion, int n) {
+        List<Cola<Lote>> colas = List.of(new CircularLinkedList<>(), new ArrayCircular<>());
+        for (Cola<Lote> cola : colas) {
+            for (int i = 0; i < n; i++) {
+                cola.addLast(nuevoLote(10));
+            }
+            medicion.medir(cola.getClass().getSimpleName() + ".addLast+removeFirst", "lotes=" + n,
+                    OPERACIONES_POR_LLAMADA, () -> {
+                        long suma = 0;
+                        for (int i = 0; i < OPERACIONES_POR_LLAMADA; i++) {
+                            Lote lote = cola.removeFirst();
+                            suma += lote.getCantidadFija();
+                            cola.addLast(lote);
+                        }
+                        return suma;
+                    });
+        }
+    }
+
+    // Un consumo que cruza lotes (1,5 lotes) y la reposición de lo consumido
+    private static void consumo(MedicionRendimiento medicion, int n) {
+        Ingrediente ingrediente = new Ingrediente("Harina", "Insumos");
+        for (int i = 0; i < n; i++) {
+            ingrediente.agregarLote(nuevoLote(10));
+        }
+        long consumo = Fijo.desdeEntero(15);
+        medicion.medir("Ingrediente.consumirCantidad", "lotes=" + n, 1, () -> {
+            try {
+                ingrediente.consumirCantidad(consumo);
+            } catch (StockBajoException e) {
+                throw new IllegalStateException(e);
+            }
+            ingrediente.agregarLote(nuevoLote(15));
+            return ingrediente.getNumeroLotes();
+        });
+    }
+
+    private static void maximaProduccion(MedicionRendimiento medicion, int ancho) {
+        Random random = new Random(ancho);
+        Inventario inventario = new Inventario();
+        Receta receta = new Receta();
+        for (int i = 0; i < ancho; i++) {
+            Ingrediente ingrediente = new Ingrediente("Ingrediente " + i, "Insumos");
+            ingrediente.agregarLote(nuevoLote(1000 + random.nextInt(100_000)));
+            inventario.agregarIngrediente(ingrediente);
+            receta.agregarIngrediente(ingrediente, BigDecimal.valueOf(1 + random.nextInt(500), 1));
+        }
+        inventario.agregarProducto(new Producto("Producto", "Prueba", receta));
+        medicion.medir("Receta.calcularMaximaProduccion", "ancho=" + ancho, 1, receta::calcularMaximaProduccion);
+        long[] stock = inventario.capturarStock();
+        RecetaCompilada compilada = receta.compilar();
+        medicion.medir("RecetaCompilada.maximaProduccion", "ancho=" + ancho, 1, () -> compilada.maximaProduccion(stock));
+    }
+
+    private static void busqueda(MedicionRendimiento medicion, int m) {
+        Random random = new Random(m);
+        GeneradorDatos generador = new GeneradorDatos(); // Los mismos nombres que en data.txt
+        generador.setSemilla(m);
+        Inventario inventario = new Inventario();
+        List<String> nombres = new ArrayList<>();
+        for (int i = 0; i < m; i++) {
+            String nombre = generador.nombreIngrediente(i);
+            nombres.add(nombre);
+            inventario.agregarIngrediente(new Ingrediente(nombre, "Insumos"));
+        }
+        // Consultas parciales: fragmentos de nombres existentes y algunas sin resultados
+        String[] consultas = new String[64];
+        for (int i = 0; i < consultas.length; i++) {
+            String nombre = nombres.get(random.nextInt(m));
+            int inicio = random.nextInt(Math.max(1, nombre.length() - 4));
+            consultas[i] = i % 8 == 0 ? "zzq" + i : nombre.substring(inicio, Math.min(nombre.length(), inicio + 4));
+        }
+        int[] siguiente = {0};
+        medicion.medir("Inventario.buscarIngredientes", "items=" + m, 1, () -> {
+            String consulta = consultas[siguiente[0]++ & (consultas.length - 1)];
+            return inventario.buscarIngredientes(consulta).size();
+        });
+    }
+
+    // Carga secuencial de un archivo con 'm' ítems de 'n' lotes; se informa por línea
+    private static void carga(MedicionRendimiento medicion, int m, int n) throws IOException {
+        long lineas = (long) m * (n + 1);
+        if (lineas > MAX_LINEAS_CARGA) {
+            System.out.println("DataLoader.cargarDatos items=" + m + ",lotes=" + n + ": se omite (más de "
+                    + MAX_LINEAS_CARGA + " líneas)");
+            return;
+        }
+        Path archivo = Files.createTempFile("benchmark-data", ".txt");
+        try {
+            escribirDatos(archivo, m, n);
+            medicion.medir("DataLoader.cargarDatos", "items=" + m + ",lotes=" + n, lineas, () -> {
+                Inventario inventario = new Inventario();
+                new DataLoader().cargarDatos(archivo.toString(), inventario);
+                return inventario.getIngredientes().size();
+            });
+        } finally {
+            Files.deleteIfExists(archivo);
+        }
+    }
+
+    private static void escribirDatos(Path archivo, int m, int n) throws IOException {
+        GeneradorDatos generador = new GeneradorDatos();
+        generador.setSemilla(m * 31L + n);
+        generador.setIngredientes(m);
+        generador.setEnvases(0);
+        generador.setLotesPorItem(n);
+        generador.generarDatos(archivo);
+    }
+
+    private static Lote nuevoLote(long unidades) {
+        return Lote.nuevo(Fijo.desdeEntero(unidades), null, Fijo.desdeEntero(unidades * 3));
+    }
+
+    private static boolean incluir(String nombre, String solo) {
+        return solo.isEmpty() || nombre.contains(solo);
+    }
+
+    private static int[] enteros(String lista) {
+        String[] partes = lista.split(",");
+        int[] valores = new int[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            valores[i] = Integer.parseInt(partes[i].trim());
+        }
+        return valores;
+    }
+}
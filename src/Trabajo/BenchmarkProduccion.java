@@ -0,0 +1,96 @@
+package Trabajo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+// Mide cuántas órdenes de producción por segundo se completan con 1, 2, 4...
+// hilos. En el escenario "disjuntas" cada hilo produce un producto cuya receta
+// no comparte ítems con la de los otros hilos, así que solo compiten por la
+// lista de movimientos; en "compartida" todas las recetas usan el mismo
+// envase y se ve el costo de la contención sobre un mismo lock.
+//
+// Uso: java Trabajo.BenchmarkProduccion [maxHilos] [ordenesPorHilo]
+public class BenchmarkProduccion {
+    private static final int RONDAS_CALENTAMIENTO = 2;
+
+    public static void main(String[] args) throws Exception {
+        int maxHilos = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int ordenesPorHilo = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        System.out.println("Procesadores disponibles: " + Runtime.getRuntime().availableProcessors());
+        for (int i = 0; i < RONDAS_CALENTAMIENTO; i++) {
+            medir(maxHilos, ordenesPorHilo / 10, false);
+        }
+        for (boolean compartida : new boolean[]{false, true}) {
+            System.out.println("\nRecetas " + (compartida ? "compartida" : "disjuntas") + ":");
+            System.out.printf("%6s %14s %10s%n", "Hilos", "Órdenes/s", "Escala");
+            double base = 0;
+            for (int hilos = 1; hilos <= maxHilos; hilos *= 2) {
+                double porSegundo = medir(hilos, ordenesPorHilo, compartida);
+                if (hilos == 1) {
+                    base = porSegundo;
+                }
+                System.out.printf("%6d %14.0f %9.2fx%n", hilos, porSegundo, porSegundo / base);
+            }
+        }
+    }
+
+    // Devuelve las órdenes por segundo de 'hilos' hilos produciendo en paralelo
+    private static double medir(int hilos, int ordenesPorHilo, boolean compartida) throws InterruptedException {
+        Envase envaseComun = nuevoEnvase("Envase común", (long) hilos * ordenesPorHilo);
+        Producto[] productos = new Producto[hilos];
+        for (int i = 0; i < hilos; i++) {
+            Receta receta = new Receta();
+            receta.agregarIngrediente(nuevoIngrediente("Harina " + i, ordenesPorHilo * 2L), new BigDecimal("2"));
+            receta.agregarIngrediente(nuevoIngrediente("Sal " + i, ordenesPorHilo), new BigDecimal("0.5"));
+            receta.agregarEnvase(compartida ? envaseComun : nuevoEnvase("Bolsa " + i, ordenesPorHilo), BigDecimal.ONE);
+            productos[i] = new Producto("Pan " + i, "Panadería", receta);
+        }
+
+        List<MovimientoInventario> movimientos = new ArrayList<>(hilos * ordenesPorHilo);
+        Produccion produccion = new Produccion(null, movimientos);
+        CountDownLatch listos = new CountDownLatch(hilos);
+        CountDownLatch inicio = new CountDownLatch(1);
+        Thread[] trabajadores = new Thread[hilos];
+        for (int i = 0; i < hilos; i++) {
+            Producto producto = productos[i];
+            trabajadores[i] = new Thread(() -> {
+                listos.countDown();
+                try {
+                    inicio.await();
+                    for (int n = 0; n < ordenesPorHilo; n++) {
+                        produccion.producir(producto, new Lote("B" + n, Fijo.UNO, null, Fijo.UNO));
+                    }
+                } catch (InterruptedException | StockBajoException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            trabajadores[i].start();
+        }
+        listos.await();
+        long comienzo = System.nanoTime();
+        inicio.countDown();
+        for (Thread trabajador : trabajadores) {
+            trabajador.join();
+        }
+        long nanos = System.nanoTime() - comienzo;
+        if (movimientos.size() != hilos * ordenesPorHilo) {
+            throw new IllegalStateException("Se esperaban " + hilos * ordenesPorHilo + " órdenes y hubo " + movimientos.size());
+        }
+        return hilos * (double) ordenesPorHilo * 1e9 / nanos;
+    }
+
+    private static Ingrediente nuevoIngrediente(String nombre, long unidades) {
+        Ingrediente ingrediente = new Ingrediente(nombre, "Insumos");
+        ingrediente.agregarLote(new Lote("I-" + nombre, Fijo.desdeEntero(unidades), null, Fijo.desdeEntero(unidades)));
+        return ingrediente;
+    }
+
+    private static Envase nuevoEnvase(String nombre, long unidades) {
+        Envase envase = new Envase(nombre, "Bolsa");
+        envase.agregarLote(new Lote("E-" + nombre, Fijo.desdeEntero(unidades), null, Fijo.desdeEntero(unidades)));
+        return envase;
+    }
+}
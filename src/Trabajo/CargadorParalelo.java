@@ -0,0 +1,184 @@
+package Trabajo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Carga de data.txt en paralelo. El archivo se proyecta en memoria y se parte
+// en tramos que siempre empiezan en una línea "Ingrediente|" o "Envase|", así
+// cada lote queda en el mismo tramo que su cabecera. Los tramos se leen en un
+// ForkJoinPool y se agregan al inventario en el orden del archivo.
+public class CargadorParalelo {
+    private static final long TAMANO_TRAMO_POR_DEFECTO = 32L * 1024 * 1024;
+    private static final int TAMANO_VENTANA = 64 * 1024;
+    private static final byte[] CABECERA_INGREDIENTE = "ingrediente|".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CABECERA_ENVASE = "envase|".getBytes(StandardCharsets.US_ASCII);
+
+    private final ForkJoinPool pool;
+    private final long tamanoTramo;
+    private final List<ErrorCarga> errores = new ArrayList<>();
+
+    public CargadorParalelo() {
+        this(ForkJoinPool.commonPool(), TAMANO_TRAMO_POR_DEFECTO);
+    }
+
+    public CargadorParalelo(ForkJoinPool pool, long tamanoTramo) {
+        if (tamanoTramo <= 0 || tamanoTramo > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("El tamaño de tramo debe estar entre 1 y " + Integer.MAX_VALUE + " bytes.");
+        }
+        this.pool = pool;
+        this.tamanoTramo = tamanoTramo;
+    }
+
+    // Carga el archivo y devuelve el número de líneas leídas
+    public long cargar(String filePath, Inventario inventario) throws IOException {
+        List<DataLoader.EstadoCarga> resultados;
+        try (FileChannel canal = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            List<long[]> tramos = partir(canal);
+            List<LeerTramo> tareas = new ArrayList<>();
+            for (long[] tramo : tramos) {
+                MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, tramo[0], tramo[1] - tramo[0]);
+                tareas.add(new LeerTramo(buffer));
+            }
+            resultados = new ArrayList<>();
+            for (LeerTramo tarea : tareas) {
+                pool.execute(tarea);
+            }
+            for (LeerTramo tarea : tareas) {
+                resultados.add(tarea.join());
+            }
+        }
+
+        // Fusión determinista: los tramos se agregan en el orden del archivo
+        errores.clear();
+        long lineas = 0;
+        for (DataLoader.EstadoCarga estado : resultados) {
+            estado.agregarA(inventario);
+            for (ErrorCarga error : estado.getErrores()) {
+                errores.add(new ErrorCarga(lineas + error.getLinea(), error.getMensaje()));
+            }
+            lineas += estado.getLineas();
+        }
+
+        Metricas.contar(Metricas.LINEAS_LEIDAS, lineas);
+        return lineas;
+    }
+
+    // Errores de la última carga, con su número de línea en el archivo
+    public List<ErrorCarga> getErrores() {
+        return errores;
+    }
+
+    // Devuelve los tramos [inicio, fin) alineados a cabeceras de registro
+    private List<long[]> partir(FileChannel canal) throws IOException {
+        long tamano = canal.size();
+        List<long[]> tramos = new ArrayList<>();
+        long inicio = 0;
+        while (inicio < tamano) {
+            long fin = inicio + tamanoTramo >= tamano ? tamano : buscarCabecera(canal, inicio + tamanoTramo, tamano);
+            if (fin - inicio > Integer.MAX_VALUE) {
+                throw new IOException("Un bloque de lotes supera el tamaño máximo de tramo (" + Integer.MAX_VALUE + " bytes).");
+            }
+            tramos.add(new long[]{inicio, fin});
+            inicio = fin;
+        }
+        return tramos;
+    }
+
+    // Primer inicio de línea en o después de 'desde' que sea una cabecera de Ingrediente o Envase
+    private long buscarCabecera(FileChannel canal, long desde, long tamano) throws IOException {
+        ByteBuffer ventana = ByteBuffer.allocate(TAMANO_VENTANA);
+        byte[] linea = new byte[CABECERA_INGREDIENTE.length];
+        int largoLinea = 0;
+        long inicioLinea = -1;
+        // Se empieza a mirar desde el byte anterior para saber si 'desde' es inicio de línea
+        long posicion = desde - 1;
+        boolean enInicioDeLinea = false;
+        while (posicion < tamano) {
+            ventana.clear();
+            int leidos = canal.read(ventana, posicion);
+            if (leidos <= 0) {
+                break;
+            }
+            for (int i = 0; i < leidos; i++, posicion++) {
+                byte b = ventana.get(i);
+                if (enInicioDeLinea) {
+                    inicioLinea = posicion;
+                    largoLinea = 0;
+                    enInicioDeLinea = false;
+                }
+                if (b == '\n') {
+                    enInicioDeLinea = true;
+                    inicioLinea = -1;
+                    continue;
+                }
+                if (inicioLinea >= 0 && largoLinea < linea.length) {
+                    linea[largoLinea++] = b;
+                    if (empiezaCon(linea, largoLinea, CABECERA_INGREDIENTE) || empiezaCon(linea, largoLinea, CABECERA_ENVASE)) {
+                        return inicioLinea;
+                    }
+                }
+            }
+        }
+        return tamano;
+    }
+
+    private static boolean empiezaCon(byte[] linea, int largo, byte[] prefijo) {
+        if (largo != prefijo.length) {
+            return false;
+        }
+        for (int i = 0; i < largo; i++) {
+            byte b = linea[i];
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != prefijo[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Lee las líneas de un tramo proyectado en memoria
+    private static class LeerTramo extends RecursiveTask<DataLoader.EstadoCarga> {
+        private static final long serialVersionUID = 1L;
+
+        private final MappedByteBuffer buffer;
+
+        LeerTramo(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        protected DataLoader.EstadoCarga compute() {
+            DataLoader.EstadoCarga estado = new DataLoader.EstadoCarga();
+            byte[] linea = new byte[256];
+            int largo = 0;
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    estado.procesarLinea(linea, largo);
+                    largo = 0;
+                    continue;
+                }
+                if (largo == linea.length) {
+                    linea = Arrays.copyOf(linea, largo * 2);
+                }
+                linea[largo++] = b;
+            }
+            if (largo > 0) {
+                estado.procesarLinea(linea, largo);
+            }
+            return estado;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package Trabajo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+// Carga perezosa de data.txt: una pasada rápida registra los ingredientes y
+// envases con la posición (en bytes) de su bloque de lotes, sin leer ningún
+// lote. Cada ítem lee y analiza su bloque la primera vez que se consulta su
+// stock o sus lotes (ver ItemConLotes.asegurarLotes). El archivo queda abierto
+// hasta close() y no debe cambiar mientras tanto.
+//
+// Con 'maximoCargados' > 0 se mantienen a lo sumo esa cantidad de ítems con
+// sus lotes en memoria: al pasarse, un reloj (aproximación de LRU) descarga
+// los que no se usaron desde su última vuelta. Solo se descargan ítems sin
+// cambios desde que se leyeron y sin stock reservado; los demás quedan en
+// memoria (lo modificado no se puede volver a leer de data.txt).
+//
+// Los códigos de lote se apartan en la pasada inicial, así un lote conserva
+// su código aunque se descargue y se vuelva a leer. Los índices que dependen
+// de los lotes (IndiceVencimientos) solo ven los ítems leídos.
+public class CargadorPerezoso implements Closeable {
+    private final FileChannel archivo;
+    private final int maximoCargados; // 0 = sin límite
+    private final Date fechaCarga = new Date();
+    private final List<ErrorCarga> errores = Collections.synchronizedList(new ArrayList<>());
+    private final ArrayDeque<ItemConLotes> cargados = new ArrayDeque<>(); // Reloj, con el monitor de this
+    private final ThreadLocal<AnalizadorLinea> analizadores = ThreadLocal.withInitial(AnalizadorLinea::new);
+    private long lecturas;
+    private long descargas;
+
+    // Lotes de un ítem en data.txt: [inicio, inicio + largo) a partir de la línea 'primeraLinea'
+    static final class Bloque {
+        private final CargadorPerezoso cargador;
+        private final long inicio;
+        private final int largo;
+        private final long primeraLinea;
+        private final long primerCodigo;
+        private final boolean conVencimiento;
+
+        private Bloque(CargadorPerezoso cargador, long inicio, int largo, long primeraLinea, long primerCodigo,
+                       boolean conVencimiento) {
+            this.cargador = cargador;
+            this.inicio = inicio;
+            this.largo = largo;
+            this.primeraLinea = primeraLinea;
+            this.primerCodigo = primerCodigo;
+            this.conVencimiento = conVencimiento;
+        }
+
+        // Los errores de los lotes se anotan solo la primera vez que se leen
+        List<Lote> leer(boolean anotarErrores) {
+            return cargador.leer(this, anotarErrores);
+        }
+
+        void cargado(ItemConLotes item) {
+            cargador.cargado(item);
+        }
+    }
+
+    public CargadorPerezoso(String filePath, int maximoCargados) throws IOException {
+        this.archivo = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+        this.maximoCargados = maximoCargados;
+    }
+
+    // Registra en 'inventario' los ingredientes y envases de data.txt, con sus
+    // lotes pendientes de leer. Anota los mismos errores de cabecera que
+    // DataLoader; los de los lotes aparecen al leerlos.
+    public void cargar(Inventario inventario) throws IOException {
+        Pasada pasada = new Pasada();
+        InputStream in = Channels.newInputStream(archivo.position(0));
+        byte[] bloque = new byte[64 * 1024];
+        byte[] linea = new byte[256];
+        int largo = 0;
+        long posicion = 0; // Inicio de la línea actual
+        int leidos;
+        while ((leidos = in.read(bloque)) != -1) {
+            for (int i = 0; i < leidos; i++) {
+                byte b = bloque[i];
+                if (b == '\n') {
+                    pasada.procesarLinea(linea, largo, posicion, posicion + largo + 1);
+                    posicion += largo + 1;
+                    largo = 0;
+                    continue;
+                }
+                if (largo == linea.length) {
+                    linea = Arrays.copyOf(linea, largo * 2);
+                }
+                linea[largo++] = b;
+            }
+        }
+        if (largo > 0) {
+            pasada.procesarLinea(linea, largo, posicion, posicion + largo);
+            posicion += largo;
+        }
+        pasada.cerrarBloque(posicion);
+        for (Ingrediente ingrediente : pasada.ingredientes) {
+            inventario.agregarIngrediente(ingrediente);
+        }
+        for (Envase envase : pasada.envases) {
+            inventario.agregarEnvase(envase);
+        }
+        Metricas.contar(Metricas.LINEAS_LEIDAS, pasada.lineas);
+        Metricas.contar(Metricas.LINEAS_RECHAZADAS, errores.size());
+    }
+
+    // Estado de la pasada inicial: solo analiza las cabeceras y cuenta los lotes
+    private final class Pasada {
+        private final AnalizadorLinea analizador = new AnalizadorLinea();
+        private final List<Ingrediente> ingredientes = new ArrayList<>();
+        private final List<Envase> envases = new ArrayList<>();
+        private ItemConLotes itemActual;
+        private long inicioBloque;
+        private long primeraLineaBloque;
+        private int lotesBloque;
+        private long lineas;
+
+        // 'posicion' es el inicio de la línea y 'siguiente' el de la que sigue
+        void procesarLinea(byte[] linea, int largo, long posicion, long siguiente) {
+            lineas++;
+            if (largo >= 5 && linea[0] == 'L' && linea[1] == 'o' && linea[2] == 't' && linea[3] == 'e' && linea[4] == '|') {
+                lote();
+                return;
+            }
+            if (largo > 0 && linea[largo - 1] == '\r') {
+                largo--;
+            }
+            int tipo = analizador.preparar(linea, largo);
+            switch (tipo) {
+                case AnalizadorLinea.INGREDIENTE:
+                case AnalizadorLinea.ENVASE:
+                    cerrarBloque(posicion);
+                    if (analizador.getNumeroCampos() < 3) {
+                        error(tipo == AnalizadorLinea.INGREDIENTE
+                                ? "cabecera de ingrediente incompleta, se ignoran sus lotes"
+                                : "cabecera de envase incompleta, se ignoran sus lotes");
+                        return;
+                    }
+                    if (tipo == AnalizadorLinea.INGREDIENTE) {
+                        Ingrediente ingrediente = new Ingrediente(analizador.texto(1), analizador.texto(2));
+                        ingredientes.add(ingrediente);
+                        itemActual = ingrediente;
+                    } else {
+                        Envase envase = new Envase(analizador.texto(1), analizador.texto(2));
+                        envases.add(envase);
+                        itemActual = envase;
+                    }
+                    inicioBloque = siguiente;
+                    primeraLineaBloque = lineas + 1;
+                    break;
+                case AnalizadorLinea.LOTE:
+                    lote();
+                    break;
+                case AnalizadorLinea.VACIA:
+                    break;
+                default:
+                    error("tipo de registro desconocido");
+            }
+        }
+
+        private void lote() {
+            if (itemActual == null) {
+                error("lote sin ingrediente ni envase");
+                return;
+            }
+            lotesBloque++;
+        }
+
+        // Termina el bloque del ítem actual en 'fin' (inicio de la cabecera siguiente o fin del archivo)
+        void cerrarBloque(long fin) {
+            if (itemActual != null && lotesBloque > 0) {
+                itemActual.setBloque(new Bloque(CargadorPerezoso.this, inicioBloque, (int) (fin - inicioBloque),
+                        primeraLineaBloque, GeneradorCodigos.reservar(lotesBloque), itemActual instanceof Ingrediente));
+            }
+            itemActual = null;
+            lotesBloque = 0;
+        }
+
+        private void error(String mensaje) {
+            errores.add(new ErrorCarga(lineas, mensaje));
+        }
+    }
+
+    // Lee y analiza los lotes de un bloque; el lote i-ésimo del bloque siempre
+    // recibe el código primerCodigo + i
+    private List<Lote> leer(Bloque bloque, boolean anotarErrores) {
+        byte[] bytes = new byte[bloque.largo];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            while (buffer.hasRemaining()) {
+                if (archivo.read(buffer, bloque.inicio + buffer.position()) < 0) {
+                    throw new IOException("data.txt cambió desde la carga");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudieron leer los lotes de data.txt", e);
+        }
+        AnalizadorLinea analizador = analizadores.get();
+        List<Lote> lotes = new ArrayList<>();
+        byte[] linea = new byte[256];
+        int numeroLote = 0;
+        long numeroLinea = bloque.primeraLinea;
+        int inicio = 0;
+        for (int i = 0; i <= bytes.length; i++) {
+            if (i < bytes.length && bytes[i] != '\n') {
+                continue;
+            }
+            int largo = i - inicio;
+            if (largo > 0 && bytes[inicio + largo - 1] == '\r') {
+                largo--;
+            }
+            if (linea.length < largo) {
+                linea = new byte[largo];
+            }
+            System.arraycopy(bytes, inicio, linea, 0, largo);
+            // Las líneas de otros tipos ya se informaron en la pasada inicial
+            if (analizador.preparar(linea, largo) == AnalizadorLinea.LOTE) {
+                long lineaLote = numeroLinea;
+                Lote lote = DataLoader.EstadoCarga.analizarLote(analizador, bloque.conVencimiento,
+                        bloque.primerCodigo + numeroLote++, fechaCarga, mensaje -> {
+                            if (anotarErrores) {
+                                errores.add(new ErrorCarga(lineaLote, mensaje));
+                            }
+                        });
+                if (lote != null) {
+                    lotes.add(lote);
+                }
+            }
+            numeroLinea++;
+            inicio = i + 1;
+        }
+        return lotes;
+    }
+
+    // Anota un ítem recién leído y, si hay límite, descarga los que no se usaron
+    // desde la última vuelta del reloj. No espera locks de otros ítems.
+    private synchronized void cargado(ItemConLotes item) {
+        lecturas++;
+        if (maximoCargados <= 0) {
+            return;
+        }
+        cargados.addLast(item);
+        int intentos = 2 * cargados.size();
+        while (cargados.size() > maximoCargados && intentos-- > 0) {
+            ItemConLotes candidato = cargados.pollFirst();
+            if (candidato == item || candidato.referenciado) {
+                candidato.referenciado = false;
+                cargados.addLast(candidato);
+            } else if (candidato.descargar()) {
+                descargas++;
+            } else if (!candidato.isModificado()) {
+                cargados.addLast(candidato); // En uso o con reservas: se intenta en otra vuelta
+            }
+        }
+    }
+
+    // Ítems leídos de data.txt hasta ahora (incluye las relecturas tras descargar)
+    public synchronized long getLecturas() {
+        return lecturas;
+    }
+
+    public synchronized long getDescargas() {
+        return descargas;
+    }
+
+    // Errores de la pasada inicial y de los lotes leídos hasta ahora
+    public List<ErrorCarga> getErrores() {
+        synchronized (errores) {
+            return new ArrayList<>(errores);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        archivo.close();
+    }
+}
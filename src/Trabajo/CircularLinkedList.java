@@ -3,7 +3,7 @@ package Trabajo;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
-public class CircularLinkedList<T> implements Iterable<T> {
+public class CircularLinkedList<T> implements Cola<T> {
     // Nodo interno de la lista circular
     private class Node {
         T element;
@@ -61,6 +61,10 @@ public class CircularLinkedList<T> implements Iterable<T> {
         return size == 0;
     }
 
+    public int size() {
+        return size;
+    }
+
     @Override
     public Iterator<T> iterator() {
         return new CircularLinkedListIterator();
@@ -91,6 +95,9 @@ public class CircularLinkedList<T> implements Iterable<T> {
             if (elementsVisited >= size || current == null) {
                 throw new NoSuchElementException();
             }
+            if (lastReturned != null) {
+                previous = lastReturned;
+            }
             lastReturned = current;
             current = current.next;
             elementsVisited++;
@@ -112,18 +119,14 @@ public class CircularLinkedList<T> implements Iterable<T> {
                 // Solo un elemento
                 head = null;
                 tail = null;
-            } else if (lastReturned == head) {
-                head = head.next;
-                tail.next = head;
             } else {
-                // Encontrar el nodo previo a lastReturned
-                Node prev = head;
-                while (prev.next != lastReturned) {
-                    prev = prev.next;
+                // previous siempre es el nodo anterior a lastReturned, no hace falta recorrer
+                previous.next = lastReturned.next;
+                if (lastReturned == head) {
+                    head = lastReturned.next;
                 }
-                prev.next = lastReturned.next;
                 if (lastReturned == tail) {
-                    tail = prev;
+                    tail = previous;
                 }
             }
             size--;
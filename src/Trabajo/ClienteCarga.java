@@ -0,0 +1,215 @@
+package Trabajo;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Prueba de carga local para ServidorInventario: 'conexiones' hilos en lazo
+// cerrado, cada uno con su conexión keep-alive, mezclando consultas (ítem
+// por nombre y búsqueda parcial) con altas de lotes y órdenes de producción.
+// Los primeros segundos son de calentamiento y no se miden; al final informa
+// peticiones por segundo y latencias p50/p90/p99 (ver Histograma).
+//
+// Uso: java Trabajo.ClienteCarga [url] [conexiones] [segundos] [escrituras%]
+//   por ejemplo: java Trabajo.ClienteCarga http://localhost:8080 200 20 10
+// Cada petición va con autenticación Basic, con el usuario y la contraseña de
+// INVENTARIO_USUARIO e INVENTARIO_CONTRASENA (los mismos que usa --lotes).
+public class ClienteCarga {
+    private static final int SEGUNDOS_CALENTAMIENTO = 3;
+    private static final Pattern TEXTO_JSON = Pattern.compile("\"((?:[^\"\\\\]|\\\\.)*)\"");
+
+    private final String url;
+    private final String autorizacion; // Valor de la cabecera Authorization
+    private final HttpClient cliente;
+    private final List<String> ingredientes;
+    private final List<String> productos;
+    private final Histograma lecturas = new Histograma();
+    private final Histograma escrituras = new Histograma();
+    private final LongAdder errores = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder(); // 409: stock insuficiente
+    private final LongAdder sinRespuesta = new LongAdder(); // Conexión rechazada o cortada
+    private volatile String primerFallo;
+
+    private ClienteCarga(String url, String autorizacion, HttpClient cliente, List<String> ingredientes,
+                         List<String> productos) {
+        this.url = url;
+        this.autorizacion = autorizacion;
+        this.cliente = cliente;
+        this.ingredientes = ingredientes;
+        this.productos = productos;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080";
+        int conexiones = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        double porcentajeEscrituras = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+        String usuario = System.getenv("INVENTARIO_USUARIO");
+        String contrasena = System.getenv("INVENTARIO_CONTRASENA");
+        if (usuario == null || contrasena == null) {
+            System.out.println("Defina INVENTARIO_USUARIO e INVENTARIO_CONTRASENA con un usuario del servidor.");
+            System.exit(2);
+        }
+        String autorizacion = "Basic " + Base64.getEncoder()
+                .encodeToString((usuario + ":" + contrasena).getBytes(StandardCharsets.UTF_8));
+
+        HttpClient cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        List<String> ingredientes = nombres(cliente, url, autorizacion, "ingrediente");
+        List<String> productos = nombres(cliente, url, autorizacion, "producto");
+        if (ingredientes.isEmpty()) {
+            System.out.println("El servidor no tiene ingredientes registrados.");
+            return;
+        }
+        System.out.printf("%d conexiones, %d s (+%d s de calentamiento), %.0f%% escrituras, %d ingredientes, %d productos%n",
+                conexiones, segundos, SEGUNDOS_CALENTAMIENTO, porcentajeEscrituras, ingredientes.size(), productos.size());
+        new ClienteCarga(url, autorizacion, cliente, ingredientes, productos).ejecutar(conexiones, segundos, porcentajeEscrituras / 100);
+    }
+
+    private void ejecutar(int conexiones, int segundos, double fraccionEscrituras) throws InterruptedException {
+        long inicioMedicion = System.nanoTime() + SEGUNDOS_CALENTAMIENTO * 1_000_000_000L;
+        long fin = inicioMedicion + segundos * 1_000_000_000L;
+        CountDownLatch terminados = new CountDownLatch(conexiones);
+        for (int i = 0; i < conexiones; i++) {
+            Thread hilo = new Thread(() -> {
+                try {
+                    trabajar(inicioMedicion, fin, fraccionEscrituras);
+                } finally {
+                    terminados.countDown();
+                }
+            }, "carga-" + i);
+            hilo.setDaemon(true);
+            hilo.start();
+        }
+        terminados.await();
+
+        long total = lecturas.getCuenta() + escrituras.getCuenta();
+        System.out.printf("Peticiones: %d (%.0f req/s), errores: %d, sin respuesta: %d, stock insuficiente (409): %d%n",
+                total, total / (double) segundos, errores.sum(), sinRespuesta.sum(), rechazadas.sum());
+        if (primerFallo != null) {
+            System.out.println("Primer fallo de conexión: " + primerFallo);
+        }
+        System.out.printf("%-11s %9s %9s %9s %9s %9s%n", "ms", "media", "p50", "p90", "p99", "máx");
+        imprimir("Consultas", lecturas);
+        imprimir("Altas", escrituras);
+    }
+
+    // Una petición tras otra hasta 'fin'; solo se miden las que empiezan después del calentamiento
+    private void trabajar(long inicioMedicion, long fin, double fraccionEscrituras) {
+        ThreadLocalRandom azar = ThreadLocalRandom.current();
+        long ahora;
+        while ((ahora = System.nanoTime()) < fin) {
+            boolean escritura = azar.nextDouble() < fraccionEscrituras;
+            HttpRequest peticion = escritura ? escritura(azar) : lectura(azar);
+            int codigo;
+            try {
+                codigo = cliente.send(peticion, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                codigo = -1;
+                if (primerFallo == null) {
+                    primerFallo = e.toString();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long latencia = System.nanoTime() - ahora;
+            if (ahora < inicioMedicion) {
+                continue;
+            }
+            (escritura ? escrituras : lecturas).registrar(latencia);
+            if (codigo == -1) {
+                sinRespuesta.increment();
+            } else if (codigo == 409) {
+                rechazadas.increment();
+            } else if (codigo < 200 || codigo >= 300) {
+                errores.increment();
+            }
+        }
+    }
+
+    // 80% ítem por nombre, 20% búsqueda parcial por las primeras letras
+    private HttpRequest lectura(ThreadLocalRandom azar) {
+        String nombre = ingredientes.get(azar.nextInt(ingredientes.size()));
+        String consulta = azar.nextInt(5) > 0
+                ? "/api/items?tipo=ingrediente&nombre=" + codificar(nombre)
+                : "/api/buscar?tipo=ingrediente&q=" + codificar(nombre.substring(0, Math.min(3, nombre.length())));
+        return HttpRequest.newBuilder(URI.create(url + consulta))
+                .header("Authorization", autorizacion)
+                .GET()
+                .build();
+    }
+
+    // Alta de un lote de ingrediente; si hay productos, una de cada cuatro es una orden de producción
+    private HttpRequest escritura(ThreadLocalRandom azar) {
+        String vencimiento = LocalDate.now().plusDays(1 + azar.nextInt(365)).toString();
+        StringBuilder json = new StringBuilder("{");
+        String ruta;
+        if (!productos.isEmpty() && azar.nextInt(4) == 0) {
+            ruta = "/api/producciones";
+            json.append("\"producto\":");
+            EscritorReportes.anexarTextoJson(json, productos.get(azar.nextInt(productos.size())));
+            json.append(",\"cantidad\":1,\"precioTotal\":10");
+        } else {
+            ruta = "/api/lotes";
+            json.append("\"item\":");
+            EscritorReportes.anexarTextoJson(json, ingredientes.get(azar.nextInt(ingredientes.size())));
+            json.append(",\"cantidad\":").append(1 + azar.nextInt(100)).append(",\"precioTotal\":")
+                    .append(1 + azar.nextInt(500));
+        }
+        json.append(",\"vencimiento\":\"").append(vencimiento).append("\"}");
+        return HttpRequest.newBuilder(URI.create(url + ruta))
+                .header("Authorization", autorizacion)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json.toString(), StandardCharsets.UTF_8))
+                .build();
+    }
+
+    // Hasta 1000 nombres del tipo pedido, para armar las peticiones
+    private static List<String> nombres(HttpClient cliente, String url, String autorizacion, String tipo)
+            throws IOException, InterruptedException {
+        HttpResponse<String> respuesta = cliente.send(
+                HttpRequest.newBuilder(URI.create(url + "/api/items?tipo=" + tipo + "&limite=1000"))
+                        .header("Authorization", autorizacion)
+                        .GET()
+                        .build(),
+                HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+        if (respuesta.statusCode() != 200) {
+            throw new IOException("GET /api/items respondió " + respuesta.statusCode() + ": " + respuesta.body());
+        }
+        String cuerpo = respuesta.body();
+        Matcher matcher = TEXTO_JSON.matcher(cuerpo);
+        matcher.region(cuerpo.indexOf('[') + 1, cuerpo.length());
+        List<String> nombres = new ArrayList<>();
+        while (matcher.find()) {
+            nombres.add(matcher.group(1).replace("\\\"", "\"").replace("\\\\", "\\"));
+        }
+        return nombres;
+    }
+
+    private static String codificar(String texto) {
+        return URLEncoder.encode(texto, StandardCharsets.UTF_8);
+    }
+
+    private static void imprimir(String nombre, Histograma histograma) {
+        System.out.printf("%-11s %9.2f %9.2f %9.2f %9.2f %9.2f  (%d)%n", nombre, histograma.getMedia() / 1e6,
+                histograma.percentil(0.50) / 1e6, histograma.percentil(0.90) / 1e6, histograma.percentil(0.99) / 1e6,
+                histograma.getMaximo() / 1e6, histograma.getCuenta());
+    }
+}
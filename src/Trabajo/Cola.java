@@ -0,0 +1,35 @@
+package Trabajo;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// Contenedor de lotes de un ítem: se agrega al final y se consume por el frente
+public interface Cola<T> extends Iterable<T> {
+    void addLast(T element);
+
+    T removeFirst();
+
+    T getFirst();
+
+    boolean isEmpty();
+
+    int size();
+
+    // Saca los elementos de las posiciones marcadas (contadas en el orden del
+    // iterador, que es el de removeFirst) y los devuelve en ese orden. Por
+    // omisión vacía la cola y vuelve a agregar el resto; las colas que pueden
+    // quitar del medio lo redefinen.
+    default List<T> retirar(BitSet posiciones) {
+        List<T> retirados = new ArrayList<>(posiciones.cardinality());
+        List<T> restantes = new ArrayList<>(size());
+        for (int posicion = 0; !isEmpty(); posicion++) {
+            T elemento = removeFirst();
+            (posiciones.get(posicion) ? retirados : restantes).add(elemento);
+        }
+        for (T elemento : restantes) {
+            addLast(elemento);
+        }
+        return retirados;
+    }
+}
@@ -0,0 +1,230 @@
+package Trabajo;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+// Cola FIFO de lotes guardada en un AlmacenMapeado: una cadena de registros
+// desde el primero hasta el último, más un registro de cola con los extremos,
+// el tamaño y los acumulados (cantidad, costo total y suma de costos
+// unitarios), para que un ítem reabierto no tenga que recorrer sus lotes.
+// Los Lote se crean al consultarlos y llevan su número de registro (ver
+// Lote.posicionAlmacen); solo el frente se conserva entre llamadas, así
+// getFirst y removeFirst devuelven el mismo objeto. Como las demás colas, se
+// usa con el lock del ítem tomado.
+public class ColaMapeada implements Cola<Lote> {
+    private final AlmacenMapeado almacen;
+    private final int registro; // Registro de la cola en el almacén
+    private ItemConLotes propietario;
+    private int primero;
+    private int ultimo;
+    private int tamano;
+    private long cantidadTotal;      // Punto fijo, ver Fijo
+    private long costoTotal;         // Punto fijo, ver Fijo
+    private long costoUnitarioTotal; // Punto fijo, ver Fijo
+    private Lote frente;
+
+    ColaMapeada(AlmacenMapeado almacen, int registro) {
+        this.almacen = almacen;
+        this.registro = registro;
+        this.primero = almacen.entero(registro, AlmacenMapeado.COLA_PRIMERO);
+        this.ultimo = almacen.entero(registro, AlmacenMapeado.COLA_ULTIMO);
+        this.tamano = almacen.entero(registro, AlmacenMapeado.COLA_TAMANO);
+        this.cantidadTotal = almacen.largo(registro, AlmacenMapeado.COLA_CANTIDAD);
+        this.costoTotal = almacen.largo(registro, AlmacenMapeado.COLA_COSTO);
+        this.costoUnitarioTotal = almacen.largo(registro, AlmacenMapeado.COLA_COSTO_UNITARIO);
+    }
+
+    // Lo llama ItemConLotes al recibir la cola; una cola no se comparte entre ítems
+    synchronized void setPropietario(ItemConLotes item) {
+        if (propietario != null && propietario != item) {
+            throw new IllegalStateException("La cola de lotes ya pertenece a '" + propietario.getNombre() + "'.");
+        }
+        propietario = item;
+    }
+
+    @Override
+    public void addLast(Lote lote) {
+        int nuevo = almacen.reservar();
+        try {
+            almacen.escribirLote(nuevo, lote);
+        } catch (RuntimeException e) {
+            almacen.liberar(nuevo);
+            throw e;
+        }
+        almacen.entero(nuevo, AlmacenMapeado.SIGUIENTE, AlmacenMapeado.NINGUNO);
+        if (tamano == 0) {
+            primero = nuevo;
+        } else {
+            almacen.entero(ultimo, AlmacenMapeado.SIGUIENTE, nuevo);
+        }
+        ultimo = nuevo;
+        tamano++;
+        cantidadTotal = Fijo.sumar(cantidadTotal, lote.getCantidadFija());
+        costoTotal = Fijo.sumar(costoTotal, lote.getCostoTotalFijo());
+        costoUnitarioTotal = Fijo.sumar(costoUnitarioTotal, lote.getCostoUnitarioFijo());
+        lote.setPosicionAlmacen(nuevo);
+        guardar();
+    }
+
+    @Override
+    public Lote removeFirst() {
+        Lote lote = getFirst();
+        int retirado = primero;
+        primero = almacen.entero(retirado, AlmacenMapeado.SIGUIENTE);
+        tamano--;
+        if (tamano == 0) {
+            primero = AlmacenMapeado.NINGUNO;
+            ultimo = AlmacenMapeado.NINGUNO;
+        }
+        cantidadTotal -= lote.getCantidadFija();
+        costoTotal -= lote.getCostoTotalFijo();
+        costoUnitarioTotal -= lote.getCostoUnitarioFijo();
+        guardar();
+        almacen.liberar(retirado);
+        lote.setPosicionAlmacen(-1);
+        frente = null;
+        return lote;
+    }
+
+    // Desengancha de la cadena solo los registros retirados y los libera; los
+    // demás no se tocan
+    @Override
+    public List<Lote> retirar(BitSet posiciones) {
+        List<Lote> retirados = new ArrayList<>(posiciones.cardinality());
+        int anterior = AlmacenMapeado.NINGUNO;
+        int actual = primero;
+        for (int posicion = 0, total = tamano; posicion < total; posicion++) {
+            int siguiente = almacen.entero(actual, AlmacenMapeado.SIGUIENTE);
+            if (!posiciones.get(posicion)) {
+                anterior = actual;
+                actual = siguiente;
+                continue;
+            }
+            Lote lote = actual == primero ? getFirst() : leer(actual);
+            if (anterior == AlmacenMapeado.NINGUNO) {
+                primero = siguiente;
+                frente = null;
+            } else {
+                almacen.entero(anterior, AlmacenMapeado.SIGUIENTE, siguiente);
+            }
+            if (actual == ultimo) {
+                ultimo = anterior;
+            }
+            tamano--;
+            cantidadTotal -= lote.getCantidadFija();
+            costoTotal -= lote.getCostoTotalFijo();
+            costoUnitarioTotal -= lote.getCostoUnitarioFijo();
+            almacen.liberar(actual);
+            lote.setPosicionAlmacen(-1);
+            retirados.add(lote);
+            actual = siguiente;
+        }
+        if (tamano == 0) {
+            primero = AlmacenMapeado.NINGUNO;
+            ultimo = AlmacenMapeado.NINGUNO;
+        }
+        guardar();
+        return retirados;
+    }
+
+    @Override
+    public Lote getFirst() {
+        if (tamano == 0) {
+            throw new NoSuchElementException("La cola está vacía.");
+        }
+        if (frente == null) {
+            frente = leer(primero);
+        }
+        return frente;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tamano == 0;
+    }
+
+    @Override
+    public int size() {
+        return tamano;
+    }
+
+    // Resta 'cantidad' del registro del lote y devuelve cuánto bajó su costo
+    // total; -1 si el lote ya no está en la cola (una copia vieja de un lote
+    // consumido). Lo llama ItemConLotes.reducirLote.
+    long reducir(Lote lote, long cantidad) {
+        int posicion = lote.getPosicionAlmacen();
+        long actual = almacen.cantidadLote(posicion, lote);
+        if (actual < 0) {
+            return -1;
+        }
+        if (cantidad > actual) {
+            throw new IllegalArgumentException("No se puede reducir más de lo disponible en el lote.");
+        }
+        long costoUnitario = almacen.costoUnitarioLote(posicion);
+        long costoReducido = Fijo.multiplicar(costoUnitario, actual) - Fijo.multiplicar(costoUnitario, actual - cantidad);
+        almacen.cantidadLote(posicion, actual - cantidad);
+        cantidadTotal -= cantidad;
+        costoTotal -= costoReducido;
+        guardar();
+        if (frente != null && frente != lote && frente.getPosicionAlmacen() == posicion) {
+            frente = null; // Se redujo por otra copia: el frente guardado quedó viejo
+        }
+        return costoReducido;
+    }
+
+    long getCantidadTotal() {
+        return cantidadTotal;
+    }
+
+    long getCostoTotal() {
+        return costoTotal;
+    }
+
+    long getCostoUnitarioTotal() {
+        return costoUnitarioTotal;
+    }
+
+    private Lote leer(int posicion) {
+        Lote lote = almacen.leerLote(posicion);
+        lote.setPosicionAlmacen(posicion);
+        lote.setPropietario(propietario);
+        return lote;
+    }
+
+    private void guardar() {
+        almacen.entero(registro, AlmacenMapeado.COLA_PRIMERO, primero);
+        almacen.entero(registro, AlmacenMapeado.COLA_ULTIMO, ultimo);
+        almacen.entero(registro, AlmacenMapeado.COLA_TAMANO, tamano);
+        almacen.largo(registro, AlmacenMapeado.COLA_CANTIDAD, cantidadTotal);
+        almacen.largo(registro, AlmacenMapeado.COLA_COSTO, costoTotal);
+        almacen.largo(registro, AlmacenMapeado.COLA_COSTO_UNITARIO, costoUnitarioTotal);
+    }
+
+    // Recorre la cadena desde el frente; cada lote se lee del archivo al pedirlo
+    @Override
+    public Iterator<Lote> iterator() {
+        return new Iterator<Lote>() {
+            private int siguiente = primero;
+            private int restantes = tamano;
+
+            @Override
+            public boolean hasNext() {
+                return restantes > 0;
+            }
+
+            @Override
+            public Lote next() {
+                if (restantes == 0) {
+                    throw new NoSuchElementException();
+                }
+                int posicion = siguiente;
+                siguiente = almacen.entero(posicion, AlmacenMapeado.SIGUIENTE);
+                restantes--;
+                return posicion == primero ? getFirst() : leer(posicion);
+            }
+        };
+    }
+}
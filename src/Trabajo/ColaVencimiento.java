@@ -0,0 +1,143 @@
+package Trabajo;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Cola de lotes por vencimiento (FEFO): el frente es siempre el lote que vence
+// primero; a igual fecha, el que entró antes. Los lotes sin fecha de
+// vencimiento (envases, Lote.SIN_VENCIMIENTO) van detrás de todos los que
+// tienen fecha.
+// Montículo binario sobre arreglos paralelos: agregar y retirar el frente
+// cuestan O(log n) y consultar el frente O(1).
+public class ColaVencimiento implements Cola<Lote> {
+    private Lote[] lotes = new Lote[8];
+    private int[] vencimientos = new int[8]; // Día de vencimiento, ver Lote.getDiaVencimiento
+    private long[] secuencias = new long[8]; // Orden de llegada, desempata fechas iguales
+    private int tamano = 0;
+    private long siguienteSecuencia = 0;
+
+    public ColaVencimiento() {
+    }
+
+    private ColaVencimiento(ColaVencimiento original) {
+        this.lotes = Arrays.copyOf(original.lotes, original.tamano);
+        this.vencimientos = Arrays.copyOf(original.vencimientos, original.tamano);
+        this.secuencias = Arrays.copyOf(original.secuencias, original.tamano);
+        this.tamano = original.tamano;
+        this.siguienteSecuencia = original.siguienteSecuencia;
+    }
+
+    @Override
+    public void addLast(Lote lote) {
+        if (tamano == lotes.length) {
+            int capacidad = tamano * 2;
+            lotes = Arrays.copyOf(lotes, capacidad);
+            vencimientos = Arrays.copyOf(vencimientos, capacidad);
+            secuencias = Arrays.copyOf(secuencias, capacidad);
+        }
+        subir(tamano++, lote, lote.getDiaVencimiento(), siguienteSecuencia++);
+    }
+
+    @Override
+    public Lote removeFirst() {
+        if (tamano == 0) {
+            throw new NoSuchElementException("La cola está vacía.");
+        }
+        Lote primero = lotes[0];
+        int ultimo = --tamano;
+        Lote lote = lotes[ultimo];
+        int vencimiento = vencimientos[ultimo];
+        long secuencia = secuencias[ultimo];
+        lotes[ultimo] = null;
+        if (ultimo > 0) {
+            bajar(0, lote, vencimiento, secuencia);
+        }
+        return primero;
+    }
+
+    @Override
+    public Lote getFirst() {
+        if (tamano == 0) {
+            throw new NoSuchElementException("La cola está vacía.");
+        }
+        return lotes[0];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tamano == 0;
+    }
+
+    @Override
+    public int size() {
+        return tamano;
+    }
+
+    // Recorre los lotes en el orden en que se consumirían, retirándolos de una
+    // copia del montículo (sin ordenar todo de entrada)
+    @Override
+    public Iterator<Lote> iterator() {
+        ColaVencimiento copia = new ColaVencimiento(this);
+        return new Iterator<Lote>() {
+            @Override
+            public boolean hasNext() {
+                return !copia.isEmpty();
+            }
+
+            @Override
+            public Lote next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return copia.removeFirst();
+            }
+        };
+    }
+
+    private boolean antes(int a, int b) {
+        return vencimientos[a] != vencimientos[b] ? vencimientos[a] < vencimientos[b] : secuencias[a] < secuencias[b];
+    }
+
+    private void subir(int posicion, Lote lote, int vencimiento, long secuencia) {
+        while (posicion > 0) {
+            int padre = (posicion - 1) >>> 1;
+            if (vencimientos[padre] < vencimiento
+                    || (vencimientos[padre] == vencimiento && secuencias[padre] < secuencia)) {
+                break;
+            }
+            mover(padre, posicion);
+            posicion = padre;
+        }
+        colocar(posicion, lote, vencimiento, secuencia);
+    }
+
+    private void bajar(int posicion, Lote lote, int vencimiento, long secuencia) {
+        int mitad = tamano >>> 1;
+        while (posicion < mitad) {
+            int hijo = 2 * posicion + 1;
+            if (hijo + 1 < tamano && antes(hijo + 1, hijo)) {
+                hijo++;
+            }
+            if (vencimiento < vencimientos[hijo]
+                    || (vencimiento == vencimientos[hijo] && secuencia < secuencias[hijo])) {
+                break;
+            }
+            mover(hijo, posicion);
+            posicion = hijo;
+        }
+        colocar(posicion, lote, vencimiento, secuencia);
+    }
+
+    private void mover(int desde, int hasta) {
+        lotes[hasta] = lotes[desde];
+        vencimientos[hasta] = vencimientos[desde];
+        secuencias[hasta] = secuencias[desde];
+    }
+
+    private void colocar(int posicion, Lote lote, int vencimiento, long secuencia) {
+        lotes[posicion] = lote;
+        vencimientos[posicion] = vencimiento;
+        secuencias[posicion] = secuencia;
+    }
+}
@@ -1,62 +1,263 @@
 package Trabajo;
 
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
-import java.text.SimpleDateFormat;
-import java.util.UUID; 
+import java.util.List;
+import java.util.function.Consumer;
 
 public class DataLoader {
+    private final List<ErrorCarga> errores = new ArrayList<>();
+
     public void cargarDatos(String filePath, Inventario inventario) {
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            Ingrediente ingredienteActual = null;
-            Envase envaseActual = null;
+        errores.clear();
+        EstadoCarga estado = new EstadoCarga();
+        try (InputStream in = new FileInputStream(filePath)) {
+            byte[] bloque = new byte[64 * 1024];
+            byte[] linea = new byte[256];
+            int largo = 0;
+            int leidos;
+            while ((leidos = in.read(bloque)) != -1) {
+                for (int i = 0; i < leidos; i++) {
+                    byte b = bloque[i];
+                    if (b == '\n') {
+                        estado.procesarLinea(linea, largo);
+                        largo = 0;
+                        continue;
+                    }
+                    if (largo == linea.length) {
+                        linea = Arrays.copyOf(linea, largo * 2);
+                    }
+                    linea[largo++] = b;
+                }
+            }
+            if (largo > 0) {
+                estado.procesarLinea(linea, largo);
+            }
+        } catch (IOException e) {
+            System.out.println("Error al cargar datos: " + e.getMessage());
+        }
+        estado.agregarA(inventario);
+        errores.addAll(estado.getErrores());
+        Metricas.contar(Metricas.LINEAS_LEIDAS, estado.getLineas());
+        Metricas.contar(Metricas.LINEAS_RECHAZADAS, errores.size());
+    }
 
+    // Carga en paralelo para archivos grandes (ver CargadorParalelo); devuelve
+    // el número de líneas leídas, o -1 si no se pudo leer el archivo
+    public long cargarDatosParalelo(String filePath, Inventario inventario) {
+        errores.clear();
+        try {
+            CargadorParalelo cargador = new CargadorParalelo();
+            long lineas = cargador.cargar(filePath, inventario);
+            errores.addAll(cargador.getErrores());
+            Metricas.contar(Metricas.LINEAS_RECHAZADAS, errores.size());
+            return lineas;
+        } catch (IOException e) {
+            System.out.println("Error al cargar datos: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // Carga productos y sus recetas. Formato: una línea Producto|nombre|categoría
+    // seguida de líneas Ingrediente|nombre|cantidad y Envase|nombre|cantidad por
+    // unidad producida. Los ingredientes y envases ya deben estar en el inventario.
+    public void cargarProductos(String filePath, Inventario inventario) {
+        errores.clear();
+        try (BufferedReader br = Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8)) {
+            String line;
+            long numeroLinea = 0;
+            Producto productoActual = null;
             while ((line = br.readLine()) != null) {
+                numeroLinea++;
+                if (line.isEmpty()) {
+                    continue;
+                }
                 String[] parts = line.split("\\|");
-                if (parts[0].equalsIgnoreCase("Ingrediente")) {
-                    String nombre = parts[1];
-                    String categoria = parts[2];
-                    ingredienteActual = new Ingrediente(nombre, categoria);
-                    inventario.agregarIngrediente(ingredienteActual);
-                    envaseActual = null; // Reset envaseActual
-                } else if (parts[0].equalsIgnoreCase("Envase")) {
-                    String nombre = parts[1];
-                    String tipo = parts[2];
-                    envaseActual = new Envase(nombre, tipo);
-                    inventario.agregarEnvase(envaseActual);
-                    ingredienteActual = null; // Reset ingredienteActual
-                } else if (parts[0].equalsIgnoreCase("Lote")) {
-                    if (ingredienteActual != null) {
-                        BigDecimal cantidad = new BigDecimal(parts[1]);
-                        BigDecimal precioTotal = new BigDecimal(parts[2]);
-                        Date fechaVencimiento = parseFecha(parts[3]);
-                        String codigoLote = UUID.randomUUID().toString();
-                        Lote lote = new Lote(codigoLote, cantidad, fechaVencimiento, precioTotal);
-                        ingredienteActual.agregarLote(lote);
-                    } else if (envaseActual != null) {
-                        BigDecimal cantidad = new BigDecimal(parts[1]);
-                        BigDecimal precioTotal = new BigDecimal(parts[2]);
-                        String codigoLote = UUID.randomUUID().toString();
-                        Lote lote = new Lote(codigoLote, cantidad, precioTotal);
-                        envaseActual.agregarLote(lote);
+                if (parts[0].equals("Producto")) {
+                    productoActual = null;
+                    if (parts.length < 3) {
+                        errores.add(new ErrorCarga(numeroLinea, "cabecera de producto incompleta, se ignora su receta"));
+                        continue;
+                    }
+                    if (inventario.buscarProducto(parts[1]) != null) {
+                        errores.add(new ErrorCarga(numeroLinea, "el producto '" + parts[1] + "' ya existe, se ignora"));
+                        continue;
+                    }
+                    productoActual = new Producto(parts[1], parts[2], new Receta());
+                    inventario.agregarProducto(productoActual);
+                } else if (parts[0].equals("Ingrediente") || parts[0].equals("Envase")) {
+                    if (productoActual == null) {
+                        errores.add(new ErrorCarga(numeroLinea, "componente de receta sin producto"));
+                        continue;
                     }
+                    if (parts.length < 3) {
+                        errores.add(new ErrorCarga(numeroLinea, "componente de receta incompleto"));
+                        continue;
+                    }
+                    try {
+                        BigDecimal cantidad = new BigDecimal(parts[2]);
+                        if (parts[0].equals("Ingrediente")) {
+                            Ingrediente ingrediente = inventario.buscarIngrediente(parts[1]);
+                            if (ingrediente == null) {
+                                errores.add(new ErrorCarga(numeroLinea, "ingrediente '" + parts[1] + "' no registrado"));
+                                continue;
+                            }
+                            productoActual.getReceta().agregarIngrediente(ingrediente, cantidad);
+                        } else {
+                            Envase envase = inventario.buscarEnvase(parts[1]);
+                            if (envase == null) {
+                                errores.add(new ErrorCarga(numeroLinea, "envase '" + parts[1] + "' no registrado"));
+                                continue;
+                            }
+                            productoActual.getReceta().agregarEnvase(envase, cantidad);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        errores.add(new ErrorCarga(numeroLinea, "cantidad inválida '" + parts[2] + "'"));
+                    }
+                } else {
+                    errores.add(new ErrorCarga(numeroLinea, "tipo de registro desconocido"));
                 }
             }
+            Metricas.contar(Metricas.LINEAS_LEIDAS, numeroLinea);
+            Metricas.contar(Metricas.LINEAS_RECHAZADAS, errores.size());
         } catch (IOException e) {
-            System.out.println("Error al cargar datos: " + e.getMessage());
+            System.out.println("Error al cargar productos: " + e.getMessage());
         }
     }
 
-    private Date parseFecha(String fechaStr) {
-        try {
-            return new SimpleDateFormat("dd/MM/yyyy").parse(fechaStr);
-        } catch (Exception e) {
-            System.out.println("Fecha inválida en los datos: " + fechaStr + ". Se usará la fecha actual.");
-            return new Date(); 
+    // Errores de la última carga, con su número de línea
+    public List<ErrorCarga> getErrores() {
+        return errores;
+    }
+
+    // Estado de lectura de un tramo del archivo: los lotes se asignan al último
+    // Ingrediente o Envase leído. Los ítems se acumulan en orden de aparición.
+    static class EstadoCarga {
+        private final AnalizadorLinea analizador = new AnalizadorLinea();
+        private final List<Ingrediente> ingredientes = new ArrayList<>();
+        private final List<Envase> envases = new ArrayList<>();
+        private final List<ErrorCarga> errores = new ArrayList<>();
+        private Ingrediente ingredienteActual = null;
+        private Envase envaseActual = null;
+        private long lineas = 0;
+
+        // Recibe la línea sin el salto final
+        void procesarLinea(byte[] linea, int largo) {
+            lineas++;
+            if (largo > 0 && linea[largo - 1] == '\r') {
+                largo--;
+            }
+            switch (analizador.preparar(linea, largo)) {
+                case AnalizadorLinea.INGREDIENTE:
+                    ingredienteActual = null;
+                    envaseActual = null;
+                    if (analizador.getNumeroCampos() < 3) {
+                        error("cabecera de ingrediente incompleta, se ignoran sus lotes");
+                        return;
+                    }
+                    ingredienteActual = new Ingrediente(analizador.texto(1), analizador.texto(2));
+                    ingredientes.add(ingredienteActual);
+                    break;
+                case AnalizadorLinea.ENVASE:
+                    ingredienteActual = null;
+                    envaseActual = null;
+                    if (analizador.getNumeroCampos() < 3) {
+                        error("cabecera de envase incompleta, se ignoran sus lotes");
+                        return;
+                    }
+                    envaseActual = new Envase(analizador.texto(1), analizador.texto(2));
+                    envases.add(envaseActual);
+                    break;
+                case AnalizadorLinea.LOTE:
+                    procesarLote();
+                    break;
+                case AnalizadorLinea.VACIA:
+                    break;
+                default:
+                    error("tipo de registro desconocido");
+            }
+        }
+
+        private void procesarLote() {
+            if (ingredienteActual == null && envaseActual == null) {
+                error("lote sin ingrediente ni envase");
+                return;
+            }
+            Lote lote = analizarLote(analizador, ingredienteActual != null, GeneradorCodigos.siguiente(), null,
+                    this::error);
+            if (lote == null) {
+                return;
+            }
+            if (ingredienteActual != null) {
+                ingredienteActual.agregarLote(lote);
+            } else {
+                envaseActual.agregarLote(lote);
+            }
+        }
+
+        // Lote de la línea ya preparada en 'analizador', o null si no es válido (con
+        // el error anotado). 'codigo' es el número de GeneradorCodigos que recibe
+        // el lote. Sin 'fechaIngreso' el lote toma la fecha actual.
+        static Lote analizarLote(AnalizadorLinea analizador, boolean conVencimiento, long codigo,
+                                 Date fechaIngreso, Consumer<String> error) {
+            int camposRequeridos = conVencimiento ? 4 : 3;
+            if (analizador.getNumeroCampos() < camposRequeridos) {
+                error.accept("lote incompleto");
+                return null;
+            }
+            long cantidad = analizador.decimal(1);
+            long precioTotal = analizador.decimal(2);
+            if (cantidad == AnalizadorLinea.INVALIDO || precioTotal == AnalizadorLinea.INVALIDO) {
+                error.accept("cantidad o precio inválido");
+                return null;
+            }
+            if (cantidad <= 0) {
+                error.accept("la cantidad debe ser mayor que cero");
+                return null;
+            }
+            Date fechaVencimiento = null;
+            if (conVencimiento) {
+                long fecha = analizador.fecha(3);
+                if (fecha == AnalizadorLinea.INVALIDO) {
+                    error.accept("fecha inválida '" + analizador.texto(3) + "', se usará la fecha actual");
+                    fechaVencimiento = new Date();
+                } else {
+                    fechaVencimiento = new Date(fecha);
+                }
+            }
+            long ingreso = fechaIngreso == null ? System.currentTimeMillis() : fechaIngreso.getTime();
+            return Lote.conCodigo(codigo, cantidad, ingreso, fechaVencimiento, precioTotal);
+        }
+
+        private void error(String mensaje) {
+            errores.add(new ErrorCarga(lineas, mensaje));
+        }
+
+        void agregarA(Inventario inventario) {
+            for (Ingrediente ingrediente : ingredientes) {
+                inventario.agregarIngrediente(ingrediente);
+            }
+            for (Envase envase : envases) {
+                inventario.agregarEnvase(envase);
+            }
+        }
+
+        long getLineas() {
+            return lineas;
+        }
+
+        // Números de línea relativos al inicio del tramo
+        List<ErrorCarga> getErrores() {
+            return errores;
         }
     }
 }
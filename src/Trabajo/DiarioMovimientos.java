@@ -0,0 +1,683 @@
+package Trabajo;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32C;
+
+// Diario de solo-anexar (write-ahead) de los movimientos del inventario: altas
+// de ítems, ingreso de lotes, órdenes de producción y retiro de vencidos.
+// Cada movimiento se codifica como un registro binario; un hilo escritor junta
+// los registros pendientes y los escribe en bloque con un solo force() por
+// bloque (group commit), así una orden de producción no espera su propio fsync.
+//
+// Registro en disco: int largo, int crc32c, carga útil. La carga empieza con
+// byte tipo, long secuencia, long fecha. Al reproducir, un registro incompleto
+// o corrupto al final del archivo (escritura cortada) se descarta.
+//
+// Una instantánea guarda la última secuencia que incluye; para que esa
+// secuencia corresponda al estado guardado, las operaciones que pueden correr
+// mientras se guarda (peticiones HTTP, el barrido) registran y aplican entre
+// iniciarOperacion y terminarOperacion, y la instantánea se guarda con
+// conOperacionesDetenidas.
+public class DiarioMovimientos implements AutoCloseable {
+    public enum PoliticaSincronizacion {
+        CADA_BLOQUE, // force() por bloque; registrar() espera a que el bloque sea durable
+        PERIODICA,   // force() a más tardar 'latencia' después de escribir; registrar() no espera.
+                     // Una caída puede perder lo registrado en esa última ventana
+        NINGUNA      // Sin force(); queda a criterio del sistema operativo
+    }
+
+    private static final byte ALTA_INGREDIENTE = 1;
+    private static final byte ALTA_ENVASE = 2;
+    private static final byte ALTA_PRODUCTO = 3;
+    private static final byte INGRESO_LOTE = 4;
+    private static final byte ORDEN_PRODUCCION = 7; // Consumos de la receta + lote producido, todo junto
+    private static final byte RETIRO_VENCIDOS = 9; // Lotes vencidos retirados de un ítem, por código (ver BarridoVencimientos)
+
+    private static final byte ITEM_INGREDIENTE = 'I';
+    private static final byte ITEM_ENVASE = 'E';
+    private static final byte ITEM_PRODUCTO = 'P';
+
+    private static final long SIN_FECHA = Long.MIN_VALUE;
+    private static final int CABECERA = 2 * Integer.BYTES;
+
+    private final FileChannel canal;
+    private final PoliticaSincronizacion politica;
+    private final long latenciaNanos;
+    private final Thread escritor;
+
+    private final ReentrantReadWriteLock barrera = new ReentrantReadWriteLock(); // Ver conOperacionesDetenidas
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayPendientes = lock.newCondition();
+    private final Condition bloqueEscrito = lock.newCondition();
+    private List<ByteBuffer> pendientes = new ArrayList<>();
+    private long ultimaSecuencia;     // Última secuencia asignada
+    private long secuenciaEscrita;    // Última secuencia escrita (y sincronizada según la política)
+    private long syncPedidas = 0;      // Pedidos de sincronizar() recibidos
+    private long syncHechas = 0;       // Pedidos ya atendidos con force()
+    private boolean escribiendo = false;
+    private boolean cerrado = false;
+    private IOException falla = null;
+
+    // Abre (o crea) el diario. 'secuenciaInicial' evita reutilizar secuencias
+    // ya incluidas en una instantánea cuando el diario se vació tras guardarla.
+    public DiarioMovimientos(Path archivo, PoliticaSincronizacion politica, long latencia, TimeUnit unidad,
+                             long secuenciaInicial) throws IOException {
+        this.canal = FileChannel.open(archivo, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.politica = politica;
+        this.latenciaNanos = unidad.toNanos(latencia);
+        long fin = buscarFinValido();
+        canal.truncate(fin);
+        canal.position(fin);
+        this.ultimaSecuencia = Math.max(secuenciaInicial, ultimaSecuenciaEnArchivo(fin));
+        this.secuenciaEscrita = ultimaSecuencia;
+        this.escritor = new Thread(this::bucleEscritor, "diario-movimientos");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    // --- Registro de movimientos ---
+
+    public void registrarIngrediente(Ingrediente ingrediente) {
+        Codificador c = new Codificador(ALTA_INGREDIENTE);
+        c.texto(ingrediente.getNombre());
+        c.texto(ingrediente.getCategoria());
+        registrar(c);
+    }
+
+    public void registrarEnvase(Envase envase) {
+        Codificador c = new Codificador(ALTA_ENVASE);
+        c.texto(envase.getNombre());
+        c.texto(envase.getTipo());
+        registrar(c);
+    }
+
+    public void registrarProducto(Producto producto) {
+        Codificador c = new Codificador(ALTA_PRODUCTO);
+        c.texto(producto.getNombre());
+        c.texto(producto.getCategoria());
+        Receta receta = producto.getReceta();
+        c.entero(receta.getIngredientes().size());
+        for (Map.Entry<Ingrediente, Long> entry : receta.getIngredientes().entrySet()) {
+            c.texto(entry.getKey().getNombre());
+            c.largo(entry.getValue());
+        }
+        c.entero(receta.getEnvases().size());
+        for (Map.Entry<Envase, Long> entry : receta.getEnvases().entrySet()) {
+            c.texto(entry.getKey().getNombre());
+            c.largo(entry.getValue());
+        }
+        registrar(c);
+    }
+
+    // Ingreso de 'lote' en 'item'. Como registrarRetiroVencidos, solo encola
+    // el registro y devuelve su secuencia: ItemConLotes.agregarLote lo llama
+    // con el lock del ítem tomado y espera después de soltarlo.
+    public long registrarIngresoLote(ItemConLotes item, Lote lote) {
+        Codificador c = new Codificador(INGRESO_LOTE);
+        c.item(item);
+        c.lote(lote);
+        return encolar(c);
+    }
+
+    // Una orden de producción completa en un solo registro, para que al
+    // reproducir se aplique entera o no se aplique. Solo encola: se llama con
+    // los locks de los ítems tomados (ver ItemConLotes.aplicarOrden)
+    public long registrarOrdenProduccion(Producto producto, Lote lote, ItemConLotes[] items, long[] cantidades) {
+        Codificador c = new Codificador(ORDEN_PRODUCCION);
+        c.texto(producto.getNombre());
+        c.lote(lote);
+        c.entero(items.length);
+        for (int i = 0; i < items.length; i++) {
+            c.item(items[i]);
+            c.largo(cantidades[i]);
+        }
+        return encolar(c);
+    }
+
+    // Retiro de 'lotes' (vencidos) de 'item'; al reproducir se retiran esos
+    // mismos lotes por su código, sin volver a calcular cuáles vencieron (el
+    // cálculo depende de lo reservado, que no está en el diario). Solo encola el
+    // registro y devuelve su secuencia: ItemConLotes lo llama con su lock tomado
+    // y espera con esperarRegistro después de soltarlo.
+    public long registrarRetiroVencidos(ItemConLotes item, List<Lote> lotes) {
+        Codificador c = new Codificador(RETIRO_VENCIDOS);
+        c.item(item);
+        c.entero(lotes.size());
+        for (Lote lote : lotes) {
+            c.texto(lote.getCodigoLote());
+        }
+        return encolar(c);
+    }
+
+    // Encola el registro; con CADA_BLOQUE espera a que su bloque sea durable
+    private void registrar(Codificador codificador) {
+        esperarRegistro(encolar(codificador));
+    }
+
+    private long encolar(Codificador codificador) {
+        lock.lock();
+        try {
+            verificarEstado();
+            long secuencia = ++ultimaSecuencia;
+            pendientes.add(codificador.cerrar(secuencia));
+            hayPendientes.signal();
+            return secuencia;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Con CADA_BLOQUE espera a que el registro 'secuencia' sea durable; con las
+    // otras políticas vuelve enseguida
+    public void esperarRegistro(long secuencia) {
+        if (politica != PoliticaSincronizacion.CADA_BLOQUE) {
+            return;
+        }
+        lock.lock();
+        try {
+            esperarHasta(secuencia);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Registro y aplicación de un movimiento, como una sola operación frente a
+    // conOperacionesDetenidas. Se llama antes de tomar el lock de cualquier ítem.
+    public void iniciarOperacion() {
+        barrera.readLock().lock();
+    }
+
+    public void terminarOperacion() {
+        barrera.readLock().unlock();
+    }
+
+    public interface GuardadoInstantanea {
+        void guardar(long secuencia) throws IOException;
+    }
+
+    // Espera a que terminen las operaciones en curso, no deja empezar otras y
+    // llama a 'guardado' con la última secuencia registrada, que ya está
+    // aplicada al inventario. Devuelve esa secuencia.
+    public long conOperacionesDetenidas(GuardadoInstantanea guardado) throws IOException {
+        barrera.writeLock().lock();
+        try {
+            long secuencia = getUltimaSecuencia();
+            guardado.guardar(secuencia);
+            return secuencia;
+        } finally {
+            barrera.writeLock().unlock();
+        }
+    }
+
+    // Escribe y sincroniza todo lo pendiente, sea cual sea la política
+    public void sincronizar() {
+        lock.lock();
+        try {
+            verificarEstado();
+            long pedido = ++syncPedidas;
+            hayPendientes.signal();
+            while (syncHechas < pedido && falla == null) {
+                bloqueEscrito.awaitUninterruptibly();
+            }
+            verificarEstado();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getUltimaSecuencia() {
+        lock.lock();
+        try {
+            return ultimaSecuencia;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Descarta el contenido tras guardar una instantánea que incluye hasta
+    // 'hastaSecuencia'. Si ya hay registros posteriores el diario se conserva
+    // (la reproducción salta los registros que la instantánea ya contiene).
+    public void vaciar(long hastaSecuencia) throws IOException {
+        sincronizar();
+        lock.lock();
+        try {
+            while ((escribiendo || !pendientes.isEmpty()) && falla == null) {
+                hayPendientes.signal();
+                bloqueEscrito.awaitUninterruptibly();
+            }
+            verificarEstado();
+            if (ultimaSecuencia > hastaSecuencia) {
+                return;
+            }
+            canal.truncate(0);
+            canal.position(0);
+            canal.force(true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (cerrado) {
+                return;
+            }
+            cerrado = true;
+            hayPendientes.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        canal.close();
+        if (falla != null) {
+            throw falla;
+        }
+    }
+
+    private void esperarHasta(long secuencia) {
+        while (secuenciaEscrita < secuencia && falla == null) {
+            bloqueEscrito.awaitUninterruptibly();
+        }
+        if (falla != null) {
+            throw new UncheckedIOException("Error al escribir el diario de movimientos", falla);
+        }
+    }
+
+    private void verificarEstado() {
+        if (cerrado) {
+            throw new IllegalStateException("El diario de movimientos está cerrado.");
+        }
+        if (falla != null) {
+            throw new UncheckedIOException("Error al escribir el diario de movimientos", falla);
+        }
+    }
+
+    // --- Hilo escritor (group commit) ---
+
+    private void bucleEscritor() {
+        long ultimoForce = System.nanoTime();
+        boolean sinForzar = false; // Hay bloques escritos después del último force()
+        while (true) {
+            List<ByteBuffer> bloque;
+            long hasta;
+            long pedidosAtendidos;
+            boolean forzar;
+            lock.lock();
+            try {
+                while (pendientes.isEmpty() && !cerrado && syncPedidas == syncHechas) {
+                    if (!sinForzar) {
+                        hayPendientes.awaitUninterruptibly();
+                        continue;
+                    }
+                    // PERIODICA con bloques escritos sin force(): no esperan a que
+                    // llegue otro registro más allá de 'latencia'
+                    long espera = latenciaNanos - (System.nanoTime() - ultimoForce);
+                    if (espera <= 0) {
+                        break;
+                    }
+                    try {
+                        hayPendientes.awaitNanos(espera);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                // Ventana de agrupación: se esperan más registros hasta 'latencia'
+                long restante = pendientes.isEmpty() ? 0 : latenciaNanos;
+                while (restante > 0 && !cerrado && syncPedidas == syncHechas) {
+                    try {
+                        restante = hayPendientes.awaitNanos(restante);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                bloque = pendientes;
+                pendientes = new ArrayList<>();
+                hasta = ultimaSecuencia;
+                pedidosAtendidos = syncPedidas;
+                forzar = syncPedidas != syncHechas || cerrado;
+                escribiendo = true;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                escribir(bloque);
+                long ahora = System.nanoTime();
+                if (politica == PoliticaSincronizacion.CADA_BLOQUE
+                        || (politica == PoliticaSincronizacion.PERIODICA && ahora - ultimoForce >= latenciaNanos)
+                        || (forzar && politica != PoliticaSincronizacion.NINGUNA)) {
+                    canal.force(false);
+                    ultimoForce = ahora;
+                    sinForzar = false;
+                } else if (!bloque.isEmpty()) {
+                    sinForzar = politica == PoliticaSincronizacion.PERIODICA;
+                }
+            } catch (IOException e) {
+                error = e;
+            }
+
+            lock.lock();
+            try {
+                escribiendo = false;
+                if (error != null) {
+                    falla = error;
+                } else {
+                    secuenciaEscrita = hasta;
+                    syncHechas = pedidosAtendidos;
+                }
+                bloqueEscrito.signalAll();
+                if ((cerrado && pendientes.isEmpty()) || falla != null) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void escribir(List<ByteBuffer> bloque) throws IOException {
+        if (bloque.isEmpty()) {
+            return;
+        }
+        ByteBuffer[] buffers = bloque.toArray(new ByteBuffer[0]);
+        long total = 0;
+        for (ByteBuffer buffer : buffers) {
+            total += buffer.remaining();
+        }
+        while (total > 0) {
+            total -= canal.write(buffers);
+        }
+    }
+
+    // --- Recuperación ---
+
+    // Aplica al inventario los registros con secuencia mayor a 'desdeSecuencia'
+    // y devuelve cuántos se aplicaron. Los errores de aplicación se informan y
+    // la reproducción continúa con el siguiente registro.
+    public long reproducir(Inventario inventario, List<MovimientoInventario> movimientos, long desdeSecuencia) throws IOException {
+        lock.lock();
+        try {
+            long fin = canal.position();
+            ByteBuffer buffer = leerTodo(fin);
+            long aplicados = 0;
+            while (buffer.remaining() >= CABECERA) {
+                int largo = buffer.getInt();
+                buffer.getInt(); // crc, ya verificado al abrir
+                ByteBuffer carga = buffer.slice();
+                carga.limit(largo);
+                buffer.position(buffer.position() + largo);
+                if (aplicar(carga, inventario, movimientos, desdeSecuencia)) {
+                    aplicados++;
+                }
+            }
+            return aplicados;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean aplicar(ByteBuffer carga, Inventario inventario, List<MovimientoInventario> movimientos, long desdeSecuencia) {
+        byte tipo = carga.get();
+        long secuencia = carga.getLong();
+        Date fecha = new Date(carga.getLong());
+        if (secuencia <= desdeSecuencia) {
+            return false;
+        }
+        try {
+            switch (tipo) {
+                case ALTA_INGREDIENTE: {
+                    String nombre = leerTexto(carga);
+                    String categoria = leerTexto(carga);
+                    if (inventario.buscarIngrediente(nombre) == null) {
+                        inventario.agregarIngrediente(new Ingrediente(nombre, categoria));
+                    }
+                    return true;
+                }
+                case ALTA_ENVASE: {
+                    String nombre = leerTexto(carga);
+                    String tipoEnvase = leerTexto(carga);
+                    if (inventario.buscarEnvase(nombre) == null) {
+                        inventario.agregarEnvase(new Envase(nombre, tipoEnvase));
+                    }
+                    return true;
+                }
+                case ALTA_PRODUCTO: {
+                    String nombre = leerTexto(carga);
+                    String categoria = leerTexto(carga);
+                    Receta receta = new Receta();
+                    int numeroIngredientes = carga.getInt();
+                    for (int i = 0; i < numeroIngredientes; i++) {
+                        receta.agregarIngrediente(buscar(inventario, ITEM_INGREDIENTE, leerTexto(carga), Ingrediente.class), carga.getLong());
+                    }
+                    int numeroEnvases = carga.getInt();
+                    for (int i = 0; i < numeroEnvases; i++) {
+                        receta.agregarEnvase(buscar(inventario, ITEM_ENVASE, leerTexto(carga), Envase.class), carga.getLong());
+                    }
+                    if (inventario.buscarProducto(nombre) == null) {
+                        inventario.agregarProducto(new Producto(nombre, categoria, receta));
+                    }
+                    return true;
+                }
+                case INGRESO_LOTE: {
+                    byte tipoItem = carga.get();
+                    ItemConLotes item = buscar(inventario, tipoItem, leerTexto(carga), ItemConLotes.class);
+                    item.agregarLote(leerLote(carga));
+                    return true;
+                }
+                case ORDEN_PRODUCCION: {
+                    Producto producto = buscar(inventario, ITEM_PRODUCTO, leerTexto(carga), Producto.class);
+                    Lote lote = leerLote(carga);
+                    ItemConLotes[] items = new ItemConLotes[carga.getInt()];
+                    long[] cantidades = new long[items.length];
+                    for (int i = 0; i < items.length; i++) {
+                        byte tipoItem = carga.get();
+                        items[i] = buscar(inventario, tipoItem, leerTexto(carga), ItemConLotes.class);
+                        cantidades[i] = carga.getLong();
+                    }
+                    // Todo o nada: primero se reserva, igual que en Produccion
+                    ItemConLotes.reservarTodos(items, cantidades);
+                    ItemConLotes.aplicarOrden(items, cantidades, producto, lote, () -> -1);
+                    movimientos.add(new MovimientoInventario("Producción", fecha, producto.getNombre(), lote.getCantidad()));
+                    return true;
+                }
+                case RETIRO_VENCIDOS: {
+                    byte tipoItem = carga.get();
+                    ItemConLotes item = buscar(inventario, tipoItem, leerTexto(carga), ItemConLotes.class);
+                    List<String> codigos = new ArrayList<>();
+                    for (int i = carga.getInt(); i > 0; i--) {
+                        codigos.add(leerTexto(carga));
+                    }
+                    for (Lote lote : item.retirarLotes(codigos)) {
+                        movimientos.add(BarridoVencimientos.movimiento(item, lote, fecha));
+                    }
+                    return true;
+                }
+                default:
+                    System.out.println("Registro desconocido en el diario (secuencia " + secuencia + "), se omite.");
+                    return false;
+            }
+        } catch (StockBajoException | IllegalArgumentException e) {
+            System.out.println("No se pudo reproducir el movimiento " + secuencia + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static <T extends ItemConLotes> T buscar(Inventario inventario, byte tipoItem, String nombre, Class<T> clase) {
+        ItemConLotes item;
+        switch (tipoItem) {
+            case ITEM_INGREDIENTE:
+                item = inventario.buscarIngrediente(nombre);
+                break;
+            case ITEM_ENVASE:
+                item = inventario.buscarEnvase(nombre);
+                break;
+            case ITEM_PRODUCTO:
+                item = inventario.buscarProducto(nombre);
+                break;
+            default:
+                item = null;
+        }
+        if (!clase.isInstance(item)) {
+            throw new IllegalArgumentException("El ítem '" + nombre + "' no existe en el inventario.");
+        }
+        return clase.cast(item);
+    }
+
+    private static Lote leerLote(ByteBuffer carga) {
+        String codigo = leerTexto(carga);
+        long cantidad = carga.getLong();
+        Date fechaIngreso = new Date(carga.getLong());
+        long vencimiento = carga.getLong();
+        long costoUnitario = carga.getLong();
+        return Lote.restaurar(codigo, cantidad, fechaIngreso, vencimiento == SIN_FECHA ? null : new Date(vencimiento), costoUnitario);
+    }
+
+    private static String leerTexto(ByteBuffer carga) {
+        byte[] bytes = new byte[carga.getInt()];
+        carga.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer leerTodo(long fin) throws IOException {
+        if (fin > Integer.MAX_VALUE) {
+            throw new IOException("El diario de movimientos es demasiado grande para reproducirlo: " + fin + " bytes.");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) fin);
+        while (buffer.hasRemaining()) {
+            if (canal.read(buffer, buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // Recorre los registros y devuelve la posición tras el último registro íntegro
+    private long buscarFinValido() throws IOException {
+        ByteBuffer buffer = leerTodo(canal.size());
+        CRC32C crc = new CRC32C();
+        int fin = 0;
+        try {
+            while (buffer.remaining() >= CABECERA) {
+                int largo = buffer.getInt();
+                int esperado = buffer.getInt();
+                if (largo <= 0 || largo > buffer.remaining()) {
+                    break;
+                }
+                crc.reset();
+                ByteBuffer carga = buffer.slice();
+                carga.limit(largo);
+                crc.update(carga);
+                if ((int) crc.getValue() != esperado) {
+                    break;
+                }
+                buffer.position(buffer.position() + largo);
+                fin = buffer.position();
+            }
+        } catch (BufferUnderflowException e) {
+            // Cola cortada: se descarta
+        }
+        return fin;
+    }
+
+    private long ultimaSecuenciaEnArchivo(long fin) throws IOException {
+        ByteBuffer buffer = leerTodo(fin);
+        long ultima = 0;
+        while (buffer.remaining() >= CABECERA) {
+            int largo = buffer.getInt();
+            buffer.getInt();
+            ultima = buffer.getLong(buffer.position() + 1);
+            buffer.position(buffer.position() + largo);
+        }
+        return ultima;
+    }
+
+    // Arma la carga útil de un registro; la secuencia se asigna al encolar
+    private static class Codificador {
+        private ByteBuffer buffer = ByteBuffer.allocate(128);
+
+        Codificador(byte tipo) {
+            buffer.position(CABECERA);
+            buffer.put(tipo);
+            buffer.putLong(0); // Secuencia, se completa en cerrar()
+            buffer.putLong(System.currentTimeMillis());
+        }
+
+        void entero(int valor) {
+            asegurar(Integer.BYTES);
+            buffer.putInt(valor);
+        }
+
+        void largo(long valor) {
+            asegurar(Long.BYTES);
+            buffer.putLong(valor);
+        }
+
+        void texto(String valor) {
+            byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+            entero(bytes.length);
+            asegurar(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void item(ItemConLotes item) {
+            asegurar(1);
+            buffer.put(item instanceof Ingrediente ? ITEM_INGREDIENTE : item instanceof Envase ? ITEM_ENVASE : ITEM_PRODUCTO);
+            texto(item.getNombre());
+        }
+
+        void lote(Lote lote) {
+            texto(lote.getCodigoLote());
+            largo(lote.getCantidadFija());
+            largo(lote.getFechaIngresoMilis());
+            int dia = lote.getDiaVencimiento();
+            largo(dia == Lote.SIN_VENCIMIENTO ? SIN_FECHA : Lote.milisInicioDia(dia));
+            largo(lote.getCostoUnitarioFijo());
+        }
+
+        ByteBuffer cerrar(long secuencia) {
+            int largo = buffer.position() - CABECERA;
+            buffer.putLong(CABECERA + 1, secuencia);
+            CRC32C crc = new CRC32C();
+            ByteBuffer carga = buffer.duplicate();
+            carga.position(CABECERA);
+            carga.limit(CABECERA + largo);
+            crc.update(carga);
+            buffer.putInt(0, largo);
+            buffer.putInt(Integer.BYTES, (int) crc.getValue());
+            buffer.flip();
+            return buffer;
+        }
+
+        private void asegurar(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer mayor = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                mayor.put(buffer);
+                buffer = mayor;
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package Trabajo;
+
+// Error de una línea del archivo de datos
+public class ErrorCarga {
+    private final long linea;
+    private final String mensaje;
+
+    public ErrorCarga(long linea, String mensaje) {
+        this.linea = linea;
+        this.mensaje = mensaje;
+    }
+
+    public long getLinea() {
+        return linea;
+    }
+
+    public String getMensaje() {
+        return mensaje;
+    }
+
+    @Override
+    public String toString() {
+        return "Línea " + linea + ": " + mensaje;
+    }
+}
@@ -0,0 +1,513 @@
+package Trabajo;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+// Reportes del inventario escritos en flujo hacia cualquier Writer u
+// OutputStream: en el texto de siempre (el mismo de toString), en CSV o en
+// JSON. Cada ítem se arma en un StringBuilder que se reutiliza, en una sola
+// pasada por sus lotes (con el lock del ítem, sin copiar la cola), y se pasa
+// de una vez a un BufferedWriter; la salida se vacía solo con flush().
+public class EscritorReportes implements Closeable, Flushable {
+    public enum Formato {
+        TEXTO, CSV, JSON
+    }
+
+    private static final int TAMANO_BUFFER = 1 << 16;
+    private static final long MILIS_DIA = 86_400_000L;
+    private static final String[] DIAS_SEMANA = {"Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat"};
+    private static final String[] MESES = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct", "Nov", "Dec"};
+    private static final String CABECERA_CSV =
+            "tipo,nombre,categoria,stock_total,costo_total,lote,cantidad,fecha_ingreso,fecha_vencimiento,costo_unitario\n";
+
+    private final Writer salida;
+    private final Formato formato;
+    private final StringBuilder buffer = new StringBuilder(4096);
+    private final StringBuilder prefijo = new StringBuilder(256); // CSV: columnas del ítem, repetidas en cada lote
+    private char[] caracteres = new char[4096];
+
+    public EscritorReportes(Writer salida, Formato formato) {
+        this.salida = salida instanceof BufferedWriter ? salida : new BufferedWriter(salida, TAMANO_BUFFER);
+        this.formato = formato;
+    }
+
+    // El texto usa la codificación de la consola; CSV y JSON van en UTF-8
+    public EscritorReportes(OutputStream salida, Formato formato) {
+        this(new OutputStreamWriter(salida, formato == Formato.TEXTO ? Charset.defaultCharset() : StandardCharsets.UTF_8),
+                formato);
+    }
+
+    public void reporteIngredientes(List<Ingrediente> ingredientes) throws IOException {
+        reporte(ingredientes, "ingredientes", "=== Reporte de Ingredientes ===\n");
+    }
+
+    public void reporteEnvases(List<Envase> envases) throws IOException {
+        reporte(envases, "envases", "=== Reporte de Envases ===\n");
+    }
+
+    public void reporteProductos(List<Producto> productos) throws IOException {
+        reporte(productos, "productos", "============================\n=== Reporte de Productos ===\n");
+    }
+
+    // Valor del inventario por tipo de ítem (y por categoría en CSV y JSON),
+    // calculado con ValoradorInventario. Los totales se redondean una sola vez.
+    public void reporteGeneral(Inventario inventario) throws IOException {
+        reporteGeneral(new ValoradorInventario().valorar(inventario));
+    }
+
+    public void reporteGeneral(ValoracionInventario valoracion) throws IOException {
+        buffer.setLength(0);
+        switch (formato) {
+            case TEXTO:
+                buffer.append("=== Reporte General ===\n");
+                linea("Valor total de productos en almacén y en producción: S/.", valoracion.getTipo("Producto"));
+                linea("Valor total de ingredientes en almacén: S/.", valoracion.getTipo("Ingrediente"));
+                linea("Valor total de envases en almacén: S/.", valoracion.getTipo("Envase"));
+                linea("Valor total del inventario: S/.", valoracion.getTotal());
+                break;
+            case CSV:
+                buffer.append("tipo,categoria,items,lotes,cantidad,valor\n");
+                for (ValoracionInventario.Grupo tipo : valoracion.getPorTipo().values()) {
+                    for (ValoracionInventario.Grupo categoria : valoracion.getPorCategoria(tipo.getNombre()).values()) {
+                        filaCsv(tipo.getNombre(), categoria.getNombre(), categoria);
+                    }
+                    filaCsv(tipo.getNombre(), "", tipo);
+                }
+                filaCsv("Total", "", valoracion.getTotal());
+                break;
+            case JSON:
+                buffer.append("{\"total\":");
+                grupoJson(valoracion.getTotal());
+                buffer.append(",\"tipos\":[");
+                boolean primerTipo = true;
+                for (ValoracionInventario.Grupo tipo : valoracion.getPorTipo().values()) {
+                    buffer.append(primerTipo ? "" : ",");
+                    grupoJson(tipo);
+                    buffer.setLength(buffer.length() - 1);
+                    buffer.append(",\"categorias\":[");
+                    boolean primeraCategoria = true;
+                    for (ValoracionInventario.Grupo categoria : valoracion.getPorCategoria(tipo.getNombre()).values()) {
+                        buffer.append(primeraCategoria ? "" : ",");
+                        grupoJson(categoria);
+                        primeraCategoria = false;
+                    }
+                    buffer.append("]}");
+                    primerTipo = false;
+                }
+                buffer.append("]}\n");
+                break;
+        }
+        escribirBuffer();
+    }
+
+    // Un solo ítem con sus lotes: el texto de toString, sus filas CSV con
+    // cabecera o un objeto JSON
+    public void reporteItem(ItemConLotes item) throws IOException {
+        buffer.setLength(0);
+        switch (formato) {
+            case TEXTO:
+                anexarTexto(buffer, item);
+                buffer.append('\n');
+                break;
+            case CSV:
+                buffer.append(CABECERA_CSV);
+                anexarCsv(item);
+                break;
+            case JSON:
+                anexarJson(item);
+                buffer.append('\n');
+                break;
+        }
+        escribirBuffer();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        salida.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        salida.close();
+    }
+
+    private void reporte(List<? extends ItemConLotes> items, String clave, String titulo) throws IOException {
+        buffer.setLength(0);
+        switch (formato) {
+            case TEXTO:
+                buffer.append(items.isEmpty() ? "No hay " + clave + " registrados en el inventario.\n" : titulo);
+                break;
+            case CSV:
+                buffer.append(CABECERA_CSV);
+                break;
+            case JSON:
+                buffer.append("{\"").append(clave).append("\":[");
+                break;
+        }
+        escribirBuffer();
+        boolean primero = true;
+        for (ItemConLotes item : items) {
+            buffer.setLength(0);
+            switch (formato) {
+                case TEXTO:
+                    anexarTexto(buffer, item);
+                    buffer.append('\n');
+                    break;
+                case CSV:
+                    anexarCsv(item);
+                    break;
+                case JSON:
+                    if (!primero) {
+                        buffer.append(',');
+                    }
+                    anexarJson(item);
+                    break;
+            }
+            escribirBuffer();
+            primero = false;
+        }
+        if (formato == Formato.JSON) {
+            salida.write("]}\n");
+        }
+    }
+
+    private void escribirBuffer() throws IOException {
+        int largo = buffer.length();
+        if (caracteres.length < largo) {
+            caracteres = new char[Math.max(largo, caracteres.length * 2)];
+        }
+        buffer.getChars(0, largo, caracteres, 0);
+        salida.write(caracteres, 0, largo);
+    }
+
+    private void linea(String concepto, ValoracionInventario.Grupo grupo) {
+        buffer.append(concepto);
+        Fijo.anexar(buffer, grupo.getValorFijo(), 2);
+        buffer.append('\n');
+    }
+
+    private void filaCsv(String tipo, String categoria, ValoracionInventario.Grupo grupo) {
+        buffer.append(tipo).append(',');
+        anexarCampoCsv(buffer, categoria);
+        buffer.append(',').append(grupo.getItems()).append(',').append(grupo.getLotes()).append(',');
+        Fijo.anexar(buffer, grupo.getCantidadFija());
+        buffer.append(',');
+        Fijo.anexar(buffer, grupo.getValorFijo(), Fijo.ESCALA);
+        buffer.append('\n');
+    }
+
+    private void grupoJson(ValoracionInventario.Grupo grupo) {
+        buffer.append("{\"nombre\":");
+        anexarTextoJson(buffer, grupo.getNombre());
+        buffer.append(",\"items\":").append(grupo.getItems())
+                .append(",\"lotes\":").append(grupo.getLotes())
+                .append(",\"cantidad\":");
+        Fijo.anexar(buffer, grupo.getCantidadFija());
+        buffer.append(",\"valor\":");
+        Fijo.anexar(buffer, grupo.getValorFijo(), Fijo.ESCALA);
+        buffer.append('}');
+    }
+
+    // --- Texto (el formato de toString de los ítems y lotes) ---
+
+    static void anexarTexto(StringBuilder sb, ItemConLotes item) {
+        if (item instanceof Producto) {
+            sb.append("Producto: ").append(item.getNombre())
+                    .append("\nCategoría: ").append(categoria(item))
+                    .append("\nStock Total: ");
+            Fijo.anexar(sb, item.obtenerCantidadTotalFija());
+            sb.append("\nReceta:\n").append(((Producto) item).getReceta());
+        } else {
+            boolean envase = item instanceof Envase;
+            sb.append(envase ? "Envase: " : "Ingrediente: ").append(item.getNombre())
+                    .append(envase ? "\nTipo: " : "\nCategoría: ").append(categoria(item))
+                    .append("\nStock Total: ");
+            Fijo.anexar(sb, item.obtenerCantidadTotalFija());
+            sb.append("\nCosto Total: S/.");
+            Fijo.anexar(sb, item.calcularCostoTotalFijo(), 2);
+            sb.append(envase ? "\nCosto Unitario: S/." : "\nCosto Unitario S/.");
+            Fijo.anexar(sb, item.calcularCostoUnitarioTotalFijo(), 2);
+        }
+        sb.append("\nLotes:\n");
+        item.recorrerLotes(lote -> {
+            anexarTexto(sb, lote);
+            sb.append('\n');
+        });
+    }
+
+    static void anexarTexto(StringBuilder sb, Lote lote) {
+        sb.append("Lote [Código: ");
+        lote.anexarCodigo(sb);
+        sb.append(", Cantidad: ");
+        Fijo.anexar(sb, lote.getCantidadFija());
+        sb.append(", Fecha Ingreso: ");
+        anexarFechaTexto(sb, lote.getFechaIngresoMilis());
+        sb.append(", Fecha Vencimiento: ");
+        if (lote.getDiaVencimiento() == Lote.SIN_VENCIMIENTO) {
+            sb.append("null");
+        } else {
+            anexarFechaTexto(sb, Lote.milisInicioDia(lote.getDiaVencimiento()));
+        }
+        sb.append(", Costo Unitario: S/.");
+        Fijo.anexar(sb, lote.getCostoUnitarioFijo(), Fijo.ESCALA);
+        sb.append(']');
+    }
+
+    // --- CSV: una fila por lote (o una sin lote si el ítem no tiene) ---
+
+    private void anexarCsv(ItemConLotes item) {
+        prefijo.setLength(0);
+        prefijo.append(tipo(item)).append(',');
+        anexarCampoCsv(prefijo, item.getNombre());
+        prefijo.append(',');
+        anexarCampoCsv(prefijo, categoria(item));
+        prefijo.append(',');
+        Fijo.anexar(prefijo, item.obtenerCantidadTotalFija());
+        prefijo.append(',');
+        Fijo.anexar(prefijo, item.calcularCostoTotalFijo(), 2);
+        prefijo.append(',');
+        int inicio = buffer.length();
+        item.recorrerLotes(lote -> {
+            buffer.append(prefijo);
+            if (lote.isCodigoCompacto()) {
+                lote.anexarCodigo(buffer);
+            } else {
+                anexarCampoCsv(buffer, lote.getCodigoLote());
+            }
+            buffer.append(',');
+            Fijo.anexar(buffer, lote.getCantidadFija());
+            buffer.append(',');
+            anexarFechaHora(buffer, lote.getFechaIngresoMilis());
+            buffer.append(',');
+            if (lote.getDiaVencimiento() != Lote.SIN_VENCIMIENTO) {
+                anexarFecha(buffer, lote.getDiaVencimiento());
+            }
+            buffer.append(',');
+            Fijo.anexar(buffer, lote.getCostoUnitarioFijo(), Fijo.ESCALA);
+            buffer.append('\n');
+        });
+        if (buffer.length() == inicio) {
+            buffer.append(prefijo).append(",,,,\n");
+        }
+    }
+
+    private static void anexarCampoCsv(StringBuilder sb, String valor) {
+        boolean comillas = false;
+        for (int i = 0; i < valor.length() && !comillas; i++) {
+            char c = valor.charAt(i);
+            comillas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!comillas) {
+            sb.append(valor);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    // --- JSON: un objeto por ítem con sus lotes ---
+
+    private void anexarJson(ItemConLotes item) {
+        buffer.append("{\"nombre\":");
+        anexarTextoJson(buffer, item.getNombre());
+        buffer.append(item instanceof Envase ? ",\"tipo\":" : ",\"categoria\":");
+        anexarTextoJson(buffer, categoria(item));
+        buffer.append(",\"stockTotal\":");
+        Fijo.anexar(buffer, item.obtenerCantidadTotalFija());
+        buffer.append(",\"costoTotal\":");
+        Fijo.anexar(buffer, item.calcularCostoTotalFijo(), 2);
+        if (item instanceof Producto) {
+            Receta receta = ((Producto) item).getReceta();
+            buffer.append(",\"receta\":{\"ingredientes\":");
+            anexarComponentesJson(receta.getIngredientes());
+            buffer.append(",\"envases\":");
+            anexarComponentesJson(receta.getEnvases());
+            buffer.append('}');
+        } else {
+            buffer.append(",\"costoUnitario\":");
+            Fijo.anexar(buffer, item.calcularCostoUnitarioTotalFijo(), 2);
+        }
+        buffer.append(",\"lotes\":[");
+        int inicio = buffer.length();
+        item.recorrerLotes(lote -> {
+            if (buffer.length() > inicio) {
+                buffer.append(',');
+            }
+            anexarJson(buffer, lote);
+        });
+        buffer.append("]}");
+    }
+
+    static void anexarJson(StringBuilder sb, Lote lote) {
+        sb.append("{\"codigo\":");
+        if (lote.isCodigoCompacto()) {
+            sb.append('"');
+            lote.anexarCodigo(sb);
+            sb.append('"');
+        } else {
+            anexarTextoJson(sb, lote.getCodigoLote());
+        }
+        sb.append(",\"cantidad\":");
+        Fijo.anexar(sb, lote.getCantidadFija());
+        sb.append(",\"fechaIngreso\":\"");
+        anexarFechaHora(sb, lote.getFechaIngresoMilis());
+        sb.append("\",\"fechaVencimiento\":");
+        if (lote.getDiaVencimiento() == Lote.SIN_VENCIMIENTO) {
+            sb.append("null");
+        } else {
+            sb.append('"');
+            anexarFecha(sb, lote.getDiaVencimiento());
+            sb.append('"');
+        }
+        sb.append(",\"costoUnitario\":");
+        Fijo.anexar(sb, lote.getCostoUnitarioFijo(), Fijo.ESCALA);
+        sb.append('}');
+    }
+
+    private void anexarComponentesJson(Map<? extends ItemConLotes, Long> componentes) {
+        buffer.append('[');
+        boolean primero = true;
+        for (Map.Entry<? extends ItemConLotes, Long> entry : componentes.entrySet()) {
+            buffer.append(primero ? "{\"nombre\":" : ",{\"nombre\":");
+            anexarTextoJson(buffer, entry.getKey().getNombre());
+            buffer.append(",\"cantidad\":");
+            Fijo.anexar(buffer, entry.getValue());
+            buffer.append('}');
+            primero = false;
+        }
+        buffer.append(']');
+    }
+
+    static void anexarTextoJson(StringBuilder sb, String valor) {
+        sb.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    // --- Fechas en la zona del sistema, sin pasar por Calendar ni LocalDateTime ---
+
+    // Igual que Date.toString() ("Sun Oct 18 02:03:24 UTC 2026"), que es lo
+    // más caro de los reportes de texto cuando hay millones de lotes
+    private static void anexarFechaTexto(StringBuilder sb, long milis) {
+        TimeZone zona = TimeZone.getDefault();
+        long local = milis + zona.getOffset(milis);
+        long dia = Math.floorDiv(local, MILIS_DIA);
+        long fechaCivil = fechaCivil(dia);
+        sb.append(DIAS_SEMANA[(int) Math.floorMod(dia + 4, 7L)]).append(' ')
+                .append(MESES[(int) (fechaCivil / 100 % 100) - 1]).append(' ');
+        dosDigitos(sb, (int) (fechaCivil % 100));
+        sb.append(' ');
+        anexarHora(sb, Math.floorMod(local, MILIS_DIA));
+        sb.append(' ').append(zona.getDisplayName(zona.inDaylightTime(new Date(milis)), TimeZone.SHORT, Locale.US))
+                .append(' ').append(fechaCivil / 10000);
+    }
+
+    // ISO-8601: 2026-10-18; 'dia' en días desde 1970-01-01 (ver Lote.getDiaVencimiento)
+    private static void anexarFecha(StringBuilder sb, int dia) {
+        anexarFechaCivil(sb, fechaCivil(dia));
+    }
+
+    // ISO-8601: 2026-10-18T02:03:24
+    private static void anexarFechaHora(StringBuilder sb, long milis) {
+        long local = milis + TimeZone.getDefault().getOffset(milis);
+        anexarFechaCivil(sb, fechaCivil(Math.floorDiv(local, MILIS_DIA)));
+        sb.append('T');
+        anexarHora(sb, Math.floorMod(local, MILIS_DIA));
+    }
+
+    private static void anexarFechaCivil(StringBuilder sb, long fechaCivil) {
+        sb.append(fechaCivil / 10000).append('-');
+        dosDigitos(sb, (int) (fechaCivil / 100 % 100));
+        sb.append('-');
+        dosDigitos(sb, (int) (fechaCivil % 100));
+    }
+
+    private static void anexarHora(StringBuilder sb, long milisDelDia) {
+        int segundos = (int) (milisDelDia / 1000);
+        dosDigitos(sb, segundos / 3600);
+        sb.append(':');
+        dosDigitos(sb, segundos / 60 % 60);
+        sb.append(':');
+        dosDigitos(sb, segundos % 60);
+    }
+
+    // Días desde 1970-01-01 a año * 10000 + mes * 100 + día (calendario gregoriano)
+    private static long fechaCivil(long dias) {
+        long z = dias + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long diaEra = z - era * 146097;
+        long anioEra = (diaEra - diaEra / 1460 + diaEra / 36524 - diaEra / 146096) / 365;
+        long diaAnio = diaEra - (365 * anioEra + anioEra / 4 - anioEra / 100);
+        long mp = (5 * diaAnio + 2) / 153;
+        long dia = diaAnio - (153 * mp + 2) / 5 + 1;
+        long mes = mp < 10 ? mp + 3 : mp - 9;
+        long anio = anioEra + era * 400 + (mes <= 2 ? 1 : 0);
+        return anio * 10000 + mes * 100 + dia;
+    }
+
+    private static void dosDigitos(StringBuilder sb, int valor) {
+        if (valor < 10) {
+            sb.append('0');
+        }
+        sb.append(valor);
+    }
+
+    private static String tipo(ItemConLotes item) {
+        return item instanceof Producto ? "Producto" : item instanceof Envase ? "Envase" : "Ingrediente";
+    }
+
+    // Categoría de ingredientes y productos, tipo de los envases
+    static String categoria(ItemConLotes item) {
+        if (item instanceof Envase) {
+            return ((Envase) item).getTipo();
+        }
+        if (item instanceof Producto) {
+            return ((Producto) item).getCategoria();
+        }
+        return ((Ingrediente) item).getCategoria();
+    }
+}
@@ -0,0 +1,135 @@
+package Trabajo;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+// Aritmética de punto fijo sobre long con 4 decimales (la misma escala que el
+// costo unitario de los lotes). Un valor v representa v / 10000. Las
+// operaciones no crean objetos y lanzan ArithmeticException si hay desborde;
+// BigDecimal solo se usa para convertir en los reportes y la entrada/salida.
+public final class Fijo {
+    public static final int ESCALA = 4;
+    public static final long UNO = 10_000L;
+    public static final long CERO = 0L;
+    private static final long[] POTENCIAS = {1, 10, 100, 1_000, 10_000};
+
+    private Fijo() {}
+
+    public static long desde(BigDecimal valor) {
+        return valor.setScale(ESCALA, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static long desdeEntero(long valor) {
+        return Math.multiplyExact(valor, UNO);
+    }
+
+    // Conversión para mostrar: la cantidad sin ceros sobrantes (100.5, 2000)
+    public static BigDecimal aBigDecimal(long valor) {
+        BigDecimal resultado = BigDecimal.valueOf(valor, ESCALA).stripTrailingZeros();
+        return resultado.scale() < 0 ? resultado.setScale(0) : resultado;
+    }
+
+    // Conversión conservando los 4 decimales (2.3750)
+    public static BigDecimal aBigDecimalEscalado(long valor) {
+        return BigDecimal.valueOf(valor, ESCALA);
+    }
+
+    // Escribe el valor igual que aBigDecimal(valor).toString(), sin crear objetos
+    public static void anexar(StringBuilder sb, long valor) {
+        int decimales = ESCALA;
+        while (decimales > 0 && valor % 10 == 0) {
+            valor /= 10;
+            decimales--;
+        }
+        anexarEscalado(sb, valor, decimales);
+    }
+
+    // Escribe el valor redondeado (HALF_UP) a 'decimales' (0 a 4) decimales, igual que
+    // aBigDecimalEscalado(valor).setScale(decimales, HALF_UP).toPlainString()
+    public static void anexar(StringBuilder sb, long valor, int decimales) {
+        anexarEscalado(sb, redondear(valor, POTENCIAS[ESCALA - decimales]), decimales);
+    }
+
+    public static long sumar(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long restar(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    // a * b redondeado a 4 decimales (HALF_UP)
+    public static long multiplicar(long a, long b) {
+        long alto = Math.multiplyHigh(a, b);
+        long producto = a * b;
+        if ((alto == 0 && producto >= 0) || (alto == -1 && producto < 0)) {
+            return redondear(producto, UNO);
+        }
+        // El producto intermedio no cabe en un long; el resultado quizá sí
+        return exacto(BigDecimal.valueOf(a, ESCALA).multiply(BigDecimal.valueOf(b, ESCALA)));
+    }
+
+    // a / b redondeado a 4 decimales (HALF_UP)
+    public static long dividir(long a, long b) {
+        if (b == 0) {
+            throw new ArithmeticException("División por cero.");
+        }
+        long alto = Math.multiplyHigh(a, UNO);
+        long numerador = a * UNO;
+        if ((alto == 0 && numerador >= 0) || (alto == -1 && numerador < 0)) {
+            return redondear(numerador, b);
+        }
+        return exacto(BigDecimal.valueOf(a, ESCALA).divide(BigDecimal.valueOf(b, ESCALA), ESCALA, RoundingMode.HALF_UP));
+    }
+
+    // Cuántas veces completas cabe b en a (ambos no negativos)
+    public static long cociente(long a, long b) {
+        if (b == 0) {
+            throw new ArithmeticException("División por cero.");
+        }
+        return a / b;
+    }
+
+    public static long redondearA2Decimales(long valor) {
+        return redondear(valor, 100) * 100;
+    }
+
+    public static int comparar(long a, long b) {
+        return Long.compare(a, b);
+    }
+
+    private static long redondear(long numerador, long divisor) {
+        long cociente = numerador / divisor;
+        long resto = numerador % divisor;
+        if (resto != 0 && Math.abs(resto) >= Math.abs(divisor) - Math.abs(resto)) {
+            cociente += (numerador < 0) == (divisor < 0) ? 1 : -1;
+        }
+        return cociente;
+    }
+
+    private static void anexarEscalado(StringBuilder sb, long valor, int decimales) {
+        long divisor = POTENCIAS[decimales];
+        long entero = valor / divisor;
+        long fraccion = Math.abs(valor % divisor);
+        if (valor < 0 && entero == 0) {
+            sb.append('-');
+        }
+        sb.append(entero);
+        if (decimales > 0) {
+            sb.append('.');
+            for (long p = divisor / 10; p > 1 && fraccion < p; p /= 10) {
+                sb.append('0');
+            }
+            sb.append(fraccion);
+        }
+    }
+
+    private static long exacto(BigDecimal valor) {
+        BigInteger escalado = valor.setScale(ESCALA, RoundingMode.HALF_UP).unscaledValue();
+        if (escalado.bitLength() > 63) {
+            throw new ArithmeticException("Desborde en aritmética de punto fijo: " + valor);
+        }
+        return escalado.longValue();
+    }
+}
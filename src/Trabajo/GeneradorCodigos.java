@@ -0,0 +1,36 @@
+package Trabajo;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Generador de códigos de lote. UUID.randomUUID() pasa por SecureRandom (y su
+// bloqueo) en cada llamada; aquí solo se usa una vez al arrancar para el
+// prefijo del proceso y cada código añade un contador secuencial. Un código
+// es el par (prefijo, número): Lote.nuevo lo guarda así, como dos long, y el
+// texto con forma de UUID se arma solo al mostrarlo.
+public final class GeneradorCodigos {
+    private static final long PREFIJO = new SecureRandom().nextLong();
+    private static final AtomicLong secuencia = new AtomicLong();
+
+    private GeneradorCodigos() {}
+
+    // Código nuevo como texto; para crear lotes conviene Lote.nuevo, que no lo arma
+    public static String nuevoCodigoLote() {
+        return new UUID(PREFIJO, siguiente()).toString();
+    }
+
+    static long prefijo() {
+        return PREFIJO;
+    }
+
+    static long siguiente() {
+        return secuencia.incrementAndGet();
+    }
+
+    // Aparta 'cantidad' números consecutivos y devuelve el primero, para
+    // crear después sus lotes con Lote.conCodigo (ver CargadorPerezoso)
+    static long reservar(int cantidad) {
+        return secuencia.getAndAdd(cantidad) + 1;
+    }
+}
@@ -0,0 +1,291 @@
+package Trabajo;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Genera juegos de datos sintéticos grandes y reproducibles (misma semilla,
+// mismos archivos) con los formatos que lee el sistema:
+//   data.txt       Ingrediente|nombre|categoría, Envase|nombre|tipo y sus Lote|...
+//   productos.txt  Producto|nombre|categoría seguido de Ingrediente|nombre|cantidad
+//                  y Envase|nombre|cantidad (ver DataLoader.cargarProductos)
+//   Usuarios.txt   usuario-contraseña
+// Una fracción configurable de las líneas de lotes sale mal formada a propósito
+// para ejercitar el manejo de errores de la carga.
+//
+// Uso: java Trabajo.GeneradorDatos [--opcion=valor ...], ver main.
+public class GeneradorDatos {
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final String[] SILABAS = {"pi", "mien", "ta", "co", "mi", "no", "sal", "ha", "ri", "na", "o",
+            "re", "ga", "ajo", "ce", "bo", "lla", "ca", "ne", "la", "pa", "pri", "ka", "tu", "mo"};
+    private static final String[] CATEGORIAS = {"Especias", "Harinas", "Lácteos", "Aceites", "Granos", "Endulzantes"};
+    private static final String[] TIPOS_ENVASE = {"Plástico", "Vidrio", "Cartón", "Papel", "Metal"};
+    private static final String[] CATEGORIAS_PRODUCTO = {"Panadería", "Condimentos", "Salsas", "Postres"};
+
+    private long semilla = 1;
+    private int ingredientes = 1000;
+    private int envases = 100;
+    private int lotesPorItem = 10;
+    private int productos = 200;
+    private int anchoReceta = 6;
+    private int usuarios = 10;
+    private double tasaErrores = 0;
+    private LocalDate inicioVencimientos = LocalDate.of(2027, 1, 1);
+    private int diasVencimiento = 365;
+    private double fraccionVencidos = 0;
+    private long precioMinimo = 100;       // Por unidad, en céntimos
+    private long precioMaximo = 5000;
+    private int cantidadMaxima = 5000;
+
+    private long lineasMalFormadas = 0;
+
+    public void setSemilla(long semilla) {
+        this.semilla = semilla;
+    }
+
+    public void setIngredientes(int ingredientes) {
+        this.ingredientes = ingredientes;
+    }
+
+    public void setEnvases(int envases) {
+        this.envases = envases;
+    }
+
+    public void setLotesPorItem(int lotesPorItem) {
+        this.lotesPorItem = lotesPorItem;
+    }
+
+    public void setProductos(int productos) {
+        this.productos = productos;
+    }
+
+    public void setAnchoReceta(int anchoReceta) {
+        this.anchoReceta = anchoReceta;
+    }
+
+    public void setUsuarios(int usuarios) {
+        this.usuarios = usuarios;
+    }
+
+    // Fracción (0 a 1) de líneas de lote que se escriben mal formadas
+    public void setTasaErrores(double tasaErrores) {
+        this.tasaErrores = tasaErrores;
+    }
+
+    // Los vencimientos se reparten uniformemente en [inicio, inicio + dias); una
+    // 'fraccionVencidos' de ellos cae en los 'dias' anteriores al inicio
+    public void setVencimientos(LocalDate inicio, int dias, double fraccionVencidos) {
+        this.inicioVencimientos = inicio;
+        this.diasVencimiento = dias;
+        this.fraccionVencidos = fraccionVencidos;
+    }
+
+    // Rango del precio por unidad, en céntimos
+    public void setPrecios(long minimo, long maximo) {
+        this.precioMinimo = minimo;
+        this.precioMaximo = maximo;
+    }
+
+    public void setCantidadMaxima(int cantidadMaxima) {
+        this.cantidadMaxima = cantidadMaxima;
+    }
+
+    public long getLineasMalFormadas() {
+        return lineasMalFormadas;
+    }
+
+    // Escribe data.txt, productos.txt y Usuarios.txt en 'directorio'
+    public void generar(Path directorio) throws IOException {
+        Files.createDirectories(directorio);
+        generarDatos(directorio.resolve("data.txt"));
+        generarProductos(directorio.resolve("productos.txt"));
+        generarUsuarios(directorio.resolve("Usuarios.txt"));
+    }
+
+    public void generarDatos(Path archivo) throws IOException {
+        Random random = new Random(semilla);
+        lineasMalFormadas = 0;
+        try (Writer salida = escritor(archivo)) {
+            StringBuilder linea = new StringBuilder(128);
+            for (int i = 0; i < ingredientes; i++) {
+                linea.setLength(0);
+                linea.append("Ingrediente|").append(nombreIngrediente(i)).append('|')
+                        .append(CATEGORIAS[i % CATEGORIAS.length]).append('\n');
+                salida.append(linea);
+                for (int j = 0; j < lotesPorItem; j++) {
+                    escribirLote(salida, linea, random, true);
+                }
+            }
+            for (int i = 0; i < envases; i++) {
+                linea.setLength(0);
+                linea.append("Envase|").append(nombreEnvase(i)).append('|')
+                        .append(TIPOS_ENVASE[i % TIPOS_ENVASE.length]).append('\n');
+                salida.append(linea);
+                for (int j = 0; j < lotesPorItem; j++) {
+                    escribirLote(salida, linea, random, false);
+                }
+            }
+        }
+    }
+
+    private void escribirLote(Writer salida, StringBuilder linea, Random random, boolean conVencimiento) throws IOException {
+        int cantidad = 1 + random.nextInt(cantidadMaxima);
+        long precioUnitario = precioMinimo + (long) (random.nextDouble() * (precioMaximo - precioMinimo));
+        long precioTotal = precioUnitario * cantidad; // Céntimos
+        linea.setLength(0);
+        linea.append("Lote|").append(cantidad).append('|').append(precioTotal / 100).append('.');
+        long centimos = precioTotal % 100;
+        if (centimos < 10) {
+            linea.append('0');
+        }
+        linea.append(centimos);
+        if (conVencimiento) {
+            int dia = random.nextInt(Math.max(1, diasVencimiento));
+            LocalDate fecha = random.nextDouble() < fraccionVencidos
+                    ? inicioVencimientos.minusDays(1 + dia)
+                    : inicioVencimientos.plusDays(dia);
+            linea.append('|').append(FORMATO_FECHA.format(fecha));
+        }
+        if (tasaErrores > 0 && random.nextDouble() < tasaErrores) {
+            estropear(linea, random, conVencimiento);
+            lineasMalFormadas++;
+        }
+        salida.append(linea.append('\n'));
+    }
+
+    // Convierte la línea de lote en una de los errores típicos de un archivo editado a mano
+    private static void estropear(StringBuilder linea, Random random, boolean conVencimiento) {
+        switch (random.nextInt(conVencimiento ? 4 : 3)) {
+            case 0: // Campo numérico inválido
+                linea.insert(linea.indexOf("|") + 1, "x");
+                break;
+            case 1: // Línea cortada
+                linea.setLength(linea.indexOf("|", linea.indexOf("|") + 1));
+                break;
+            case 2: // Tipo de registro desconocido
+                linea.replace(0, 4, "Lot");
+                break;
+            default: // Fecha inválida
+                linea.setLength(linea.lastIndexOf("|") + 1);
+                linea.append("31/02/20xx");
+        }
+    }
+
+    public void generarProductos(Path archivo) throws IOException {
+        Random random = new Random(semilla * 31 + 7);
+        try (Writer salida = escritor(archivo)) {
+            StringBuilder linea = new StringBuilder(128);
+            Map<Integer, Boolean> usados = new HashMap<>();
+            for (int p = 0; p < productos; p++) {
+                linea.setLength(0);
+                linea.append("Producto|").append(nombre(random)).append(' ').append(p).append('|')
+                        .append(CATEGORIAS_PRODUCTO[p % CATEGORIAS_PRODUCTO.length]).append('\n');
+                // Ingredientes distintos; unos pocos populares se comparten entre muchas recetas
+                usados.clear();
+                int numeroIngredientes = Math.min(anchoReceta, ingredientes);
+                while (usados.size() < numeroIngredientes) {
+                    int i = random.nextInt(4) == 0 ? random.nextInt(Math.min(ingredientes, 20)) : random.nextInt(ingredientes);
+                    if (usados.put(i, Boolean.TRUE) == null) {
+                        linea.append("Ingrediente|").append(nombreIngrediente(i)).append('|');
+                        decimal(linea, 1 + random.nextInt(500));
+                        linea.append('\n');
+                    }
+                }
+                if (envases > 0) {
+                    linea.append("Envase|").append(nombreEnvase(random.nextInt(envases))).append("|1\n");
+                }
+                salida.append(linea);
+            }
+        }
+    }
+
+    public void generarUsuarios(Path archivo) throws IOException {
+        Random random = new Random(semilla * 17 + 3);
+        try (Writer salida = escritor(archivo)) {
+            salida.write("admin-12345");
+            for (int i = 1; i < usuarios; i++) {
+                salida.write("\nusuario" + i + "-clave" + (100_000 + random.nextInt(900_000)));
+            }
+        }
+    }
+
+    // Los nombres llevan el índice para ser únicos y reproducibles desde cualquier
+    // archivo; BenchmarkNucleo los usa para armar un inventario sin pasar por data.txt
+    String nombreIngrediente(int i) {
+        return nombre(new Random(semilla ^ (i * 0x9E3779B97F4A7C15L))) + " " + i;
+    }
+
+    private String nombreEnvase(int i) {
+        return "Envase " + TIPOS_ENVASE[i % TIPOS_ENVASE.length].toLowerCase() + " " + i;
+    }
+
+    private static String nombre(Random random) {
+        StringBuilder sb = new StringBuilder();
+        int silabas = 2 + random.nextInt(3);
+        for (int k = 0; k < silabas; k++) {
+            sb.append(SILABAS[random.nextInt(SILABAS.length)]);
+        }
+        sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+        return sb.toString();
+    }
+
+    // Escribe décimas como decimal ("12.5")
+    private static void decimal(StringBuilder linea, int decimas) {
+        linea.append(decimas / 10);
+        if (decimas % 10 != 0) {
+            linea.append('.').append(decimas % 10);
+        }
+    }
+
+    private static Writer escritor(Path archivo) throws IOException {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(archivo), StandardCharsets.UTF_8), 1 << 16);
+    }
+
+    // Opciones: --salida=dir --semilla=N --ingredientes=N --envases=N --lotes=N
+    // --productos=N --ancho=N --usuarios=N --errores=0.01 --inicio=dd/MM/yyyy
+    // --dias=N --vencidos=0.1 --precioMin=céntimos --precioMax=céntimos --cantidadMax=N
+    public static void main(String[] args) throws IOException {
+        Map<String, String> opciones = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (!arg.startsWith("--") || igual < 0) {
+                System.out.println("Opción inválida: " + arg);
+                return;
+            }
+            opciones.put(arg.substring(2, igual), arg.substring(igual + 1));
+        }
+        GeneradorDatos generador = new GeneradorDatos();
+        generador.setSemilla(Long.parseLong(opciones.getOrDefault("semilla", "1")));
+        generador.setIngredientes(Integer.parseInt(opciones.getOrDefault("ingredientes", "1000")));
+        generador.setEnvases(Integer.parseInt(opciones.getOrDefault("envases", "100")));
+        generador.setLotesPorItem(Integer.parseInt(opciones.getOrDefault("lotes", "10")));
+        generador.setProductos(Integer.parseInt(opciones.getOrDefault("productos", "200")));
+        generador.setAnchoReceta(Integer.parseInt(opciones.getOrDefault("ancho", "6")));
+        generador.setUsuarios(Integer.parseInt(opciones.getOrDefault("usuarios", "10")));
+        generador.setTasaErrores(Double.parseDouble(opciones.getOrDefault("errores", "0")));
+        generador.setVencimientos(LocalDate.parse(opciones.getOrDefault("inicio", "01/01/2027"), FORMATO_FECHA),
+                Integer.parseInt(opciones.getOrDefault("dias", "365")),
+                Double.parseDouble(opciones.getOrDefault("vencidos", "0")));
+        generador.setPrecios(Long.parseLong(opciones.getOrDefault("precioMin", "100")),
+                Long.parseLong(opciones.getOrDefault("precioMax", "5000")));
+        generador.setCantidadMaxima(Integer.parseInt(opciones.getOrDefault("cantidadMax", "5000")));
+
+        Path directorio = Paths.get(opciones.getOrDefault("salida", "datos-generados"));
+        long inicio = System.nanoTime();
+        generador.generar(directorio);
+        long lotes = (long) (generador.ingredientes + generador.envases) * generador.lotesPorItem;
+        System.out.println("Generados " + lotes + " lotes (" + generador.getLineasMalFormadas()
+                + " líneas mal formadas), " + generador.productos + " productos y " + generador.usuarios
+                + " usuarios en " + directorio + " (" + (System.nanoTime() - inicio) / 1_000_000 + " ms).");
+    }
+}
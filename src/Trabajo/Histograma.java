@@ -0,0 +1,102 @@
+package Trabajo;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Histograma de latencias (en nanosegundos) con cubetas log-lineales: cada
+// potencia de dos se parte en 4 cubetas, así el error relativo de un percentil
+// es de a lo sumo 25%. Registrar es un incremento en un LongAdder, sin locks
+// ni contención entre hilos; los percentiles se calculan al consultarlos.
+public class Histograma {
+    private static final int LINEALES = 16;
+    private static final int SUBCUBETAS = 4;
+    private static final int CUBETAS = LINEALES + (63 - 4) * SUBCUBETAS;
+
+    private final LongAdder[] cubetas = new LongAdder[CUBETAS];
+    private final LongAdder suma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    public Histograma() {
+        for (int i = 0; i < CUBETAS; i++) {
+            cubetas[i] = new LongAdder();
+        }
+    }
+
+    public void registrar(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+        cubetas[indice(valor)].increment();
+        suma.add(valor);
+        maximo.accumulate(valor);
+    }
+
+    public long getCuenta() {
+        long cuenta = 0;
+        for (LongAdder cubeta : cubetas) {
+            cuenta += cubeta.sum();
+        }
+        return cuenta;
+    }
+
+    public double getMedia() {
+        long cuenta = getCuenta();
+        return cuenta == 0 ? 0 : suma.sum() / (double) cuenta;
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    // Valor aproximado (punto medio de la cubeta) bajo el cual queda la fracción 'p' (0 a 1)
+    public long percentil(double p) {
+        long[] cuentas = new long[CUBETAS];
+        long total = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            cuentas[i] = cubetas[i].sum();
+            total += cuentas[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(p * total));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += cuentas[i];
+            if (acumulado >= objetivo) {
+                return Math.min((inferior(i) + inferior(i + 1) - 1) / 2, getMaximo());
+            }
+        }
+        return getMaximo();
+    }
+
+    public void reiniciar() {
+        for (LongAdder cubeta : cubetas) {
+            cubeta.reset();
+        }
+        suma.reset();
+        maximo.reset();
+    }
+
+    private static int indice(long valor) {
+        if (valor < LINEALES) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor); // >= 4
+        int sub = (int) (valor >>> (exponente - 2)) & (SUBCUBETAS - 1);
+        return LINEALES + (exponente - 4) * SUBCUBETAS + sub;
+    }
+
+    // Menor valor que cae en la cubeta 'i'
+    private static long inferior(int i) {
+        if (i <= LINEALES) {
+            return i;
+        }
+        if (i >= CUBETAS) {
+            return Long.MAX_VALUE;
+        }
+        int exponente = (i - LINEALES) / SUBCUBETAS + 4;
+        int sub = (i - LINEALES) % SUBCUBETAS;
+        return (long) (SUBCUBETAS + sub) << (exponente - 2);
+    }
+}
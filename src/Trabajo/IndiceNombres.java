@@ -0,0 +1,123 @@
+package Trabajo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+// Índice de nombres para el inventario: un mapa hash para la búsqueda exacta
+// (sin distinguir mayúsculas) y un índice invertido de trigramas para la
+// búsqueda parcial, de modo que una búsqueda cueste según las coincidencias
+// y no según el tamaño del catálogo.
+// Las altas se serializan entre sí y las búsquedas no bloquean: cada lista de
+// identificadores publica su tamaño después de escribir el identificador.
+public class IndiceNombres<T> {
+    private static final int N = 3;
+
+    private final Function<T, String> obtenerNombre;
+    private final ListaSoloAnexar<T> elementos;
+    private final ListaSoloAnexar<String> nombresNormalizados;
+    private final ConcurrentHashMap<String, T> exactos;
+    private final ConcurrentHashMap<String, Postings> trigramas;
+
+    public IndiceNombres(Function<T, String> obtenerNombre) {
+        this.obtenerNombre = obtenerNombre;
+        this.elementos = new ListaSoloAnexar<>();
+        this.nombresNormalizados = new ListaSoloAnexar<>();
+        this.exactos = new ConcurrentHashMap<>();
+        this.trigramas = new ConcurrentHashMap<>();
+    }
+
+    public synchronized void agregar(T elemento) {
+        String nombre = normalizar(obtenerNombre.apply(elemento));
+        int id = elementos.size();
+        elementos.add(elemento);
+        nombresNormalizados.add(nombre);
+        // Con nombres repetidos se conserva el primero, igual que la búsqueda lineal
+        exactos.putIfAbsent(nombre, elemento);
+
+        for (int i = 0; i + N <= nombre.length(); i++) {
+            String trigrama = nombre.substring(i, i + N);
+            Postings postings = trigramas.computeIfAbsent(trigrama, k -> new Postings());
+            // Un trigrama repetido en el mismo nombre solo se registra una vez
+            if (postings.ultimo() != id) {
+                postings.agregar(id);
+            }
+        }
+    }
+
+    public T buscarExacto(String nombre) {
+        if (nombre == null) {
+            return null;
+        }
+        return exactos.get(normalizar(nombre));
+    }
+
+    // Devuelve hasta 'limite' elementos cuyo nombre contiene el texto, en orden de inserción
+    public List<T> buscarParcial(String texto, int limite) {
+        List<T> resultados = new ArrayList<>();
+        String consulta = normalizar(texto);
+        if (consulta.length() < N) {
+            // Consultas cortas: no hay trigramas, se recorren los nombres ya normalizados
+            for (int id = 0; id < nombresNormalizados.size() && resultados.size() < limite; id++) {
+                if (nombresNormalizados.get(id).contains(consulta)) {
+                    resultados.add(elementos.get(id));
+                }
+            }
+            return resultados;
+        }
+
+        // Se parte de la lista de trigramas más corta y se verifica cada candidato
+        Postings menor = null;
+        for (int i = 0; i + N <= consulta.length(); i++) {
+            Postings postings = trigramas.get(consulta.substring(i, i + N));
+            if (postings == null) {
+                return resultados;
+            }
+            if (menor == null || postings.tamano < menor.tamano) {
+                menor = postings;
+            }
+        }
+        int tamano = menor.tamano; // Tamaño antes que el arreglo, ver Postings
+        int[] ids = menor.ids;
+        for (int i = 0; i < tamano && resultados.size() < limite; i++) {
+            int id = ids[i];
+            if (nombresNormalizados.get(id).contains(consulta)) {
+                resultados.add(elementos.get(id));
+            }
+        }
+        return resultados;
+    }
+
+    public int tamano() {
+        return elementos.size();
+    }
+
+    private static String normalizar(String nombre) {
+        return nombre.toLowerCase(Locale.ROOT);
+    }
+
+    // Lista de identificadores en orden creciente (orden de inserción). Solo
+    // la modifica agregar(); quien lee toma primero 'tamano' y después 'ids'.
+    private static class Postings {
+        volatile int[] ids = new int[4];
+        volatile int tamano = 0;
+
+        void agregar(int id) {
+            int[] actual = ids;
+            int n = tamano;
+            if (n == actual.length) {
+                actual = Arrays.copyOf(actual, n * 2);
+                ids = actual;
+            }
+            actual[n] = id;
+            tamano = n + 1;
+        }
+
+        int ultimo() {
+            return tamano == 0 ? -1 : ids[tamano - 1];
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package Trabajo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Índice global de los lotes con fecha de vencimiento, agrupados por día.
+// Lo mantienen los propios ítems: cada lote que se agrega, se reduce o se
+// retira avisa al índice del Inventario (ver ItemConLotes), así que responde
+// "qué vence en los próximos N días" sin recorrer todos los ítems.
+// Cada día guarda sus lotes y los acumulados de cantidad y valor; un rango de
+// días es un subMap del mapa ordenado. Los lotes sin vencimiento no se indexan.
+public class IndiceVencimientos {
+    private static final ZoneId ZONA = ZoneId.systemDefault();
+
+    private final ConcurrentSkipListMap<LocalDate, Dia> dias = new ConcurrentSkipListMap<>();
+
+    // Lotes de un día en un arreglo; cada lote guarda su posición (ver
+    // Lote.posicionIndice) para quitarlo en O(1) cambiándolo por el último.
+    // Los días no se quitan del mapa al vaciarse (un lote nuevo puede volver a
+    // usarlos); las consultas saltan los días sin lotes.
+    private static final class Dia {
+        private Lote[] lotes = new Lote[4];
+        private int tamano = 0;
+        private long cantidad = 0; // Punto fijo, ver Fijo
+        private long valor = 0;    // Punto fijo, ver Fijo
+
+        synchronized void agregar(Lote lote) {
+            if (tamano == lotes.length) {
+                lotes = Arrays.copyOf(lotes, tamano * 2);
+            }
+            lote.setPosicionIndice(tamano);
+            lotes[tamano++] = lote;
+            cantidad += lote.getCantidadFija();
+            valor += lote.getCostoTotalFijo();
+        }
+
+        synchronized void reducir(long cantidadReducida, long valorReducido) {
+            cantidad -= cantidadReducida;
+            valor -= valorReducido;
+        }
+
+        synchronized void quitar(Lote lote) {
+            int posicion = lote.getPosicionIndice();
+            if (posicion < 0 || posicion >= tamano || lotes[posicion] != lote) {
+                return;
+            }
+            Lote ultimo = lotes[--tamano];
+            lotes[posicion] = ultimo;
+            ultimo.setPosicionIndice(posicion);
+            lotes[tamano] = null;
+            lote.setPosicionIndice(-1);
+            cantidad -= lote.getCantidadFija();
+            valor -= lote.getCostoTotalFijo();
+        }
+
+        synchronized void copiarLotes(List<Lote> destino) {
+            destino.addAll(Arrays.asList(lotes).subList(0, tamano));
+        }
+
+        synchronized ResumenDia resumen(LocalDate dia) {
+            return tamano == 0 ? null : new ResumenDia(dia, tamano, cantidad, valor);
+        }
+    }
+
+    // Cantidad de lotes, stock y valor que vencen en un día
+    public static final class ResumenDia {
+        private final LocalDate dia;
+        private final int lotes;
+        private final long cantidad;
+        private final long valor;
+
+        ResumenDia(LocalDate dia, int lotes, long cantidad, long valor) {
+            this.dia = dia;
+            this.lotes = lotes;
+            this.cantidad = cantidad;
+            this.valor = valor;
+        }
+
+        public LocalDate getDia() {
+            return dia;
+        }
+
+        public int getLotes() {
+            return lotes;
+        }
+
+        public BigDecimal getCantidad() {
+            return Fijo.aBigDecimal(cantidad);
+        }
+
+        public BigDecimal getValor() {
+            return Fijo.aBigDecimalEscalado(valor).setScale(2, RoundingMode.HALF_UP);
+        }
+
+        @Override
+        public String toString() {
+            return dia + ": " + lotes + " lote(s), cantidad " + getCantidad() + ", valor S/." + getValor();
+        }
+    }
+
+    // Día de vencimiento del lote en la zona horaria del sistema; null si no vence
+    static LocalDate dia(Lote lote) {
+        int dia = lote.getDiaVencimiento();
+        return dia == Lote.SIN_VENCIMIENTO ? null : LocalDate.ofEpochDay(dia);
+    }
+
+    // --- Avisos de ItemConLotes, siempre con el lock del ítem tomado ---
+
+    void agregado(Lote lote) {
+        LocalDate dia = dia(lote);
+        if (dia == null) {
+            return;
+        }
+        Dia d = dias.get(dia);
+        if (d == null) {
+            d = dias.computeIfAbsent(dia, k -> new Dia());
+        }
+        d.agregar(lote);
+    }
+
+    void reducido(Lote lote, long cantidad, long valor) {
+        LocalDate dia = dia(lote);
+        if (dia == null) {
+            return;
+        }
+        Dia d = dias.get(dia);
+        if (d != null) {
+            d.reducir(cantidad, valor);
+        }
+    }
+
+    void retirado(Lote lote) {
+        LocalDate dia = dia(lote);
+        if (dia == null) {
+            return;
+        }
+        Dia d = dias.get(dia);
+        if (d != null) {
+            d.quitar(lote);
+        }
+    }
+
+    // --- Consultas ---
+
+    // Lotes que vencen entre 'desde' y 'hasta' (ambos incluidos), por día de vencimiento
+    public List<Lote> lotesEntre(LocalDate desde, LocalDate hasta) {
+        return lotes(rango(desde, hasta));
+    }
+
+    // Lotes que vencen en los próximos 'dias' días, contando hoy
+    public List<Lote> lotesPorVencer(int dias) {
+        LocalDate hoy = LocalDate.now(ZONA);
+        return lotesEntre(hoy, hoy.plusDays(dias - 1L));
+    }
+
+    // Lotes con vencimiento anterior a 'dia' (ya vencidos si 'dia' es hoy)
+    public List<Lote> lotesAntesDe(LocalDate dia) {
+        return lotes(dias.headMap(dia, false));
+    }
+
+    // Resumen de cada día con lotes entre 'desde' y 'hasta', en orden de fecha
+    public Map<LocalDate, ResumenDia> resumenPorDia(LocalDate desde, LocalDate hasta) {
+        Map<LocalDate, ResumenDia> resumen = new LinkedHashMap<>();
+        for (Map.Entry<LocalDate, Dia> entry : rango(desde, hasta).entrySet()) {
+            ResumenDia dia = entry.getValue().resumen(entry.getKey());
+            if (dia != null) {
+                resumen.put(entry.getKey(), dia);
+            }
+        }
+        return resumen;
+    }
+
+    private ConcurrentNavigableMap<LocalDate, Dia> rango(LocalDate desde, LocalDate hasta) {
+        if (hasta.isBefore(desde)) {
+            return new ConcurrentSkipListMap<>();
+        }
+        return dias.subMap(desde, true, hasta, true);
+    }
+
+    private static List<Lote> lotes(Map<LocalDate, Dia> rango) {
+        List<Lote> lotes = new ArrayList<>();
+        for (Dia d : rango.values()) {
+            d.copiarLotes(lotes);
+        }
+        return lotes;
+    }
+}
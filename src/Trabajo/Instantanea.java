@@ -0,0 +1,384 @@
+package Trabajo;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Instantánea binaria de todo el inventario: ingredientes, envases, productos
+// con sus recetas, todos los lotes y el historial de movimientos. Se escribe
+// con un canal NIO en un archivo temporal que luego reemplaza al anterior, y
+// se lee de una sola pasada secuencial sobre el archivo proyectado en memoria.
+//
+// Formato (big-endian):
+//   int MAGICO, int VERSION, long secuencia del diario (desde la versión 2)
+//   int n, n × ingrediente: texto nombre, texto categoría, lotes
+//   int n, n × envase:      texto nombre, texto tipo, lotes
+//   int n, n × producto:    texto nombre, texto categoría, receta, lotes
+//   int n, n × movimiento:  texto tipo, long fecha, texto descripción, long cantidad
+// donde texto = int largo + UTF-8, lotes = int n + int bytes que siguen + n ×
+// (código, long cantidad, long ingreso, int día de vencimiento, long costo
+// unitario) y receta = int n + n × (int índice de ingrediente, long cantidad),
+// igual para envases. El código es byte CODIGO_COMPACTO + 2 × long o byte
+// CODIGO_TEXTO + texto (ver Lote). Cantidades y costos van en punto fijo (ver
+// Fijo); el día es Lote.SIN_VENCIMIENTO si no vence. La versión 3 no tenía los
+// bytes de los lotes; hasta la versión 2 los lotes eran (texto código, long
+// cantidad, long ingreso, long vencimiento o SIN_FECHA, long costo).
+//
+// Con un AlmacenMapeado cerrado al día con la secuencia de la instantánea (ver
+// AlmacenMapeado.cerrar), los ítems que ya tienen su cola allí se restauran
+// sobre ella y sus lotes se saltan sin leerlos: el arranque no pasa los lotes
+// por el heap. La instantánea los sigue guardando todos, porque es la copia
+// de seguridad si el almacén no se cerró bien.
+public class Instantanea {
+    private static final int MAGICO = 0x494E5653; // "INVS"
+    private static final int VERSION = 4;
+    private static final long SIN_FECHA = Long.MIN_VALUE; // Versiones 1 y 2
+    private static final byte CODIGO_COMPACTO = 0;
+    private static final byte CODIGO_TEXTO = 1;
+    private static final int TAMANO_BUFFER = 1 << 20;
+
+    public void guardar(Path archivo, Inventario inventario, List<MovimientoInventario> movimientos) throws IOException {
+        guardar(archivo, inventario, movimientos, 0);
+    }
+
+    // 'secuenciaDiario' es el último registro de DiarioMovimientos que ya está aplicado al inventario
+    public void guardar(Path archivo, Inventario inventario, List<MovimientoInventario> movimientos,
+                        long secuenciaDiario) throws IOException {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Escritor escritor = new Escritor(canal);
+            escritor.entero(MAGICO);
+            escritor.entero(VERSION);
+            escritor.largo(secuenciaDiario);
+
+            Map<Ingrediente, Integer> indiceIngredientes = new IdentityHashMap<>();
+            escritor.entero(inventario.getIngredientes().size());
+            for (Ingrediente ingrediente : inventario.getIngredientes()) {
+                indiceIngredientes.put(ingrediente, indiceIngredientes.size());
+                escritor.texto(ingrediente.getNombre());
+                escritor.texto(ingrediente.getCategoria());
+                escribirLotes(escritor, ingrediente);
+            }
+
+            Map<Envase, Integer> indiceEnvases = new IdentityHashMap<>();
+            escritor.entero(inventario.getEnvases().size());
+            for (Envase envase : inventario.getEnvases()) {
+                indiceEnvases.put(envase, indiceEnvases.size());
+                escritor.texto(envase.getNombre());
+                escritor.texto(envase.getTipo());
+                escribirLotes(escritor, envase);
+            }
+
+            escritor.entero(inventario.getProductos().size());
+            for (Producto producto : inventario.getProductos()) {
+                escritor.texto(producto.getNombre());
+                escritor.texto(producto.getCategoria());
+                escribirReceta(escritor, producto, indiceIngredientes, indiceEnvases);
+                escribirLotes(escritor, producto);
+            }
+
+            escritor.entero(movimientos.size());
+            for (MovimientoInventario movimiento : movimientos) {
+                escritor.texto(movimiento.getTipoMovimiento());
+                escritor.largo(movimiento.getFecha().getTime());
+                escritor.texto(movimiento.getDescripcion());
+                escritor.largo(Fijo.desde(movimiento.getCantidad()));
+            }
+            escritor.vaciar();
+            canal.force(true);
+        }
+        try {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Agrega al inventario (y a la lista de movimientos) el contenido de la
+    // instantánea y devuelve la secuencia del diario que ya incluye
+    public long cargar(Path archivo, Inventario inventario, List<MovimientoInventario> movimientos) throws IOException {
+        return cargar(archivo, inventario, movimientos, null);
+    }
+
+    // Como cargar(), pero si 'almacen' (puede ser null) se cerró con la misma
+    // secuencia, los ítems con cola en él la usan en lugar de sus lotes guardados
+    public long cargar(Path archivo, Inventario inventario, List<MovimientoInventario> movimientos,
+                       AlmacenMapeado almacen) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("La instantánea es demasiado grande: " + canal.size() + " bytes.");
+            }
+            MappedByteBuffer buffer = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            return leer(buffer, inventario, movimientos, almacen);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Instantánea truncada: " + archivo, e);
+        }
+    }
+
+    private long leer(ByteBuffer buffer, Inventario inventario, List<MovimientoInventario> movimientos,
+                      AlmacenMapeado almacen) throws IOException {
+        if (buffer.getInt() != MAGICO) {
+            throw new IOException("El archivo no es una instantánea de inventario.");
+        }
+        int version = buffer.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Versión de instantánea no soportada: " + version);
+        }
+        long secuenciaDiario = version >= 2 ? buffer.getLong() : 0;
+        if (almacen != null && almacen.getSecuenciaCierre() != secuenciaDiario) {
+            almacen = null; // Puede no coincidir con lo guardado
+        }
+
+        Ingrediente[] ingredientes = new Ingrediente[buffer.getInt()];
+        for (int i = 0; i < ingredientes.length; i++) {
+            String nombre = leerTexto(buffer);
+            String categoria = leerTexto(buffer);
+            ColaMapeada cola = colaExistente(almacen, Ingrediente.class, nombre);
+            if (cola != null) {
+                ingredientes[i] = new Ingrediente(nombre, categoria, cola);
+                saltarLotes(buffer, version);
+            } else {
+                ingredientes[i] = new Ingrediente(nombre, categoria);
+                leerLotes(buffer, version, ingredientes[i]);
+            }
+            inventario.agregarIngrediente(ingredientes[i]);
+        }
+
+        Envase[] envases = new Envase[buffer.getInt()];
+        for (int i = 0; i < envases.length; i++) {
+            String nombre = leerTexto(buffer);
+            String tipo = leerTexto(buffer);
+            ColaMapeada cola = colaExistente(almacen, Envase.class, nombre);
+            if (cola != null) {
+                envases[i] = new Envase(nombre, tipo, cola);
+                saltarLotes(buffer, version);
+            } else {
+                envases[i] = new Envase(nombre, tipo);
+                leerLotes(buffer, version, envases[i]);
+            }
+            inventario.agregarEnvase(envases[i]);
+        }
+
+        int numeroProductos = buffer.getInt();
+        for (int i = 0; i < numeroProductos; i++) {
+            String nombre = leerTexto(buffer);
+            String categoria = leerTexto(buffer);
+            Receta receta = new Receta();
+            int numeroIngredientes = buffer.getInt();
+            for (int j = 0; j < numeroIngredientes; j++) {
+                receta.agregarIngrediente(ingredientes[buffer.getInt()], buffer.getLong());
+            }
+            int numeroEnvases = buffer.getInt();
+            for (int j = 0; j < numeroEnvases; j++) {
+                receta.agregarEnvase(envases[buffer.getInt()], buffer.getLong());
+            }
+            ColaMapeada cola = colaExistente(almacen, Producto.class, nombre);
+            Producto producto;
+            if (cola != null) {
+                producto = new Producto(nombre, categoria, receta, cola);
+                saltarLotes(buffer, version);
+            } else {
+                producto = new Producto(nombre, categoria, receta);
+                leerLotes(buffer, version, producto);
+            }
+            inventario.agregarProducto(producto);
+        }
+
+        int numeroMovimientos = buffer.getInt();
+        for (int i = 0; i < numeroMovimientos; i++) {
+            String tipo = leerTexto(buffer);
+            Date fecha = new Date(buffer.getLong());
+            String descripcion = leerTexto(buffer);
+            BigDecimal cantidad = Fijo.aBigDecimal(buffer.getLong());
+            movimientos.add(new MovimientoInventario(tipo, fecha, descripcion, cantidad));
+        }
+        return secuenciaDiario;
+    }
+
+    private static ColaMapeada colaExistente(AlmacenMapeado almacen, Class<? extends ItemConLotes> tipo, String nombre) {
+        return almacen == null ? null : almacen.colaExistente(Inventario.nombreCola(tipo, nombre));
+    }
+
+    private void escribirLotes(Escritor escritor, ItemConLotes item) throws IOException {
+        List<Lote> lotes = item.getLotes();
+        escritor.entero(lotes.size());
+        int bytes = 0;
+        for (Lote lote : lotes) {
+            bytes += 1 + (lote.isCodigoCompacto() ? 2 * Long.BYTES
+                    : Integer.BYTES + lote.getCodigoLote().getBytes(StandardCharsets.UTF_8).length)
+                    + 3 * Long.BYTES + Integer.BYTES;
+        }
+        escritor.entero(bytes);
+        for (Lote lote : lotes) {
+            if (lote.isCodigoCompacto()) {
+                escritor.octeto(CODIGO_COMPACTO);
+                escritor.largo(lote.getCodigoAlto());
+                escritor.largo(lote.getCodigoBajo());
+            } else {
+                escritor.octeto(CODIGO_TEXTO);
+                escritor.texto(lote.getCodigoLote());
+            }
+            escritor.largo(lote.getCantidadFija());
+            escritor.largo(lote.getFechaIngresoMilis());
+            escritor.entero(lote.getDiaVencimiento());
+            escritor.largo(lote.getCostoUnitarioFijo());
+        }
+    }
+
+    private void leerLotes(ByteBuffer buffer, int version, ItemConLotes item) throws IOException {
+        int numeroLotes = buffer.getInt();
+        if (version >= 4) {
+            buffer.getInt(); // Bytes de los lotes, solo para saltarlos
+        }
+        if (version >= 3) {
+            for (int i = 0; i < numeroLotes; i++) {
+                byte tipoCodigo = buffer.get();
+                long alto = 0;
+                long bajo = 0;
+                String codigo = null;
+                if (tipoCodigo == CODIGO_COMPACTO) {
+                    alto = buffer.getLong();
+                    bajo = buffer.getLong();
+                } else if (tipoCodigo == CODIGO_TEXTO) {
+                    codigo = leerTexto(buffer);
+                } else {
+                    throw new IOException("Tipo de código de lote desconocido: " + tipoCodigo);
+                }
+                long cantidad = buffer.getLong();
+                long fechaIngreso = buffer.getLong();
+                int diaVencimiento = buffer.getInt();
+                long costoUnitario = buffer.getLong();
+                item.agregarLote(codigo == null
+                        ? Lote.restaurar(alto, bajo, cantidad, fechaIngreso, diaVencimiento, costoUnitario)
+                        : Lote.restaurar(codigo, cantidad, new Date(fechaIngreso), diaVencimiento, costoUnitario));
+            }
+            return;
+        }
+        for (int i = 0; i < numeroLotes; i++) {
+            String codigo = leerTexto(buffer);
+            long cantidad = buffer.getLong();
+            Date fechaIngreso = new Date(buffer.getLong());
+            long vencimiento = buffer.getLong();
+            Date fechaVencimiento = vencimiento == SIN_FECHA ? null : new Date(vencimiento);
+            long costoUnitario = buffer.getLong();
+            item.agregarLote(Lote.restaurar(codigo, cantidad, fechaIngreso, fechaVencimiento, costoUnitario));
+        }
+    }
+
+    // Pasa los lotes de un ítem sin crearlos; con la versión 4 es un solo salto
+    private void saltarLotes(ByteBuffer buffer, int version) throws IOException {
+        if (version >= 4) {
+            buffer.getInt();
+            int bytes = buffer.getInt();
+            if (bytes < 0 || bytes > buffer.remaining()) {
+                throw new BufferUnderflowException();
+            }
+            buffer.position(buffer.position() + bytes);
+            return;
+        }
+        leerLotes(buffer, version, new Ingrediente("", ""));
+    }
+
+    private void escribirReceta(Escritor escritor, Producto producto, Map<Ingrediente, Integer> indiceIngredientes,
+                                Map<Envase, Integer> indiceEnvases) throws IOException {
+        Receta receta = producto.getReceta();
+        escritor.entero(receta.getIngredientes().size());
+        for (Map.Entry<Ingrediente, Long> entry : receta.getIngredientes().entrySet()) {
+            escritor.entero(indice(indiceIngredientes, entry.getKey(), producto));
+            escritor.largo(entry.getValue());
+        }
+        escritor.entero(receta.getEnvases().size());
+        for (Map.Entry<Envase, Long> entry : receta.getEnvases().entrySet()) {
+            escritor.entero(indice(indiceEnvases, entry.getKey(), producto));
+            escritor.largo(entry.getValue());
+        }
+    }
+
+    private static <T extends ItemConLotes> int indice(Map<T, Integer> indices, T item, Producto producto) throws IOException {
+        Integer indice = indices.get(item);
+        if (indice == null) {
+            throw new IOException("La receta de " + producto.getNombre() + " usa '" + item.getNombre()
+                    + "', que no está registrado en el inventario.");
+        }
+        return indice;
+    }
+
+    private static String leerTexto(ByteBuffer buffer) {
+        int largo = buffer.getInt();
+        if (largo < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[largo];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Escritura con un único buffer directo que se vacía al canal cuando se llena
+    private static class Escritor {
+        private final FileChannel canal;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANO_BUFFER);
+
+        Escritor(FileChannel canal) {
+            this.canal = canal;
+        }
+
+        void entero(int valor) throws IOException {
+            asegurar(Integer.BYTES);
+            buffer.putInt(valor);
+        }
+
+        void octeto(byte valor) throws IOException {
+            asegurar(1);
+            buffer.put(valor);
+        }
+
+        void largo(long valor) throws IOException {
+            asegurar(Long.BYTES);
+            buffer.putLong(valor);
+        }
+
+        void texto(String valor) throws IOException {
+            if (valor == null) {
+                entero(-1);
+                return;
+            }
+            byte[] bytes = valor.getBytes(StandardCharsets.UTF_8);
+            entero(bytes.length);
+            int escritos = 0;
+            while (escritos < bytes.length) {
+                asegurar(1);
+                int n = Math.min(buffer.remaining(), bytes.length - escritos);
+                buffer.put(bytes, escritos, n);
+                escritos += n;
+            }
+        }
+
+        private void asegurar(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                vaciar();
+            }
+        }
+
+        void vaciar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                canal.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
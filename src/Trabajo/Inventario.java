@@ -1,97 +1,191 @@
 package Trabajo;
 
-import java.util.ArrayList;
+import java.io.IOException;
 import java.util.List;
-import java.math.BigDecimal;
 
+// Catálogo de ingredientes, envases y productos. Se puede usar desde varios
+// hilos: las altas se agregan a listas de solo-anexar y a índices concurrentes,
+// y las búsquedas y recorridos no bloquean.
 public class Inventario {
-    private final ArrayList<Ingrediente> ingredientes;
-    private final ArrayList<Envase> envases;
-    private final ArrayList<Producto> productos;
+    private static final int MAX_RESULTADOS_BUSQUEDA = 3;
+
+    private final ListaSoloAnexar<Ingrediente> ingredientes;
+    private final ListaSoloAnexar<Envase> envases;
+    private final ListaSoloAnexar<Producto> productos;
+
+    private final IndiceNombres<Ingrediente> indiceIngredientes;
+    private final IndiceNombres<Envase> indiceEnvases;
+    private final IndiceNombres<Producto> indiceProductos;
+
+    // Todos los ítems numerados en orden de alta, para las recetas compiladas
+    private final ListaSoloAnexar<ItemConLotes> items;
+
+    // Lotes de todos los ítems registrados, por día de vencimiento
+    private final IndiceVencimientos indiceVencimientos;
+
+    // Copia columnar de los lotes para los recorridos de todo el inventario; null si no se activó
+    private volatile AlmacenColumnar almacenColumnar;
+
+    // Dónde viven los lotes si están fuera del heap; null si no se activó
+    private volatile AlmacenMapeado almacenMapeado;
 
     public Inventario() {
-        this.ingredientes = new ArrayList<>();
-        this.envases = new ArrayList<>();
-        this.productos = new ArrayList<>();
+        this.ingredientes = new ListaSoloAnexar<>();
+        this.envases = new ListaSoloAnexar<>();
+        this.productos = new ListaSoloAnexar<>();
+        this.indiceIngredientes = new IndiceNombres<>(Ingrediente::getNombre);
+        this.indiceEnvases = new IndiceNombres<>(Envase::getNombre);
+        this.indiceProductos = new IndiceNombres<>(Producto::getNombre);
+        this.items = new ListaSoloAnexar<>();
+        this.indiceVencimientos = new IndiceVencimientos();
     }
 
     public void agregarIngrediente(Ingrediente ingrediente) {
+        numerar(ingrediente);
         ingredientes.add(ingrediente);
+        indiceIngredientes.agregar(ingrediente);
     }
 
     public void agregarEnvase(Envase envase) {
+        numerar(envase);
         envases.add(envase);
+        indiceEnvases.agregar(envase);
     }
 
     public void agregarProducto(Producto producto) {
+        numerar(producto);
         productos.add(producto);
+        indiceProductos.agregar(producto);
     }
 
-    public Ingrediente buscarIngrediente(String nombre) {
-        for (Ingrediente ingrediente : ingredientes) {
-            if (ingrediente.getNombre().equalsIgnoreCase(nombre)) {
-                return ingrediente;
-            }
+    private synchronized void numerar(ItemConLotes item) {
+        if (item.getNumero() >= 0) {
+            throw new IllegalArgumentException("'" + item.getNombre() + "' ya está registrado en un inventario.");
+        }
+        item.setNumero(items.size());
+        items.add(item);
+        item.setIndiceVencimientos(indiceVencimientos);
+        if (almacenColumnar != null) {
+            item.setAlmacenColumnar(almacenColumnar);
+        }
+        if (almacenMapeado != null) {
+            item.setColaMapeada(almacenMapeado.cola(nombreCola(item)));
         }
-        return null;
     }
 
-    public Envase buscarEnvase(String nombre) {
-        for (Envase envase : envases) {
-            if (envase.getNombre().equalsIgnoreCase(nombre)) {
-                return envase;
+    // Crea el almacén columnar con los lotes de los ítems ya registrados; los
+    // que se registren después se agregan solos. Cuesta unos 28 bytes por lote.
+    public synchronized AlmacenColumnar activarAlmacenColumnar() {
+        if (almacenColumnar == null) {
+            AlmacenColumnar almacen = new AlmacenColumnar();
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).setAlmacenColumnar(almacen);
             }
+            almacenColumnar = almacen;
         }
-        return null;
+        return almacenColumnar;
     }
 
-    public Producto buscarProducto(String nombre) {
-        for (Producto producto : productos) {
-            if (producto.getNombre().equalsIgnoreCase(nombre)) {
-                return producto;
-            }
+    public AlmacenColumnar getAlmacenColumnar() {
+        return almacenColumnar;
+    }
+
+    // Pasa los lotes de cada ítem registrado a su cola en 'almacen' (ver
+    // ItemConLotes.setColaMapeada); los que se registren después también van allí.
+    public synchronized void activarAlmacenMapeado(AlmacenMapeado almacen) {
+        if (almacenMapeado != null) {
+            throw new IllegalStateException("El inventario ya tiene un almacén mapeado.");
         }
-        return null;
+        for (int i = 0; i < items.size(); i++) {
+            items.get(i).setColaMapeada(almacen.cola(nombreCola(items.get(i))));
+        }
+        almacenMapeado = almacen;
+    }
+
+    // Un ingrediente y un envase pueden llamarse igual: el tipo va en el nombre de la cola
+    static String nombreCola(ItemConLotes item) {
+        return nombreCola(item.getClass(), item.getNombre());
+    }
+
+    static String nombreCola(Class<? extends ItemConLotes> tipo, String nombre) {
+        return tipo.getSimpleName() + ":" + nombre;
+    }
+
+    public IndiceVencimientos getIndiceVencimientos() {
+        return indiceVencimientos;
+    }
+
+    public ItemConLotes getItem(int numero) {
+        return items.get(numero);
+    }
+
+    public int getNumeroItems() {
+        return items.size();
+    }
+
+    // Stock disponible (sin lo reservado) de cada ítem, indexado por número
+    public long[] capturarStock() {
+        int n = items.size();
+        long[] stock = new long[n];
+        for (int i = 0; i < n; i++) {
+            stock[i] = items.get(i).obtenerCantidadDisponibleFija();
+        }
+        return stock;
+    }
+
+    // Costo unitario promedio del stock de cada ítem, indexado por número
+    public long[] capturarCostosUnitarios() {
+        int n = items.size();
+        long[] costos = new long[n];
+        for (int i = 0; i < n; i++) {
+            ItemConLotes item = items.get(i);
+            long cantidad = item.obtenerCantidadTotalFija();
+            costos[i] = cantidad == 0 ? 0 : Fijo.dividir(item.calcularCostoTotalFijo(), cantidad);
+        }
+        return costos;
+    }
+
+    public Ingrediente buscarIngrediente(String nombre) {
+        long inicio = Metricas.inicio();
+        Ingrediente encontrado = indiceIngredientes.buscarExacto(nombre);
+        Metricas.registrar(Metricas.BUSQUEDA, inicio);
+        return encontrado;
+    }
+
+    public Envase buscarEnvase(String nombre) {
+        long inicio = Metricas.inicio();
+        Envase encontrado = indiceEnvases.buscarExacto(nombre);
+        Metricas.registrar(Metricas.BUSQUEDA, inicio);
+        return encontrado;
+    }
+
+    public Producto buscarProducto(String nombre) {
+        long inicio = Metricas.inicio();
+        Producto encontrado = indiceProductos.buscarExacto(nombre);
+        Metricas.registrar(Metricas.BUSQUEDA, inicio);
+        return encontrado;
     }
 
     // Nuevos métodos de búsqueda parcial
     public List<Ingrediente> buscarIngredientes(String nombre) {
-        List<Ingrediente> resultados = new ArrayList<>();
-        for (Ingrediente ingrediente : ingredientes) {
-            if (ingrediente.getNombre().toLowerCase().contains(nombre.toLowerCase())) {
-                resultados.add(ingrediente);
-                if (resultados.size() == 3) {
-                    break;
-                }
-            }
-        }
-        return resultados;
+        long inicio = Metricas.inicio();
+        List<Ingrediente> encontrados = indiceIngredientes.buscarParcial(nombre, MAX_RESULTADOS_BUSQUEDA);
+        Metricas.registrar(Metricas.BUSQUEDA, inicio);
+        return encontrados;
     }
 
     public List<Envase> buscarEnvases(String nombre) {
-        List<Envase> resultados = new ArrayList<>();
-        for (Envase envase : envases) {
-            if (envase.getNombre().toLowerCase().contains(nombre.toLowerCase())) {
-                resultados.add(envase);
-                if (resultados.size() == 3) {
-                    break;
-                }
-            }
-        }
-        return resultados;
+        long inicio = Metricas.inicio();
+        List<Envase> encontrados = indiceEnvases.buscarParcial(nombre, MAX_RESULTADOS_BUSQUEDA);
+        Metricas.registrar(Metricas.BUSQUEDA, inicio);
+        return encontrados;
     }
 
     public List<Producto> buscarProductos(String nombre) {
-        List<Producto> resultados = new ArrayList<>();
-        for (Producto producto : productos) {
-            if (producto.getNombre().toLowerCase().contains(nombre.toLowerCase())) {
-                resultados.add(producto);
-                if (resultados.size() == 3) {
-                    break;
-                }
-            }
-        }
-        return resultados;
+        long inicio = Metricas.inicio();
+        List<Producto> encontrados = indiceProductos.buscarParcial(nombre, MAX_RESULTADOS_BUSQUEDA);
+        Metricas.registrar(Metricas.BUSQUEDA, inicio);
+        return encontrados;
     }
 
     public List<Ingrediente> getIngredientes() {
@@ -106,66 +200,35 @@ public class Inventario {
         return productos;
     }
 
+    // Reportes por consola: pasan por EscritorReportes y se vacían una vez al final
     public void generarReporteProductos() {
-        if (productos.isEmpty()) {
-            System.out.println("No hay productos registrados en el inventario.");
-            return;
-        }
-
-        System.out.println("============================");
-        System.out.println("=== Reporte de Productos ===");
-        for (Producto producto : productos) {
-            System.out.println(producto);
-        }
+        reporteConsola(escritor -> escritor.reporteProductos(productos));
     }
 
     public void generarReporteIngredientes() {
-
-        if (ingredientes.isEmpty()) {
-            System.out.println("No hay ingredientes registrados en el inventario.");
-            return;
-        }
-
-        System.out.println("=== Reporte de Ingredientes ===");
-        for (Ingrediente ingrediente : ingredientes) {
-            System.out.println(ingrediente);
-        }
+        reporteConsola(escritor -> escritor.reporteIngredientes(ingredientes));
     }
 
     public void generarReporteEnvases() {
-
-        if (envases.isEmpty()) {
-            System.out.println("No hay envases registrados en el inventario.");
-            return;
-        }
-
-        System.out.println("=== Reporte de Envases ===");
-        for (Envase envase : envases) {
-            System.out.println(envase);
-        }
+        reporteConsola(escritor -> escritor.reporteEnvases(envases));
     }
 
     public void generarReporteGeneral() {
-        System.out.println("=== Reporte General ===");
-        BigDecimal valorTotalProductos = BigDecimal.ZERO;
-        BigDecimal valorTotalIngredientes = BigDecimal.ZERO;
-        BigDecimal valorTotalEnvases = BigDecimal.ZERO;
-
-        for (Producto producto : productos) {
-            valorTotalProductos = valorTotalProductos.add(producto.calcularCostoTotal());
-        }
-        for (Ingrediente ingrediente : ingredientes) {
-            valorTotalIngredientes = valorTotalIngredientes.add(ingrediente.calcularCostoTotal());
-        }
-        for (Envase envase : envases) {
-            valorTotalEnvases = valorTotalEnvases.add(envase.calcularCostoTotal());
-        }
+        reporteConsola(escritor -> escritor.reporteGeneral(this));
+    }
 
-        BigDecimal valorTotal = valorTotalProductos.add(valorTotalIngredientes).add(valorTotalEnvases);
+    private interface Reporte {
+        void escribir(EscritorReportes escritor) throws IOException;
+    }
 
-        System.out.println("Valor total de productos en almacén y en producción: S/." + valorTotalProductos);
-        System.out.println("Valor total de ingredientes en almacén: S/." + valorTotalIngredientes);
-        System.out.println("Valor total de envases en almacén: S/." + valorTotalEnvases);
-        System.out.println("Valor total del inventario: S/." + valorTotal);
+    private void reporteConsola(Reporte reporte) {
+        // System.out no se cierra, solo se vacía
+        EscritorReportes escritor = new EscritorReportes(System.out, EscritorReportes.Formato.TEXTO);
+        try {
+            reporte.escribir(escritor);
+            escritor.flush();
+        } catch (IOException e) {
+            System.out.println("Error al escribir el reporte: " + e.getMessage());
+        }
     }
 }
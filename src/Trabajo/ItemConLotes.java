@@ -0,0 +1,717 @@
+package Trabajo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// Base común de Ingrediente, Envase y Producto: guarda los lotes y mantiene
+// acumulados (cantidad, costo y número de lotes) que se actualizan al agregar,
+// consumir o reducir lotes, para que las consultas de stock sean O(1).
+// Los acumulados están en punto fijo (ver Fijo); BigDecimal solo al consultar.
+// El orden de consumo de los lotes lo define la cola (ver PoliticaConsumo).
+//
+// Concurrencia: cada ítem tiene su propio lock para las modificaciones; las
+// consultas de los acumulados leen campos volátiles sin bloquear. Cuando una
+// operación necesita varios ítems a la vez (una receta) los bloquea según
+// 'ordenBloqueo', un orden global fijo, para que dos órdenes no se bloqueen
+// mutuamente (ver reservarTodos).
+//
+// Con CargadorPerezoso los lotes quedan en data.txt hasta el primer acceso
+// al stock o a los lotes del ítem (ver asegurarAcumulados y asegurarLotes).
+//
+// Con una ColaMapeada los lotes viven fuera del heap (ver AlmacenMapeado): los
+// acumulados se toman de la cola al crear el ítem o al pasarlo a ella (ver
+// setColaMapeada) y sus lotes no entran en IndiceVencimientos ni en AlmacenColumnar.
+public abstract class ItemConLotes {
+    private static final AtomicLong SIGUIENTE_ORDEN = new AtomicLong();
+    private static final int SIN_LEER = 0;    // Lotes y acumulados todavía en data.txt
+    private static final int CARGADOS = 1;
+    private static final int DESCARGADOS = 2; // Lotes fuera de memoria, acumulados al día
+
+    private final String nombre;
+    private Cola<Lote> lotes; // Se reemplaza solo con setPoliticaConsumo, bajo el lock
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long ordenBloqueo = SIGUIENTE_ORDEN.getAndIncrement();
+    private volatile int numero = -1; // Posición en la tabla de ítems del Inventario, ver RecetaCompilada
+    private IndiceVencimientos indiceVencimientos; // El del Inventario; se usa bajo el lock
+    private AlmacenColumnar almacen; // El del Inventario si tiene uno; se usa bajo el lock
+
+    // Carga perezosa: de dónde leer los lotes (null si se cargaron de entrada)
+    private CargadorPerezoso.Bloque bloque;
+    private volatile int estadoLotes = CARGADOS;
+    private volatile boolean modificado; // Cambió desde que se leyó: ya no se puede descargar
+    boolean referenciado; // Usado desde la última vuelta del reloj de CargadorPerezoso
+
+    // Acumulados de los lotes actuales
+    private volatile long cantidadTotal = 0;
+    private volatile long costoTotal = 0;
+    private volatile long costoUnitarioTotal = 0;
+    private volatile int numeroLotes = 0;
+    private volatile long reservado = 0; // Stock apartado por órdenes de producción en curso
+
+    protected ItemConLotes(String nombre) {
+        this(nombre, PoliticaConsumo.predeterminada().nuevaCola());
+    }
+
+    protected ItemConLotes(String nombre, Cola<Lote> lotes) {
+        this.nombre = nombre;
+        this.lotes = lotes;
+        if (lotes instanceof ColaMapeada) {
+            ColaMapeada mapeada = (ColaMapeada) lotes;
+            mapeada.setPropietario(this);
+            cantidadTotal = mapeada.getCantidadTotal();
+            costoTotal = mapeada.getCostoTotal();
+            costoUnitarioTotal = mapeada.getCostoUnitarioTotal();
+            numeroLotes = mapeada.size();
+        }
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public void agregarLote(Lote lote) {
+        lock.lock();
+        try {
+            asegurarLotes();
+            // Los acumulados se calculan antes de tocar la cola: si desbordan, el lote no entra
+            long cantidad = Fijo.sumar(cantidadTotal, lote.getCantidadFija());
+            long costo = Fijo.sumar(costoTotal, lote.getCostoTotalFijo());
+            long costoUnitario = Fijo.sumar(costoUnitarioTotal, lote.getCostoUnitarioFijo());
+            lotes.addLast(lote);
+            modificado = true;
+            lote.setPropietario(this);
+            cantidadTotal = cantidad;
+            costoTotal = costo;
+            costoUnitarioTotal = costoUnitario;
+            numeroLotes++;
+            indexarAgregado(lote);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Ingresa 'lote' y lo registra en 'diario' (puede ser null). Como en
+    // retirarVencidos, el registro se encola con el lock del ítem tomado, así
+    // el diario tiene los movimientos del ítem en el orden en que se aplicaron
+    // (con FEFO el lugar del lote en la cola decide qué consumen las órdenes
+    // siguientes), y la espera hasta que sea durable va después de soltarlo.
+    // Si el diario rechaza el registro, el lote no entra.
+    public void agregarLote(Lote lote, DiarioMovimientos diario) {
+        if (diario == null) {
+            agregarLote(lote);
+            return;
+        }
+        diario.iniciarOperacion();
+        try {
+            long secuencia;
+            lock.lock();
+            try {
+                secuencia = diario.registrarIngresoLote(this, lote);
+                agregarLote(lote);
+            } finally {
+                lock.unlock();
+            }
+            diario.esperarRegistro(secuencia);
+        } finally {
+            diario.terminarOperacion();
+        }
+    }
+
+    // -1 si el ítem no está registrado en un Inventario
+    public int getNumero() {
+        return numero;
+    }
+
+    void setNumero(int numero) {
+        this.numero = numero;
+    }
+
+    // Solo antes de registrar el ítem en el Inventario (ver CargadorPerezoso)
+    void setBloque(CargadorPerezoso.Bloque bloque) {
+        this.bloque = bloque;
+        this.estadoLotes = SIN_LEER;
+    }
+
+    // Los acumulados se calculan al leer los lotes por primera vez y sobreviven a descargar()
+    private void asegurarAcumulados() {
+        if (estadoLotes == SIN_LEER) {
+            asegurarLotes();
+        }
+    }
+
+    // Lee los lotes de data.txt si no están en memoria; con o sin el lock tomado
+    private void asegurarLotes() {
+        if (bloque == null) {
+            return;
+        }
+        referenciado = true;
+        if (estadoLotes == CARGADOS) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (estadoLotes == CARGADOS) {
+                return;
+            }
+            boolean primeraVez = estadoLotes == SIN_LEER;
+            for (Lote lote : bloque.leer(primeraVez)) {
+                lotes.addLast(lote);
+                lote.setPropietario(this);
+                if (primeraVez) {
+                    cantidadTotal = Fijo.sumar(cantidadTotal, lote.getCantidadFija());
+                    costoTotal = Fijo.sumar(costoTotal, lote.getCostoTotalFijo());
+                    costoUnitarioTotal = Fijo.sumar(costoUnitarioTotal, lote.getCostoUnitarioFijo());
+                    numeroLotes++;
+                }
+                indexarAgregado(lote);
+            }
+            estadoLotes = CARGADOS;
+            bloque.cargado(this);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Saca de memoria los lotes leídos de data.txt si el ítem no cambió desde
+    // entonces y no tiene stock reservado; se vuelven a leer en el próximo acceso.
+    // No espera el lock: si el ítem está en uso, no se descarga.
+    boolean descargar() {
+        if (!lock.tryLock()) {
+            return false;
+        }
+        try {
+            if (bloque == null || estadoLotes != CARGADOS || modificado || reservado != 0) {
+                return false;
+            }
+            Cola<Lote> vacia = getPoliticaConsumo().nuevaCola();
+            for (Lote lote : lotes) {
+                indexarRetirado(lote);
+                lote.setPropietario(null);
+            }
+            lotes = vacia;
+            estadoLotes = DESCARGADOS;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isModificado() {
+        return modificado;
+    }
+
+    // Falso si hay lotes que siguen en data.txt (carga perezosa sin leer o
+    // descargada) o que viven en un AlmacenMapeado
+    boolean isLotesEnMemoria() {
+        return estadoLotes == CARGADOS && !isLotesMapeados();
+    }
+
+    // Verdadero si los lotes están en un AlmacenMapeado: no aparecen en el
+    // índice de vencimientos (ver BarridoVencimientos)
+    boolean isLotesMapeados() {
+        return lotes instanceof ColaMapeada;
+    }
+
+    // Conecta el ítem al índice de vencimientos del Inventario e indexa los lotes que ya tiene
+    void setIndiceVencimientos(IndiceVencimientos indice) {
+        lock.lock();
+        try {
+            indiceVencimientos = indice;
+            if (!isLotesMapeados()) {
+                for (Lote lote : lotes) {
+                    indice.agregado(lote);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Conecta el ítem al almacén columnar del Inventario y copia allí los lotes que ya tiene
+    void setAlmacenColumnar(AlmacenColumnar almacen) {
+        lock.lock();
+        try {
+            this.almacen = almacen;
+            if (!isLotesMapeados()) {
+                for (Lote lote : lotes) {
+                    almacen.agregado(lote, numero);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Pasa los lotes del ítem a una cola de un AlmacenMapeado (ver
+    // Inventario.activarAlmacenMapeado). Si la cola ya tiene lotes (un almacén
+    // reabierto al día) mandan esos y se descartan los de memoria; si está
+    // vacía, los lotes actuales se copian a ella en orden de consumo.
+    void setColaMapeada(ColaMapeada cola) {
+        lock.lock();
+        try {
+            if (lotes == cola) {
+                return;
+            }
+            asegurarLotes();
+            cola.setPropietario(this);
+            if (cola.isEmpty()) {
+                // Todo o nada: si un lote no entra (código largo, disco lleno) el ítem queda como estaba
+                for (Lote lote : lotes) {
+                    indexarRetirado(lote); // Antes de addLast, que cambia su posición
+                }
+                try {
+                    for (Lote lote : lotes) {
+                        cola.addLast(lote);
+                    }
+                } catch (RuntimeException e) {
+                    while (!cola.isEmpty()) {
+                        cola.removeFirst();
+                    }
+                    for (Lote lote : lotes) {
+                        indexarAgregado(lote);
+                    }
+                    throw e;
+                }
+            } else {
+                for (Lote lote : lotes) {
+                    indexarRetirado(lote);
+                    lote.setPropietario(null);
+                }
+                cantidadTotal = cola.getCantidadTotal();
+                costoTotal = cola.getCostoTotal();
+                costoUnitarioTotal = cola.getCostoUnitarioTotal();
+                numeroLotes = cola.size();
+            }
+            lotes = cola;
+            modificado = true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Avisos al índice de vencimientos y al almacén columnar, con el lock tomado
+    private void indexarAgregado(Lote lote) {
+        if (isLotesMapeados()) {
+            return;
+        }
+        if (indiceVencimientos != null) {
+            indiceVencimientos.agregado(lote);
+        }
+        if (almacen != null) {
+            almacen.agregado(lote, numero);
+        }
+    }
+
+    private void indexarRetirado(Lote lote) {
+        if (isLotesMapeados()) {
+            return;
+        }
+        if (indiceVencimientos != null) {
+            indiceVencimientos.retirado(lote);
+        }
+        if (almacen != null) {
+            almacen.retirado(lote, numero);
+        }
+    }
+
+    public PoliticaConsumo getPoliticaConsumo() {
+        lock.lock();
+        try {
+            return lotes instanceof ColaVencimiento ? PoliticaConsumo.FEFO : PoliticaConsumo.FIFO;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Cambia el orden de consumo pasando los lotes actuales a una cola nueva.
+    // Una ColaMapeada es FIFO: pasar a FEFO trae sus lotes al heap.
+    public void setPoliticaConsumo(PoliticaConsumo politica) {
+        lock.lock();
+        try {
+            asegurarLotes();
+            if (politica == getPoliticaConsumo()) {
+                return;
+            }
+            boolean mapeados = isLotesMapeados();
+            Cola<Lote> nueva = politica.nuevaCola();
+            while (!lotes.isEmpty()) {
+                nueva.addLast(lotes.removeFirst());
+            }
+            lotes = nueva;
+            if (mapeados) {
+                for (Lote lote : lotes) {
+                    indexarAgregado(lote);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public BigDecimal obtenerCantidadTotal() {
+        asegurarAcumulados();
+        return Fijo.aBigDecimal(cantidadTotal);
+    }
+
+    public long obtenerCantidadTotalFija() {
+        asegurarAcumulados();
+        return cantidadTotal;
+    }
+
+    public BigDecimal calcularCostoTotal() {
+        asegurarAcumulados();
+        return Fijo.aBigDecimalEscalado(costoTotal).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public long calcularCostoTotalFijo() {
+        asegurarAcumulados();
+        return costoTotal;
+    }
+
+    public BigDecimal calcularCostoUnitarioTotal() {
+        asegurarAcumulados();
+        return Fijo.aBigDecimalEscalado(costoUnitarioTotal).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public long calcularCostoUnitarioTotalFijo() {
+        asegurarAcumulados();
+        return costoUnitarioTotal;
+    }
+
+    public int getNumeroLotes() {
+        asegurarAcumulados();
+        return numeroLotes;
+    }
+
+    public void consumirCantidad(BigDecimal cantidad) throws StockBajoException {
+        consumirCantidad(Fijo.desde(cantidad));
+    }
+
+    // Consume sin tocar ningún lote si no alcanza el stock disponible (sin contar lo reservado)
+    public void consumirCantidad(long cantidad) throws StockBajoException {
+        long inicio = Metricas.inicio();
+        lock.lock();
+        try {
+            asegurarLotes();
+            if (cantidad > cantidadTotal - reservado) {
+                throw stockInsuficiente();
+            }
+            consumirLotes(cantidad);
+        } finally {
+            lock.unlock();
+        }
+        Metricas.contar(Metricas.CONSUMOS);
+        Metricas.registrar(Metricas.CONSUMO, inicio);
+    }
+
+    public long obtenerCantidadDisponibleFija() {
+        asegurarAcumulados();
+        return cantidadTotal - reservado;
+    }
+
+    // Reserva en todos los ítems o en ninguno. Los locks se toman en el orden
+    // global, se verifica todo y recién entonces se reserva.
+    static void reservarTodos(ItemConLotes[] items, long[] cantidades) throws StockBajoException {
+        Integer[] orden = new Integer[items.length];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> Long.compare(items[a].ordenBloqueo, items[b].ordenBloqueo));
+        // Los lotes que falten se leen antes, sin tener tomados los locks de los demás
+        for (ItemConLotes item : items) {
+            item.asegurarAcumulados();
+        }
+        int bloqueados = 0;
+        try {
+            for (; bloqueados < orden.length; bloqueados++) {
+                items[orden[bloqueados]].lock.lock();
+            }
+            for (int i = 0; i < items.length; i++) {
+                if (cantidades[i] > items[i].cantidadTotal - items[i].reservado) {
+                    throw items[i].stockInsuficiente();
+                }
+            }
+            for (int i = 0; i < items.length; i++) {
+                items[i].reservado += cantidades[i];
+            }
+        } finally {
+            while (bloqueados > 0) {
+                items[orden[--bloqueados]].lock.unlock();
+            }
+        }
+    }
+
+    void liberarReserva(long cantidad) {
+        lock.lock();
+        try {
+            reservado -= cantidad;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Consume lo reservado antes con reservarTodos(); no puede quedarse sin stock
+    void consumirReservado(long cantidad) {
+        long inicio = Metricas.inicio();
+        lock.lock();
+        try {
+            asegurarLotes();
+            reservado -= cantidad;
+            consumirLotes(cantidad);
+        } finally {
+            lock.unlock();
+        }
+        Metricas.contar(Metricas.CONSUMOS);
+        Metricas.registrar(Metricas.CONSUMO, inicio);
+    }
+
+    // Aplica una orden ya reservada con reservarTodos(): agrega 'lote' a
+    // 'destino' y consume lo reservado de cada ítem, con los locks de todos
+    // (destino incluido) tomados en el orden global. 'registro' corre con los
+    // locks tomados, después de agregar el lote y antes de consumir, y devuelve
+    // la secuencia de la orden en el diario (o -1): ningún otro movimiento de
+    // estos ítems, como un barrido o un ingreso, puede quedar entre el registro
+    // y el consumo. Si agregar el lote o el registro fallan, se libera lo
+    // reservado y no cambia nada; el consumo ya no puede fallar por stock.
+    static long aplicarOrden(ItemConLotes[] items, long[] cantidades, ItemConLotes destino, Lote lote,
+                             LongSupplier registro) {
+        ItemConLotes[] bloqueo = Arrays.copyOf(items, items.length + 1);
+        bloqueo[items.length] = destino;
+        Arrays.sort(bloqueo, (a, b) -> Long.compare(a.ordenBloqueo, b.ordenBloqueo));
+        // Como en reservarTodos, lo que falte se lee sin tener tomados los demás locks
+        for (ItemConLotes item : bloqueo) {
+            item.asegurarLotes();
+        }
+        int bloqueados = 0;
+        try {
+            for (; bloqueados < bloqueo.length; bloqueados++) {
+                bloqueo[bloqueados].lock.lock();
+            }
+            long secuencia;
+            try {
+                destino.agregarLote(lote);
+                try {
+                    secuencia = registro.getAsLong();
+                } catch (RuntimeException e) {
+                    destino.retirarLotes(List.of(lote.getCodigoLote()));
+                    throw e;
+                }
+            } catch (RuntimeException e) {
+                for (int i = 0; i < items.length; i++) {
+                    items[i].reservado -= cantidades[i];
+                }
+                throw e;
+            }
+            for (int i = 0; i < items.length; i++) {
+                items[i].consumirReservado(cantidades[i]);
+            }
+            return secuencia;
+        } finally {
+            while (bloqueados > 0) {
+                bloqueo[--bloqueados].lock.unlock();
+            }
+        }
+    }
+
+    private void consumirLotes(long cantidad) {
+        modificado = true;
+        long cantidadRestante = cantidad;
+        // Los lotes se consumen por el frente de la cola (el más antiguo o el que vence
+        // primero): el costo depende solo de los lotes tocados
+        while (!lotes.isEmpty() && cantidadRestante > 0) {
+            Lote lote = lotes.getFirst();
+            long cantidadLote = lote.getCantidadFija();
+            if (cantidadLote <= cantidadRestante) {
+                cantidadRestante -= cantidadLote;
+                lotes.removeFirst();
+                loteRetirado(lote);
+            } else {
+                reducirLote(lote, cantidadRestante);
+                cantidadRestante = 0;
+            }
+        }
+        if (cantidadRestante > 0) {
+            // Los acumulados dijeron que alcanzaba: los lotes no coinciden con ellos
+            throw new IllegalStateException("Los lotes de " + nombre + " no coinciden con su stock total.");
+        }
+    }
+
+    // Llamado por Lote.reducirCantidad para mantener los acumulados al día
+    void reducirLote(Lote lote, long cantidadReducir) {
+        lock.lock();
+        try {
+            if (isLotesMapeados()) {
+                // Manda el registro: el Lote es una copia que puede estar vieja
+                long costoReducido = lote.getPropietario() == this
+                        ? ((ColaMapeada) lotes).reducir(lote, cantidadReducir) : -1;
+                lote.restarCantidad(cantidadReducir);
+                if (costoReducido >= 0) {
+                    modificado = true;
+                    cantidadTotal -= cantidadReducir;
+                    costoTotal -= costoReducido;
+                }
+                return;
+            }
+            long costoReducido = lote.restarCantidad(cantidadReducir);
+            if (lote.getPropietario() == this) {
+                modificado = true;
+                cantidadTotal -= cantidadReducir;
+                costoTotal -= costoReducido;
+                if (indiceVencimientos != null) {
+                    indiceVencimientos.reducido(lote, cantidadReducir, costoReducido);
+                }
+                if (almacen != null) {
+                    almacen.reducido(lote, numero);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Retira los lotes que vencieron antes de 'corte' y los devuelve en orden de
+    // consumo. No retira un lote si el stock restante no cubriría lo reservado
+    // (queda para el próximo barrido). Con diario, el registro (los códigos de
+    // los lotes retirados) se encola con el lock tomado, y los ingresos y las
+    // órdenes que tocan el ítem también registran con su lock tomado (ver
+    // agregarLote y aplicarOrden): el diario queda en el mismo orden en que se
+    // aplicaron. La espera hasta que sea durable va después de soltarlo: el
+    // ítem no queda bloqueado durante el force(). Si esa
+    // escritura falla, el retiro ya está aplicado en memoria; los lotes vuelven
+    // al recuperar y el próximo barrido los retira otra vez.
+    List<Lote> retirarVencidos(LocalDate corte, DiarioMovimientos diario) {
+        if (diario != null) {
+            diario.iniciarOperacion(); // Antes del lock del ítem, como en Produccion
+        }
+        try {
+            long secuencia = -1;
+            List<Lote> vencidos;
+            lock.lock();
+            try {
+                asegurarLotes();
+                // Los vencidos se marcan por su posición en el orden de consumo, que es
+                // el de removeFirst (una ColaMapeada entrega copias al recorrerla)
+                BitSet retirar = new BitSet();
+                List<Lote> marcados = new ArrayList<>();
+                long disponible = cantidadTotal - reservado;
+                int posicion = 0;
+                for (Lote lote : lotes) {
+                    LocalDate dia = IndiceVencimientos.dia(lote);
+                    if (dia != null && dia.isBefore(corte) && lote.getCantidadFija() <= disponible) {
+                        retirar.set(posicion);
+                        marcados.add(lote);
+                        disponible -= lote.getCantidadFija();
+                    }
+                    posicion++;
+                }
+                if (marcados.isEmpty()) {
+                    return marcados;
+                }
+                if (diario != null) {
+                    secuencia = diario.registrarRetiroVencidos(this, marcados);
+                }
+                vencidos = retirarPosiciones(retirar);
+            } finally {
+                lock.unlock();
+            }
+            if (secuencia >= 0) {
+                diario.esperarRegistro(secuencia);
+            }
+            return vencidos;
+        } finally {
+            if (diario != null) {
+                diario.terminarOperacion();
+            }
+        }
+    }
+
+    // Retira los lotes con esos códigos, sin mirar vencimientos ni reservas: al
+    // reproducir el diario se retiran los mismos lotes que en la sesión original
+    List<Lote> retirarLotes(Collection<String> codigos) {
+        lock.lock();
+        try {
+            asegurarLotes();
+            Set<String> pendientes = new HashSet<>(codigos);
+            BitSet retirar = new BitSet();
+            int posicion = 0;
+            for (Lote lote : lotes) {
+                if (pendientes.remove(lote.getCodigoLote())) {
+                    retirar.set(posicion);
+                }
+                posicion++;
+            }
+            return retirar.isEmpty() ? new ArrayList<>() : retirarPosiciones(retirar);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Saca los lotes de las posiciones marcadas (en orden de consumo) y los
+    // devuelve; con el lock tomado
+    private List<Lote> retirarPosiciones(BitSet retirar) {
+        modificado = true;
+        List<Lote> retirados = lotes.retirar(retirar);
+        for (Lote lote : retirados) {
+            loteRetirado(lote);
+        }
+        return retirados;
+    }
+
+    private void loteRetirado(Lote lote) {
+        indexarRetirado(lote);
+        cantidadTotal -= lote.getCantidadFija();
+        costoTotal -= lote.getCostoTotalFijo();
+        costoUnitarioTotal -= lote.getCostoUnitarioFijo();
+        numeroLotes--;
+        lote.setPropietario(null);
+    }
+
+    // Copia de los lotes actuales, tomada bajo el lock del ítem
+    protected List<Lote> getLotes() {
+        lock.lock();
+        try {
+            asegurarLotes();
+            List<Lote> copia = new ArrayList<>(numeroLotes);
+            for (Lote lote : lotes) {
+                copia.add(lote);
+            }
+            return copia;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Recorre los lotes en orden de consumo con el lock tomado, sin copiar la
+    // lista. 'accion' no debe bloquearse ni escribir a disco (ver EscritorReportes).
+    void recorrerLotes(Consumer<Lote> accion) {
+        lock.lock();
+        try {
+            asegurarLotes();
+            for (Lote lote : lotes) {
+                accion.accept(lote);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private StockBajoException stockInsuficiente() {
+        Metricas.contar(Metricas.STOCK_INSUFICIENTE);
+        return new StockBajoException("Stock insuficiente para el " + descripcionStock() + ": " + nombre);
+    }
+
+    // Texto usado en los mensajes de stock insuficiente ("ingrediente", "envase"...)
+    protected abstract String descripcionStock();
+}
@@ -0,0 +1,140 @@
+package Trabajo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Lee el cuerpo de las peticiones de ServidorInventario: un objeto JSON plano
+// ({"clave": valor, ...}) cuyos valores son textos, números, true, false o
+// null. Los valores se devuelven como texto (null queda sin clave); objetos
+// y arreglos anidados no se aceptan.
+final class LectorJson {
+    private final String texto;
+    private int posicion;
+
+    private LectorJson(String texto) {
+        this.texto = texto;
+    }
+
+    static Map<String, String> leerObjeto(String texto) {
+        LectorJson lector = new LectorJson(texto);
+        Map<String, String> campos = new LinkedHashMap<>();
+        lector.esperar('{');
+        if (!lector.siguienteEs('}')) {
+            do {
+                String clave = lector.leerTexto();
+                lector.esperar(':');
+                String valor = lector.leerValor();
+                if (valor != null) {
+                    campos.put(clave, valor);
+                }
+            } while (lector.siguienteEs(','));
+            lector.esperar('}');
+        }
+        lector.saltarEspacios();
+        if (lector.posicion < texto.length()) {
+            throw lector.error("contenido después del objeto");
+        }
+        return campos;
+    }
+
+    private String leerValor() {
+        saltarEspacios();
+        if (posicion >= texto.length()) {
+            throw error("falta un valor");
+        }
+        char c = texto.charAt(posicion);
+        if (c == '"') {
+            return leerTexto();
+        }
+        if (c == '{' || c == '[') {
+            throw error("no se aceptan objetos ni arreglos anidados");
+        }
+        int inicio = posicion;
+        while (posicion < texto.length() && "-+.eE0123456789truefalsn".indexOf(texto.charAt(posicion)) >= 0) {
+            posicion++;
+        }
+        String valor = texto.substring(inicio, posicion);
+        if (valor.equals("null")) {
+            return null;
+        }
+        if (valor.isEmpty()) {
+            throw error("valor inesperado");
+        }
+        return valor;
+    }
+
+    private String leerTexto() {
+        esperar('"');
+        StringBuilder sb = new StringBuilder();
+        while (posicion < texto.length()) {
+            char c = texto.charAt(posicion++);
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (posicion >= texto.length()) {
+                break;
+            }
+            char escape = texto.charAt(posicion++);
+            switch (escape) {
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'u':
+                    if (posicion + 4 > texto.length()) {
+                        throw error("escape \\u incompleto");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(texto.substring(posicion, posicion + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("escape \\u inválido");
+                    }
+                    posicion += 4;
+                    break;
+                default:
+                    sb.append(escape); // \" \\ \/
+            }
+        }
+        throw error("texto sin cerrar");
+    }
+
+    private void esperar(char c) {
+        if (!siguienteEs(c)) {
+            throw error("se esperaba '" + c + "'");
+        }
+    }
+
+    private boolean siguienteEs(char c) {
+        saltarEspacios();
+        if (posicion < texto.length() && texto.charAt(posicion) == c) {
+            posicion++;
+            return true;
+        }
+        return false;
+    }
+
+    private void saltarEspacios() {
+        while (posicion < texto.length() && Character.isWhitespace(texto.charAt(posicion))) {
+            posicion++;
+        }
+    }
+
+    private IllegalArgumentException error(String mensaje) {
+        return new IllegalArgumentException("JSON inválido en la posición " + posicion + ": " + mensaje);
+    }
+}
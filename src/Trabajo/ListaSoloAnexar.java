@@ -0,0 +1,43 @@
+package Trabajo;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+// Lista a la que solo se agregan elementos al final. Las altas se serializan
+// entre sí; las lecturas (get, size, recorridos) no bloquean y ven siempre un
+// prefijo consistente: el elemento se escribe antes de publicar el nuevo tamaño
+// y, al crecer, el arreglo nuevo se publica con todo lo anterior ya copiado.
+// A diferencia de CopyOnWriteArrayList, agregar cuesta O(1) amortizado.
+public class ListaSoloAnexar<T> extends AbstractList<T> implements RandomAccess {
+    private volatile Object[] elementos = new Object[16];
+    private volatile int tamano = 0;
+
+    @Override
+    public synchronized boolean add(T elemento) {
+        Object[] actual = elementos;
+        int n = tamano;
+        if (n == actual.length) {
+            actual = Arrays.copyOf(actual, n * 2);
+            elementos = actual;
+        }
+        actual[n] = elemento;
+        tamano = n + 1;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int indice) {
+        int n = tamano; // Leer el tamaño primero: el arreglo visible tiene al menos n elementos
+        if (indice < 0 || indice >= n) {
+            throw new IndexOutOfBoundsException("Índice: " + indice + ", tamaño: " + n);
+        }
+        return (T) elementos[indice];
+    }
+
+    @Override
+    public int size() {
+        return tamano;
+    }
+}
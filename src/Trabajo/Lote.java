@@ -1,57 +1,302 @@
 package Trabajo;
 
-import java.util.Date;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.TimeZone;
 
+// Lote de un ítem en forma compacta, porque hay millones: el código UUID
+// (el de GeneradorCodigos) se guarda como dos long y se arma como texto solo
+// al pedirlo; cualquier otro código queda como String. El vencimiento es el
+// día (días desde 1970-01-01 en la zona del sistema) y el ingreso un instante
+// en milisegundos; los Date se crean al consultarlos.
 public class Lote {
-    private final String codigoLote;
-    private BigDecimal cantidad;
-    private final Date fechaIngreso;
-    private Date fechaVencimiento;
-    private BigDecimal costoUnitario;
+    static final int SIN_VENCIMIENTO = Integer.MAX_VALUE;
+    private static final long MILIS_DIA = 86_400_000L;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final long codigoAlto;
+    private final long codigoBajo;
+    private final String codigoTexto; // Solo si el código no es un UUID canónico
+    private volatile long cantidad; // Punto fijo, ver Fijo; se lee sin lock desde los reportes
+    private final long fechaIngreso; // Milisegundos desde 1970
+    private final int diaVencimiento;
+    private final long costoUnitario;  // Punto fijo, ver Fijo
+    private volatile ItemConLotes propietario; // Ítem que contiene el lote, para mantener sus acumulados
+    private int posicionIndice = -1; // Posición en su día de IndiceVencimientos, la maneja el índice
+    private int posicionAlmacen = -1; // Posición en AlmacenColumnar, la maneja el almacén
 
     public Lote(String codigoLote, BigDecimal cantidad, Date fechaVencimiento, BigDecimal precioTotal) {
-        if (cantidad.compareTo(BigDecimal.ZERO) <= 0) {
-            throw new IllegalArgumentException("La cantidad debe ser mayor que cero.");
-        }
-        this.codigoLote = codigoLote;
-        this.cantidad = cantidad;
-        this.fechaIngreso = new Date(); 
-        this.fechaVencimiento = fechaVencimiento;
-        this.costoUnitario = precioTotal.divide(cantidad, 4, RoundingMode.HALF_UP);
+        this(codigoLote, Fijo.desde(cantidad), fechaVencimiento, Fijo.desde(precioTotal));
     }
 
     // Constructor para envases sin fecha de vencimiento
     public Lote(String codigoLote, BigDecimal cantidad, BigDecimal precioTotal) {
-        if (cantidad.compareTo(BigDecimal.ZERO) <= 0) {
+        this(codigoLote, Fijo.desde(cantidad), null, Fijo.desde(precioTotal));
+    }
+
+    // Constructor en punto fijo, usado por la carga de datos
+    public Lote(String codigoLote, long cantidad, Date fechaVencimiento, long precioTotal) {
+        this(codigoLote, cantidad, System.currentTimeMillis(), dia(fechaVencimiento),
+                cantidad > 0 ? Fijo.dividir(precioTotal, cantidad) : 0);
+    }
+
+    // Lote con un código nuevo de GeneradorCodigos, guardado directamente como
+    // dos long: no se arma ni se vuelve a analizar el texto del código
+    public static Lote nuevo(BigDecimal cantidad, Date fechaVencimiento, BigDecimal precioTotal) {
+        return nuevo(Fijo.desde(cantidad), fechaVencimiento, Fijo.desde(precioTotal));
+    }
+
+    public static Lote nuevo(long cantidad, Date fechaVencimiento, long precioTotal) {
+        return conCodigo(GeneradorCodigos.siguiente(), cantidad, System.currentTimeMillis(), fechaVencimiento,
+                precioTotal);
+    }
+
+    // Lote con el código número 'numero' de GeneradorCodigos (ver GeneradorCodigos.reservar)
+    static Lote conCodigo(long numero, long cantidad, long fechaIngreso, Date fechaVencimiento, long precioTotal) {
+        return new Lote(GeneradorCodigos.prefijo(), numero, null, cantidad, fechaIngreso, dia(fechaVencimiento),
+                cantidad > 0 ? Fijo.dividir(precioTotal, cantidad) : 0);
+    }
+
+    // Restaura un lote guardado con todos sus campos (ver Instantanea y DiarioMovimientos)
+    static Lote restaurar(String codigoLote, long cantidad, Date fechaIngreso, Date fechaVencimiento, long costoUnitario) {
+        return new Lote(codigoLote, cantidad, fechaIngreso.getTime(), dia(fechaVencimiento), costoUnitario);
+    }
+
+    static Lote restaurar(String codigoLote, long cantidad, Date fechaIngreso, int diaVencimiento, long costoUnitario) {
+        return new Lote(codigoLote, cantidad, fechaIngreso.getTime(), diaVencimiento, costoUnitario);
+    }
+
+    static Lote restaurar(long codigoAlto, long codigoBajo, long cantidad, long fechaIngreso, int diaVencimiento,
+                          long costoUnitario) {
+        return new Lote(codigoAlto, codigoBajo, null, cantidad, fechaIngreso, diaVencimiento, costoUnitario);
+    }
+
+    private Lote(String codigoLote, long cantidad, long fechaIngreso, int diaVencimiento, long costoUnitario) {
+        this(codigoAlto(codigoLote), codigoBajo(codigoLote), esUuid(codigoLote) ? null : codigoLote, cantidad,
+                fechaIngreso, diaVencimiento, costoUnitario);
+    }
+
+    private Lote(long codigoAlto, long codigoBajo, String codigoTexto, long cantidad, long fechaIngreso,
+                 int diaVencimiento, long costoUnitario) {
+        if (cantidad <= 0) {
             throw new IllegalArgumentException("La cantidad debe ser mayor que cero.");
         }
-        this.codigoLote = codigoLote;
+        this.codigoAlto = codigoAlto;
+        this.codigoBajo = codigoBajo;
+        this.codigoTexto = codigoTexto;
         this.cantidad = cantidad;
-        this.fechaIngreso = new Date(); 
-        this.fechaVencimiento = null;
-        this.costoUnitario = precioTotal.divide(cantidad, 4, RoundingMode.HALF_UP);
+        this.fechaIngreso = fechaIngreso;
+        this.diaVencimiento = diaVencimiento;
+        this.costoUnitario = costoUnitario;
+    }
+
+    public String getCodigoLote() {
+        if (codigoTexto != null) {
+            return codigoTexto;
+        }
+        StringBuilder sb = new StringBuilder(36);
+        anexarCodigo(sb);
+        return sb.toString();
+    }
+
+    // Los códigos compactos son hexadecimales con guiones: no necesitan escapes
+    boolean isCodigoCompacto() {
+        return codigoTexto == null;
+    }
+
+    long getCodigoAlto() {
+        return codigoAlto;
+    }
+
+    long getCodigoBajo() {
+        return codigoBajo;
+    }
+
+    // Agrega el código sin crear el String (como UUID.toString si es compacto)
+    void anexarCodigo(StringBuilder sb) {
+        if (codigoTexto != null) {
+            sb.append(codigoTexto);
+            return;
+        }
+        anexarHex(sb, codigoAlto >>> 32, 8);
+        sb.append('-');
+        anexarHex(sb, codigoAlto >>> 16, 4);
+        sb.append('-');
+        anexarHex(sb, codigoAlto, 4);
+        sb.append('-');
+        anexarHex(sb, codigoBajo >>> 48, 4);
+        sb.append('-');
+        anexarHex(sb, codigoBajo, 12);
+    }
+
+    public Date getFechaIngreso() {
+        return new Date(fechaIngreso);
+    }
+
+    long getFechaIngresoMilis() {
+        return fechaIngreso;
+    }
+
+    // Inicio del día de vencimiento en la zona del sistema; null si no vence
+    public Date getFechaVencimiento() {
+        return diaVencimiento == SIN_VENCIMIENTO ? null : new Date(milisInicioDia(diaVencimiento));
+    }
+
+    // Días desde 1970-01-01; SIN_VENCIMIENTO si no vence
+    int getDiaVencimiento() {
+        return diaVencimiento;
     }
 
     public BigDecimal getCantidad() {
-        return cantidad;
+        return Fijo.aBigDecimal(cantidad);
     }
 
     public BigDecimal getCostoUnitario() {
+        return Fijo.aBigDecimalEscalado(costoUnitario);
+    }
+
+    public long getCantidadFija() {
+        return cantidad;
+    }
+
+    public long getCostoUnitarioFijo() {
         return costoUnitario;
     }
 
+    // Costo del stock restante del lote, redondeado a 4 decimales
+    public long getCostoTotalFijo() {
+        return Fijo.multiplicar(costoUnitario, cantidad);
+    }
+
     public void reducirCantidad(BigDecimal cantidadReducir) {
-        if (cantidadReducir.compareTo(cantidad) > 0) {
+        reducirCantidad(Fijo.desde(cantidadReducir));
+    }
+
+    public void reducirCantidad(long cantidadReducir) {
+        ItemConLotes item = propietario;
+        if (item != null) {
+            // El ítem toma su lock y ajusta sus acumulados
+            item.reducirLote(this, cantidadReducir);
+        } else {
+            restarCantidad(cantidadReducir);
+        }
+    }
+
+    // Resta la cantidad y devuelve cuánto bajó el costo total del lote
+    long restarCantidad(long cantidadReducir) {
+        if (cantidadReducir > cantidad) {
             throw new IllegalArgumentException("No se puede reducir más de lo disponible en el lote.");
         }
-        cantidad = cantidad.subtract(cantidadReducir);
+        long costoAnterior = getCostoTotalFijo();
+        cantidad -= cantidadReducir;
+        return costoAnterior - getCostoTotalFijo();
+    }
+
+    ItemConLotes getPropietario() {
+        return propietario;
+    }
+
+    void setPropietario(ItemConLotes propietario) {
+        this.propietario = propietario;
+    }
+
+    int getPosicionIndice() {
+        return posicionIndice;
+    }
+
+    void setPosicionIndice(int posicionIndice) {
+        this.posicionIndice = posicionIndice;
+    }
+
+    int getPosicionAlmacen() {
+        return posicionAlmacen;
+    }
+
+    void setPosicionAlmacen(int posicionAlmacen) {
+        this.posicionAlmacen = posicionAlmacen;
+    }
+
+    // Día local de una fecha (la hora se descarta)
+    static int dia(Date fecha) {
+        if (fecha == null) {
+            return SIN_VENCIMIENTO;
+        }
+        long milis = fecha.getTime();
+        return (int) Math.floorDiv(milis + TimeZone.getDefault().getOffset(milis), MILIS_DIA);
+    }
+
+    // Inicio de un día local en milisegundos, con un caché de los días ya convertidos
+    static long milisInicioDia(int dia) {
+        ZoneId zona = ZoneId.systemDefault();
+        DiaConvertido[] cache = CACHE_DIAS;
+        int posicion = dia & (cache.length - 1);
+        DiaConvertido convertido = cache[posicion];
+        if (convertido == null || convertido.dia != dia || !convertido.zona.equals(zona)) {
+            convertido = new DiaConvertido(dia, zona,
+                    LocalDate.ofEpochDay(dia).atStartOfDay(zona).toInstant().toEpochMilli());
+            cache[posicion] = convertido;
+        }
+        return convertido.milis;
+    }
+
+    private static final DiaConvertido[] CACHE_DIAS = new DiaConvertido[1024];
+
+    // Entrada inmutable del caché: se reemplaza entera, así se puede leer sin locks
+    private static final class DiaConvertido {
+        final int dia;
+        final ZoneId zona;
+        final long milis;
+
+        DiaConvertido(int dia, ZoneId zona, long milis) {
+            this.dia = dia;
+            this.zona = zona;
+            this.milis = milis;
+        }
+    }
+
+    // Formato canónico de UUID.toString: 8-4-4-4-12 dígitos hexadecimales en minúscula
+    private static boolean esUuid(String codigo) {
+        if (codigo.length() != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = codigo.charAt(i);
+            boolean guion = i == 8 || i == 13 || i == 18 || i == 23;
+            if (guion ? c != '-' : !((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long codigoAlto(String codigo) {
+        return esUuid(codigo) ? hex(codigo, 0, 8) << 32 | hex(codigo, 9, 13) << 16 | hex(codigo, 14, 18) : 0;
+    }
+
+    private static long codigoBajo(String codigo) {
+        return esUuid(codigo) ? hex(codigo, 19, 23) << 48 | hex(codigo, 24, 36) : 0;
+    }
+
+    private static long hex(String texto, int desde, int hasta) {
+        long valor = 0;
+        for (int i = desde; i < hasta; i++) {
+            valor = valor << 4 | Character.digit(texto.charAt(i), 16);
+        }
+        return valor;
+    }
+
+    private static void anexarHex(StringBuilder sb, long valor, int digitos) {
+        for (int i = digitos - 1; i >= 0; i--) {
+            sb.append(HEX[(int) (valor >>> (4 * i)) & 0xF]);
+        }
     }
 
     @Override
     public String toString() {
-        return "Lote [Código: " + codigoLote + ", Cantidad: " + cantidad + ", Fecha Ingreso: " + fechaIngreso +
-                ", Fecha Vencimiento: " + fechaVencimiento + ", Costo Unitario: S/." + costoUnitario + "]";
+        StringBuilder sb = new StringBuilder(160);
+        EscritorReportes.anexarTexto(sb, this);
+        return sb.toString();
     }
 }
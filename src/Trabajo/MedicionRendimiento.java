@@ -0,0 +1,156 @@
+package Trabajo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// Arnés mínimo de microbenchmarks: iteraciones de calentamiento, iteraciones
+// de medición por tiempo, ns/op con su desvío y bytes asignados por operación
+// (contador de asignación por hilo de la JVM). Cada cuerpo devuelve un long que
+// se acumula en un sumidero para que el JIT no descarte el trabajo.
+// Los resultados se pueden guardar como línea base en CSV y comparar después.
+public class MedicionRendimiento {
+    private final int calentamiento;
+    private final int iteraciones;
+    private final long nanosPorIteracion;
+    private final List<Resultado> resultados = new ArrayList<>();
+    private long sumidero = 0;
+
+    public MedicionRendimiento(int calentamiento, int iteraciones, long milisPorIteracion) {
+        this.calentamiento = calentamiento;
+        this.iteraciones = iteraciones;
+        this.nanosPorIteracion = milisPorIteracion * 1_000_000L;
+    }
+
+    // 'cuerpo' hace 'operaciones' operaciones por llamada
+    public Resultado medir(String nombre, String parametros, long operaciones, LongSupplier cuerpo) {
+        for (int i = 0; i < calentamiento; i++) {
+            iteracion(operaciones, cuerpo);
+        }
+        double[] nanosPorOp = new double[iteraciones];
+        double bytesPorOp = 0;
+        for (int i = 0; i < iteraciones; i++) {
+            double[] medida = iteracion(operaciones, cuerpo);
+            nanosPorOp[i] = medida[0];
+            bytesPorOp += medida[1] / iteraciones;
+        }
+        double media = 0;
+        for (double valor : nanosPorOp) {
+            media += valor / iteraciones;
+        }
+        double varianza = 0;
+        for (double valor : nanosPorOp) {
+            varianza += (valor - media) * (valor - media) / Math.max(1, iteraciones - 1);
+        }
+        Resultado resultado = new Resultado(nombre, parametros, media, Math.sqrt(varianza), bytesPorOp);
+        resultados.add(resultado);
+        System.out.println(resultado);
+        return resultado;
+    }
+
+    // Devuelve {ns/op, bytes/op} de una iteración
+    private double[] iteracion(long operaciones, LongSupplier cuerpo) {
+        long bytesInicio = bytesAsignados();
+        long inicio = System.nanoTime();
+        long fin;
+        long llamadas = 0;
+        do {
+            sumidero += cuerpo.getAsLong();
+            llamadas++;
+            fin = System.nanoTime();
+        } while (fin - inicio < nanosPorIteracion);
+        long bytes = bytesAsignados() - bytesInicio;
+        double totalOperaciones = (double) llamadas * operaciones;
+        return new double[]{(fin - inicio) / totalOperaciones, bytes < 0 ? Double.NaN : bytes / totalOperaciones};
+    }
+
+    private static long bytesAsignados() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public long getSumidero() {
+        return sumidero;
+    }
+
+    public void guardar(Path archivo) throws IOException {
+        try (PrintWriter salida = new PrintWriter(Files.newBufferedWriter(archivo, StandardCharsets.UTF_8))) {
+            salida.println("benchmark;parametros;ns_op;error;bytes_op");
+            for (Resultado resultado : resultados) {
+                salida.printf(Locale.ROOT, "%s;%s;%.3f;%.3f;%.1f%n", resultado.nombre, resultado.parametros,
+                        resultado.nanosPorOp, resultado.error, resultado.bytesPorOp);
+            }
+        }
+    }
+
+    // Imprime la variación de cada resultado contra una línea base guardada con guardar()
+    public void comparar(Path base) throws IOException {
+        Map<String, double[]> anteriores = new HashMap<>();
+        try (BufferedReader entrada = Files.newBufferedReader(base, StandardCharsets.UTF_8)) {
+            entrada.readLine();
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                String[] campos = linea.split(";");
+                anteriores.put(campos[0] + ";" + campos[1],
+                        new double[]{Double.parseDouble(campos[2]), Double.parseDouble(campos[4])});
+            }
+        }
+        System.out.println("\nComparación con " + base + ":");
+        for (Resultado resultado : resultados) {
+            double[] anterior = anteriores.get(resultado.nombre + ";" + resultado.parametros);
+            if (anterior == null) {
+                continue;
+            }
+            System.out.printf(Locale.ROOT, "%-40s %-22s tiempo %+7.1f%%   asignación %+7.1f%%%n", resultado.nombre,
+                    resultado.parametros, variacion(anterior[0], resultado.nanosPorOp),
+                    variacion(anterior[1], resultado.bytesPorOp));
+        }
+    }
+
+    private static double variacion(double antes, double ahora) {
+        return antes == 0 ? (ahora == 0 ? 0 : Double.POSITIVE_INFINITY) : (ahora - antes) * 100 / antes;
+    }
+
+    public static class Resultado {
+        private final String nombre;
+        private final String parametros;
+        private final double nanosPorOp;
+        private final double error;
+        private final double bytesPorOp;
+
+        Resultado(String nombre, String parametros, double nanosPorOp, double error, double bytesPorOp) {
+            this.nombre = nombre;
+            this.parametros = parametros;
+            this.nanosPorOp = nanosPorOp;
+            this.error = error;
+            this.bytesPorOp = bytesPorOp;
+        }
+
+        public double getNanosPorOp() {
+            return nanosPorOp;
+        }
+
+        public double getBytesPorOp() {
+            return bytesPorOp;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-40s %-22s %12.1f ± %-9.1f ns/op %12.1f B/op",
+                    nombre, parametros, nanosPorOp, error, bytesPorOp);
+        }
+    }
+}
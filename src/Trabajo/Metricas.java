@@ -0,0 +1,85 @@
+package Trabajo;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Contadores e histogramas de las operaciones del inventario. Desactivadas,
+// cada punto de medición cuesta una lectura de 'habilitado'; activadas, se
+// registra con LongAdder (sin locks). Se activan con -Dinventario.metricas=true
+// o desde JMX (atributo Habilitado de Trabajo:type=Inventario).
+public final class Metricas {
+    private static volatile boolean habilitado = Boolean.getBoolean("inventario.metricas");
+
+    static final LongAdder CONSUMOS = new LongAdder();
+    static final LongAdder STOCK_INSUFICIENTE = new LongAdder();
+    static final LongAdder LINEAS_LEIDAS = new LongAdder();
+    static final LongAdder LINEAS_RECHAZADAS = new LongAdder();
+    static final LongAdder ORDENES_PRODUCCION = new LongAdder();
+    static final LongAdder LOTES_VENCIDOS = new LongAdder();
+    static final Histograma CONSUMO = new Histograma();
+    static final Histograma BUSQUEDA = new Histograma();
+    static final Histograma PRODUCCION = new Histograma();
+
+    private Metricas() {
+    }
+
+    public static boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public static void setHabilitado(boolean valor) {
+        habilitado = valor;
+    }
+
+    // Marca de inicio para medir una latencia; 0 si las métricas están apagadas
+    static long inicio() {
+        return habilitado ? System.nanoTime() : 0;
+    }
+
+    static void registrar(Histograma histograma, long inicio) {
+        if (inicio != 0) {
+            histograma.registrar(System.nanoTime() - inicio);
+        }
+    }
+
+    static void contar(LongAdder contador) {
+        if (habilitado) {
+            contador.increment();
+        }
+    }
+
+    static void contar(LongAdder contador, long cantidad) {
+        if (habilitado) {
+            contador.add(cantidad);
+        }
+    }
+
+    public static void reiniciar() {
+        CONSUMOS.reset();
+        STOCK_INSUFICIENTE.reset();
+        LINEAS_LEIDAS.reset();
+        LINEAS_RECHAZADAS.reset();
+        ORDENES_PRODUCCION.reset();
+        LOTES_VENCIDOS.reset();
+        CONSUMO.reiniciar();
+        BUSQUEDA.reiniciar();
+        PRODUCCION.reiniciar();
+    }
+
+    // Publica las métricas del inventario en el servidor de MBeans de la plataforma
+    public static void registrarMBean(Inventario inventario) {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName("Trabajo:type=Inventario");
+            if (servidor.isRegistered(nombre)) {
+                servidor.unregisterMBean(nombre);
+            }
+            servidor.registerMBean(new MetricasInventario(inventario), nombre);
+        } catch (JMException e) {
+            System.out.println("No se pudieron publicar las métricas por JMX: " + e.getMessage());
+        }
+    }
+}
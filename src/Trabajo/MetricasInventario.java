@@ -0,0 +1,127 @@
+package Trabajo;
+
+import java.util.List;
+
+public class MetricasInventario implements MetricasInventarioMBean {
+    private final Inventario inventario;
+
+    public MetricasInventario(Inventario inventario) {
+        this.inventario = inventario;
+    }
+
+    @Override
+    public boolean isHabilitado() {
+        return Metricas.isHabilitado();
+    }
+
+    @Override
+    public void setHabilitado(boolean habilitado) {
+        Metricas.setHabilitado(habilitado);
+    }
+
+    @Override
+    public long getConsumos() {
+        return Metricas.CONSUMOS.sum();
+    }
+
+    @Override
+    public long getStockInsuficiente() {
+        return Metricas.STOCK_INSUFICIENTE.sum();
+    }
+
+    @Override
+    public long getLineasLeidas() {
+        return Metricas.LINEAS_LEIDAS.sum();
+    }
+
+    @Override
+    public long getLineasRechazadas() {
+        return Metricas.LINEAS_RECHAZADAS.sum();
+    }
+
+    @Override
+    public long getOrdenesProduccion() {
+        return Metricas.ORDENES_PRODUCCION.sum();
+    }
+
+    @Override
+    public long getLotesVencidos() {
+        return Metricas.LOTES_VENCIDOS.sum();
+    }
+
+    @Override
+    public long getBusquedas() {
+        return Metricas.BUSQUEDA.getCuenta();
+    }
+
+    @Override
+    public double getBusquedaP50Micros() {
+        return micros(Metricas.BUSQUEDA.percentil(0.50));
+    }
+
+    @Override
+    public double getBusquedaP99Micros() {
+        return micros(Metricas.BUSQUEDA.percentil(0.99));
+    }
+
+    @Override
+    public double getConsumoP50Micros() {
+        return micros(Metricas.CONSUMO.percentil(0.50));
+    }
+
+    @Override
+    public double getConsumoP99Micros() {
+        return micros(Metricas.CONSUMO.percentil(0.99));
+    }
+
+    @Override
+    public double getProduccionP50Micros() {
+        return micros(Metricas.PRODUCCION.percentil(0.50));
+    }
+
+    @Override
+    public double getProduccionP99Micros() {
+        return micros(Metricas.PRODUCCION.percentil(0.99));
+    }
+
+    @Override
+    public double getProduccionMaxMicros() {
+        return micros(Metricas.PRODUCCION.getMaximo());
+    }
+
+    @Override
+    public long getLotesTotales() {
+        return lotes(inventario.getIngredientes()) + lotes(inventario.getEnvases()) + lotes(inventario.getProductos());
+    }
+
+    @Override
+    public double getValorInventario() {
+        long valor = Fijo.sumar(valor(inventario.getIngredientes()), valor(inventario.getEnvases()));
+        return Fijo.aBigDecimalEscalado(Fijo.sumar(valor, valor(inventario.getProductos()))).doubleValue();
+    }
+
+    @Override
+    public void reiniciar() {
+        Metricas.reiniciar();
+    }
+
+    private static long lotes(List<? extends ItemConLotes> items) {
+        long total = 0;
+        for (ItemConLotes item : items) {
+            total += item.getNumeroLotes();
+        }
+        return total;
+    }
+
+    private static long valor(List<? extends ItemConLotes> items) {
+        long total = 0;
+        for (ItemConLotes item : items) {
+            total = Fijo.sumar(total, item.calcularCostoTotalFijo());
+        }
+        return total;
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
@@ -0,0 +1,44 @@
+package Trabajo;
+
+// Interfaz de gestión (JMX) de las métricas del inventario, ver Metricas.
+// Latencias en microsegundos.
+public interface MetricasInventarioMBean {
+    boolean isHabilitado();
+
+    void setHabilitado(boolean habilitado);
+
+    long getConsumos();
+
+    long getStockInsuficiente();
+
+    long getLineasLeidas();
+
+    long getLineasRechazadas();
+
+    long getOrdenesProduccion();
+
+    long getLotesVencidos();
+
+    long getBusquedas();
+
+    double getBusquedaP50Micros();
+
+    double getBusquedaP99Micros();
+
+    double getConsumoP50Micros();
+
+    double getConsumoP99Micros();
+
+    double getProduccionP50Micros();
+
+    double getProduccionP99Micros();
+
+    double getProduccionMaxMicros();
+
+    // Medidores calculados al consultarlos
+    long getLotesTotales();
+
+    double getValorInventario();
+
+    void reiniciar();
+}
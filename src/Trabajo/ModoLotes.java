@@ -0,0 +1,326 @@
+package Trabajo;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Modo sin menú: ejecuta operaciones leídas de un archivo o de la entrada
+// estándar, una por línea, con las mismas clases que usa el menú (y el mismo
+// diario). Pensado para cargas masivas: el diario no se sincroniza por
+// operación sino cada 'operacionesPorLote' operaciones y al final.
+//
+// Formato, campos separados por '|' (líneas vacías y con '#' se ignoran):
+//   ingrediente|nombre|categoria
+//   envase|nombre|tipo
+//   producto|nombre|categoria[|ingrediente|nombre|cantidad][|envase|nombre|cantidad]...
+//   lote|ingrediente o envase|cantidad|precioTotal[|dd/MM/yyyy]
+//   producir|producto|cantidad|precioTotal|dd/MM/yyyy
+//   reporte|general|ingredientes|envases|productos|valoracion[|texto|csv|json[|archivo]]
+//   vencimientos|dias
+//   barrer
+//   sincronizar
+// Una línea con error se anota (ver getErrores) y se sigue con la siguiente.
+public class ModoLotes {
+    private final Inventario inventario;
+    private final DiarioMovimientos diario; // Puede ser null (sin diario)
+    private final List<MovimientoInventario> movimientos;
+    private final Produccion produccion;
+    private final PrintStream salida;
+    private final SimpleDateFormat formatoFecha = new SimpleDateFormat("dd/MM/yyyy");
+    private final List<ErrorCarga> errores = new ArrayList<>();
+    private final Map<String, long[]> conteos = new LinkedHashMap<>(); // Comando -> {correctas, con error}
+    private int operacionesPorLote = 1000;
+    private int pendientes = 0; // Operaciones registradas desde la última sincronización
+    private long nanos = 0;
+
+    public ModoLotes(Inventario inventario, DiarioMovimientos diario, List<MovimientoInventario> movimientos,
+                     PrintStream salida) {
+        this.inventario = inventario;
+        this.diario = diario;
+        this.movimientos = movimientos;
+        this.produccion = new Produccion(diario, movimientos);
+        this.salida = salida;
+        this.formatoFecha.setLenient(false);
+    }
+
+    public void setOperacionesPorLote(int operacionesPorLote) {
+        this.operacionesPorLote = operacionesPorLote;
+    }
+
+    public List<ErrorCarga> getErrores() {
+        return errores;
+    }
+
+    public void ejecutar(BufferedReader entrada) throws IOException {
+        long inicio = System.nanoTime();
+        String linea;
+        long numeroLinea = 0;
+        while ((linea = entrada.readLine()) != null) {
+            numeroLinea++;
+            linea = linea.trim();
+            if (linea.isEmpty() || linea.startsWith("#")) {
+                continue;
+            }
+            String[] campos = linea.split("\\|", -1);
+            String comando = campos[0].toLowerCase();
+            boolean correcta;
+            try {
+                ejecutar(comando, campos);
+                correcta = true;
+            } catch (StockBajoException | IllegalArgumentException | ParseException | IOException e) {
+                errores.add(new ErrorCarga(numeroLinea, comando + ": " + e.getMessage()));
+                correcta = false;
+            } catch (ArithmeticException e) {
+                // Una cantidad o un acumulado que no entra en Fijo
+                errores.add(new ErrorCarga(numeroLinea, comando + ": valor fuera de rango (" + e.getMessage() + ")"));
+                correcta = false;
+            }
+            conteos.computeIfAbsent(comando, k -> new long[2])[correcta ? 0 : 1]++;
+        }
+        sincronizar();
+        nanos += System.nanoTime() - inicio;
+    }
+
+    private void ejecutar(String comando, String[] campos) throws StockBajoException, ParseException, IOException {
+        switch (comando) {
+            case "ingrediente": {
+                requerirCampos(campos, 3);
+                if (inventario.buscarIngrediente(campos[1]) != null) {
+                    throw new IllegalArgumentException("el ingrediente '" + campos[1] + "' ya existe");
+                }
+                Ingrediente ingrediente = new Ingrediente(campos[1], campos[2]);
+                if (diario != null) {
+                    diario.registrarIngrediente(ingrediente);
+                }
+                inventario.agregarIngrediente(ingrediente);
+                registrada();
+                break;
+            }
+            case "envase": {
+                requerirCampos(campos, 3);
+                if (inventario.buscarEnvase(campos[1]) != null) {
+                    throw new IllegalArgumentException("el envase '" + campos[1] + "' ya existe");
+                }
+                Envase envase = new Envase(campos[1], campos[2]);
+                if (diario != null) {
+                    diario.registrarEnvase(envase);
+                }
+                inventario.agregarEnvase(envase);
+                registrada();
+                break;
+            }
+            case "producto":
+                registrarProducto(campos);
+                break;
+            case "lote":
+                agregarLote(campos);
+                break;
+            case "producir": {
+                requerirCampos(campos, 5);
+                Producto producto = buscarProducto(campos[1]);
+                produccion.producir(producto, cantidad(campos[2]), cantidad(campos[3]), formatoFecha.parse(campos[4]));
+                registrada();
+                break;
+            }
+            case "reporte":
+                reporte(campos);
+                break;
+            case "vencimientos": {
+                requerirCampos(campos, 2);
+                int dias = Integer.parseInt(campos[1]);
+                LocalDate hoy = LocalDate.now();
+                for (IndiceVencimientos.ResumenDia dia : inventario.getIndiceVencimientos()
+                        .resumenPorDia(hoy, hoy.plusDays(dias - 1L)).values()) {
+                    salida.println(dia);
+                }
+                break;
+            }
+            case "barrer":
+                salida.println("Lotes vencidos retirados: " + new BarridoVencimientos(inventario, diario, movimientos).barrer());
+                registrada();
+                break;
+            case "sincronizar":
+                sincronizar();
+                break;
+            default:
+                throw new IllegalArgumentException("comando desconocido");
+        }
+    }
+
+    private void registrarProducto(String[] campos) {
+        requerirCampos(campos, 3);
+        if ((campos.length - 3) % 3 != 0) {
+            throw new IllegalArgumentException("los componentes van de a tres campos: tipo|nombre|cantidad");
+        }
+        if (inventario.buscarProducto(campos[1]) != null) {
+            throw new IllegalArgumentException("el producto '" + campos[1] + "' ya existe");
+        }
+        Receta receta = new Receta();
+        for (int i = 3; i < campos.length; i += 3) {
+            BigDecimal cantidad = cantidad(campos[i + 2]);
+            if (campos[i].equalsIgnoreCase("ingrediente")) {
+                receta.agregarIngrediente(buscarIngrediente(campos[i + 1]), cantidad);
+            } else if (campos[i].equalsIgnoreCase("envase")) {
+                receta.agregarEnvase(buscarEnvase(campos[i + 1]), cantidad);
+            } else {
+                throw new IllegalArgumentException("tipo de componente desconocido '" + campos[i] + "'");
+            }
+        }
+        Producto producto = new Producto(campos[1], campos[2], receta);
+        if (diario != null) {
+            diario.registrarProducto(producto);
+        }
+        inventario.agregarProducto(producto);
+        registrada();
+    }
+
+    // Lote de un ingrediente (con vencimiento) o de un envase (sin vencimiento)
+    private void agregarLote(String[] campos) throws ParseException {
+        requerirCampos(campos, 4);
+        BigDecimal cantidad = cantidad(campos[2]);
+        BigDecimal precioTotal = cantidad(campos[3]);
+        ItemConLotes item = inventario.buscarIngrediente(campos[1]);
+        Lote lote;
+        if (item != null) {
+            requerirCampos(campos, 5);
+            lote = Lote.nuevo(cantidad, formatoFecha.parse(campos[4]), precioTotal);
+        } else {
+            item = inventario.buscarEnvase(campos[1]);
+            if (item == null) {
+                throw new IllegalArgumentException("'" + campos[1] + "' no es un ingrediente ni un envase registrado");
+            }
+            lote = Lote.nuevo(cantidad, null, precioTotal);
+        }
+        item.agregarLote(lote, diario);
+        registrada();
+    }
+
+    private void reporte(String[] campos) throws IOException {
+        requerirCampos(campos, 2);
+        EscritorReportes.Formato formato = campos.length > 2
+                ? EscritorReportes.Formato.valueOf(campos[2].toUpperCase()) : EscritorReportes.Formato.TEXTO;
+        boolean aArchivo = campos.length > 3 && !campos[3].isEmpty();
+        OutputStream destino = aArchivo ? Files.newOutputStream(Paths.get(campos[3])) : salida;
+        EscritorReportes escritor = new EscritorReportes(destino, formato);
+        try {
+            switch (campos[1].toLowerCase()) {
+                case "general":
+                    escritor.reporteGeneral(inventario);
+                    break;
+                case "ingredientes":
+                    escritor.reporteIngredientes(inventario.getIngredientes());
+                    break;
+                case "envases":
+                    escritor.reporteEnvases(inventario.getEnvases());
+                    break;
+                case "productos":
+                    escritor.reporteProductos(inventario.getProductos());
+                    break;
+                case "valoracion":
+                    ValoracionInventario valoracion = new ValoradorInventario().valorar(inventario);
+                    if (formato == EscritorReportes.Formato.TEXTO) {
+                        escritor.flush();
+                        destino.write(valoracion.toString().getBytes(Charset.defaultCharset()));
+                    } else {
+                        escritor.reporteGeneral(valoracion);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("reporte desconocido '" + campos[1] + "'");
+            }
+        } finally {
+            // La salida estándar no se cierra, solo se vacía
+            if (aArchivo) {
+                escritor.close();
+            } else {
+                escritor.flush();
+            }
+        }
+    }
+
+    private void registrada() {
+        if (++pendientes >= operacionesPorLote) {
+            sincronizar();
+        }
+    }
+
+    private void sincronizar() {
+        if (diario != null && pendientes > 0) {
+            diario.sincronizar();
+        }
+        pendientes = 0;
+    }
+
+    private static void requerirCampos(String[] campos, int minimo) {
+        if (campos.length < minimo) {
+            throw new IllegalArgumentException("faltan campos (se esperaban " + minimo + ")");
+        }
+    }
+
+    private static BigDecimal cantidad(String texto) {
+        BigDecimal cantidad;
+        try {
+            cantidad = new BigDecimal(texto.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("cantidad inválida '" + texto + "'");
+        }
+        if (cantidad.signum() < 0) {
+            throw new IllegalArgumentException("la cantidad no puede ser negativa");
+        }
+        return cantidad;
+    }
+
+    private Ingrediente buscarIngrediente(String nombre) {
+        Ingrediente ingrediente = inventario.buscarIngrediente(nombre);
+        if (ingrediente == null) {
+            throw new IllegalArgumentException("ingrediente '" + nombre + "' no registrado");
+        }
+        return ingrediente;
+    }
+
+    private Envase buscarEnvase(String nombre) {
+        Envase envase = inventario.buscarEnvase(nombre);
+        if (envase == null) {
+            throw new IllegalArgumentException("envase '" + nombre + "' no registrado");
+        }
+        return envase;
+    }
+
+    private Producto buscarProducto(String nombre) {
+        Producto producto = inventario.buscarProducto(nombre);
+        if (producto == null) {
+            throw new IllegalArgumentException("producto '" + nombre + "' no registrado");
+        }
+        return producto;
+    }
+
+    // Operaciones por comando, errores y rendimiento de lo ejecutado
+    public String resumen() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== Resumen del Lote ===\n");
+        long correctas = 0;
+        for (Map.Entry<String, long[]> entry : conteos.entrySet()) {
+            long[] conteo = entry.getValue();
+            sb.append(entry.getKey()).append(": ").append(conteo[0]).append(" correctas, ")
+                    .append(conteo[1]).append(" con error\n");
+            correctas += conteo[0];
+        }
+        double segundos = nanos / 1e9;
+        sb.append("Total: ").append(correctas + errores.size()).append(" operaciones en ")
+                .append(String.format("%.3f s (%.0f op/s), ", segundos, segundos > 0 ? (correctas + errores.size()) / segundos : 0))
+                .append(errores.size()).append(" con error\n");
+        return sb.toString();
+    }
+}
@@ -17,6 +17,22 @@ public class MovimientoInventario {
         this.cantidad = cantidad;
     }
 
+    public String getTipoMovimiento() {
+        return tipoMovimiento;
+    }
+
+    public Date getFecha() {
+        return fecha;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    public BigDecimal getCantidad() {
+        return cantidad;
+    }
+
     @Override
     public String toString() {
         SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
@@ -0,0 +1,60 @@
+package Trabajo;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Resultado de PlanificadorProduccion: unidades a producir de cada producto
+// (en el orden del catálogo) y el margen total que suman.
+public class PlanProduccion {
+    private final LinkedHashMap<Producto, Long> cantidades;
+    private final BigDecimal margenTotal;
+    private final long iteraciones;
+
+    PlanProduccion(LinkedHashMap<Producto, Long> cantidades, BigDecimal margenTotal, long iteraciones) {
+        this.cantidades = cantidades;
+        this.margenTotal = margenTotal;
+        this.iteraciones = iteraciones;
+    }
+
+    public long getCantidad(Producto producto) {
+        return cantidades.getOrDefault(producto, 0L);
+    }
+
+    public Map<Producto, Long> getCantidades() {
+        return Collections.unmodifiableMap(cantidades);
+    }
+
+    public BigDecimal getMargenTotal() {
+        return margenTotal;
+    }
+
+    public long getUnidadesTotales() {
+        long total = 0;
+        for (long cantidad : cantidades.values()) {
+            total += cantidad;
+        }
+        return total;
+    }
+
+    // Pasos del planificador, útil para medir
+    public long getIteraciones() {
+        return iteraciones;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Plan de Producción:\n");
+        for (Map.Entry<Producto, Long> entry : cantidades.entrySet()) {
+            if (entry.getValue() > 0) {
+                sb.append("- ").append(entry.getKey().getNombre()).append(": ")
+                        .append(entry.getValue()).append(" unidades\n");
+            }
+        }
+        sb.append("Unidades totales: ").append(getUnidadesTotales()).append("\n");
+        sb.append("Margen total: S/.").append(margenTotal.toPlainString()).append("\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,236 @@
+package Trabajo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Planifica cuántas unidades producir de cada producto cuando varias recetas
+// comparten ingredientes y envases. Resuelve de forma aproximada el programa
+// entero
+//     max Σ margen_p · x_p   s.a.  Σ_p requerido_ip · x_p ≤ stock_i,  0 ≤ x_p ≤ demanda_p
+// con un algoritmo voraz primal-dual: cada ítem tiene un precio que crece
+// exponencialmente con la fracción ya usada de su stock, y en cada paso se
+// asigna un tramo del producto con mejor margen por costo a esos precios. Los
+// ítems escasos se encarecen enseguida y el plan se reparte entre los productos
+// que no compiten por ellos. Termina cuando ningún producto puede aumentar, así
+// que el plan es maximal: no queda stock para una unidad más de ningún producto.
+//
+// Usa el stock disponible (sin lo reservado por órdenes en curso) al momento
+// de planificar; no modifica el inventario.
+public class PlanificadorProduccion {
+    private static final double EPSILON = 6.0;        // Qué tan rápido se encarece un ítem al usarse
+    private static final double FRACCION_PASO = 0.05; // Tramo asignado por paso, sobre lo que aún se puede producir
+
+    public PlanProduccion planificar(List<Producto> productos) {
+        return planificar(productos, Map.of(), Map.of());
+    }
+
+    // 'demanda': unidades máximas por producto (sin entrada = sin límite).
+    // 'margenes': ganancia por unidad (sin entrada = 1, es decir, maximizar unidades).
+    // Una demanda negativa o un margen que no entra en un double son IllegalArgumentException.
+    public PlanProduccion planificar(List<Producto> productos, Map<Producto, BigDecimal> demanda,
+                                     Map<Producto, BigDecimal> margenes) {
+        // Ítems numerados solo para este plan, en orden de aparición
+        Map<ItemConLotes, Integer> numeros = new IdentityHashMap<>();
+        List<ItemConLotes> tabla = new ArrayList<>();
+        RecetaCompilada[] recetas = new RecetaCompilada[productos.size()];
+        for (int p = 0; p < recetas.length; p++) {
+            recetas[p] = RecetaCompilada.compilar(productos.get(p).getReceta(), item ->
+                    numeros.computeIfAbsent(item, k -> {
+                        tabla.add(k);
+                        return tabla.size() - 1;
+                    }));
+        }
+        long[] stock = new long[tabla.size()];
+        for (int i = 0; i < stock.length; i++) {
+            stock[i] = tabla.get(i).obtenerCantidadDisponibleFija();
+        }
+        return resolver(productos, recetas, stock, demanda, margenes);
+    }
+
+    // Planifica todo el catálogo del inventario con sus recetas compiladas y
+    // una captura del stock, sin mapas de por medio
+    public PlanProduccion planificar(Inventario inventario, Map<Producto, BigDecimal> demanda,
+                                     Map<Producto, BigDecimal> margenes) {
+        List<Producto> productos = new ArrayList<>(inventario.getProductos());
+        RecetaCompilada[] recetas = new RecetaCompilada[productos.size()];
+        for (int p = 0; p < recetas.length; p++) {
+            recetas[p] = productos.get(p).getReceta().compilar();
+        }
+        return resolver(productos, recetas, inventario.capturarStock(), demanda, margenes);
+    }
+
+    private PlanProduccion resolver(List<Producto> productos, RecetaCompilada[] recetas, long[] stock,
+                                    Map<Producto, BigDecimal> demanda, Map<Producto, BigDecimal> margenes) {
+        double[] margen = new double[productos.size()];
+        long[] limite = new long[productos.size()];
+        for (int p = 0; p < margen.length; p++) {
+            Producto producto = productos.get(p);
+            margen[p] = margen(margenes, producto).doubleValue();
+            if (!Double.isFinite(margen[p])) {
+                throw new IllegalArgumentException("El margen de " + producto.getNombre() + " está fuera de rango.");
+            }
+            BigDecimal maximo = demanda.get(producto);
+            if (maximo != null && maximo.signum() < 0) {
+                throw new IllegalArgumentException("La demanda de " + producto.getNombre() + " no puede ser negativa.");
+            }
+            try {
+                limite[p] = maximo == null ? Long.MAX_VALUE : maximo.setScale(0, RoundingMode.DOWN).longValueExact();
+            } catch (ArithmeticException e) {
+                limite[p] = Long.MAX_VALUE; // Más de lo que cualquier stock permite producir
+            }
+        }
+        Problema problema = new Problema(recetas, stock, margen, limite);
+        long iteraciones = problema.resolver();
+
+        LinkedHashMap<Producto, Long> cantidades = new LinkedHashMap<>();
+        BigDecimal margenTotal = BigDecimal.ZERO;
+        for (int p = 0; p < productos.size(); p++) {
+            Producto producto = productos.get(p);
+            cantidades.put(producto, problema.produccion[p]);
+            margenTotal = margenTotal.add(margen(margenes, producto).multiply(BigDecimal.valueOf(problema.produccion[p])));
+        }
+        return new PlanProduccion(cantidades, margenTotal.setScale(2, RoundingMode.HALF_UP), iteraciones);
+    }
+
+    private static BigDecimal margen(Map<Producto, BigDecimal> margenes, Producto producto) {
+        return margenes.getOrDefault(producto, BigDecimal.ONE);
+    }
+
+    // Recetas y stock numerados en arreglos, para que cada paso sean bucles primitivos
+    private static class Problema {
+        final int[][] items;          // Ítems de la receta de cada producto
+        final long[][] requerido;     // Cantidad por unidad de cada uno, punto fijo
+        final double[] margen;
+        final long[] limite;          // Demanda en unidades, o Long.MAX_VALUE
+        final long[] produccion;
+        final long[] stock;           // Disponible de cada ítem al planificar, punto fijo
+        final long[] usado;
+        final double[] precio;
+        final int[][] productosDeItem;
+
+        Problema(RecetaCompilada[] recetas, long[] stockCapturado, double[] margen, long[] limite) {
+            int numeroProductos = recetas.length;
+            this.margen = margen;
+            this.limite = limite;
+            items = new int[numeroProductos][];
+            requerido = new long[numeroProductos][];
+            produccion = new long[numeroProductos];
+            for (int p = 0; p < numeroProductos; p++) {
+                items[p] = new int[recetas[p].tamano()];
+                requerido[p] = new long[recetas[p].tamano()];
+                for (int j = 0; j < items[p].length; j++) {
+                    items[p][j] = recetas[p].getItem(j);
+                    requerido[p][j] = recetas[p].getCantidad(j);
+                }
+            }
+
+            stock = new long[stockCapturado.length];
+            usado = new long[stock.length];
+            precio = new double[stock.length];
+            int[] usos = new int[stock.length];
+            for (int i = 0; i < stock.length; i++) {
+                stock[i] = Math.max(0, stockCapturado[i]);
+                precio[i] = stock[i] == 0 ? Double.POSITIVE_INFINITY : Fijo.UNO / (double) stock[i];
+            }
+            for (int[] itemsProducto : items) {
+                for (int i : itemsProducto) {
+                    usos[i]++;
+                }
+            }
+            productosDeItem = new int[stock.length][];
+            for (int i = 0; i < stock.length; i++) {
+                productosDeItem[i] = new int[usos[i]];
+                usos[i] = 0;
+            }
+            for (int p = 0; p < numeroProductos; p++) {
+                for (int i : items[p]) {
+                    productosDeItem[i][usos[i]++] = p;
+                }
+            }
+        }
+
+        // Devuelve el número de pasos
+        long resolver() {
+            int numeroProductos = items.length;
+            long[] factible = new long[numeroProductos];
+            double[] puntaje = new double[numeroProductos];
+            int[] activos = new int[numeroProductos];
+            int numeroActivos = 0;
+            for (int p = 0; p < numeroProductos; p++) {
+                // Sin receta ni demanda la producción no tiene límite: no se planifica
+                if (margen[p] > 0 && (items[p].length > 0 || limite[p] != Long.MAX_VALUE)) {
+                    activos[numeroActivos++] = p;
+                    factible[p] = maximoFactible(p);
+                    puntaje[p] = puntaje(p);
+                }
+            }
+
+            int[] marcaRecalculo = new int[numeroProductos];
+            long iteraciones = 0;
+            while (true) {
+                // Elegir el mejor producto aún factible, compactando los que ya no lo son
+                int mejor = -1;
+                for (int k = 0; k < numeroActivos; ) {
+                    int p = activos[k];
+                    if (factible[p] <= 0) {
+                        activos[k] = activos[--numeroActivos];
+                        continue;
+                    }
+                    if (mejor == -1 || puntaje[p] > puntaje[mejor]) {
+                        mejor = p;
+                    }
+                    k++;
+                }
+                if (mejor == -1) {
+                    return iteraciones;
+                }
+                iteraciones++;
+
+                long paso = Math.max(1, (long) Math.ceil(factible[mejor] * FRACCION_PASO));
+                produccion[mejor] += paso;
+                factible[mejor] = maximoFactible(mejor);
+                int[] itemsMejor = items[mejor];
+                for (int j = 0; j < itemsMejor.length; j++) {
+                    int i = itemsMejor[j];
+                    usado[i] += Math.multiplyExact(requerido[mejor][j], paso);
+                    precio[i] = Math.exp(EPSILON * usado[i] / stock[i]) * Fijo.UNO / stock[i];
+                }
+                // Solo cambian los productos que comparten algún ítem con el elegido
+                for (int i : itemsMejor) {
+                    for (int p : productosDeItem[i]) {
+                        if (marcaRecalculo[p] != iteraciones && factible[p] > 0) {
+                            marcaRecalculo[p] = (int) iteraciones;
+                            factible[p] = maximoFactible(p);
+                            puntaje[p] = puntaje(p);
+                        }
+                    }
+                }
+                puntaje[mejor] = puntaje(mejor);
+            }
+        }
+
+        // Unidades que aún se pueden agregar al producto con el stock que queda
+        private long maximoFactible(int p) {
+            long maximo = limite[p] - produccion[p];
+            for (int j = 0; j < items[p].length && maximo > 0; j++) {
+                int i = items[p][j];
+                maximo = Math.min(maximo, Fijo.cociente(stock[i] - usado[i], requerido[p][j]));
+            }
+            return maximo;
+        }
+
+        // Margen por unidad dividido por el costo de sus insumos a los precios actuales
+        private double puntaje(int p) {
+            double costo = 0;
+            for (int j = 0; j < items[p].length; j++) {
+                costo += requerido[p][j] / (double) Fijo.UNO * precio[items[p][j]];
+            }
+            return costo == 0 ? Double.MAX_VALUE : margen[p] / costo;
+        }
+    }
+}
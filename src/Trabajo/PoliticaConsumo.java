@@ -0,0 +1,31 @@
+package Trabajo;
+
+import java.util.Locale;
+
+// Orden en que se consumen los lotes de un ítem
+public enum PoliticaConsumo {
+    FIFO, // Primero en entrar, primero en salir (orden de ingreso)
+    FEFO; // Primero en vencer, primero en salir (ver ColaVencimiento)
+
+    private static final PoliticaConsumo PREDETERMINADA = leer(System.getProperty("inventario.consumo", "FEFO"));
+
+    // Sin distinguir mayúsculas; un valor desconocido se avisa y queda FEFO
+    private static PoliticaConsumo leer(String valor) {
+        try {
+            return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Política de consumo desconocida '" + valor + "' (-Dinventario.consumo=FIFO|FEFO); se usa FEFO.");
+            return FEFO;
+        }
+    }
+
+    // Política de los ítems nuevos: -Dinventario.consumo=FIFO|FEFO, FEFO si no se indica
+    public static PoliticaConsumo predeterminada() {
+        return PREDETERMINADA;
+    }
+
+    // Cola de lotes que implementa la política
+    public Cola<Lote> nuevaCola() {
+        return this == FEFO ? new ColaVencimiento() : new ArrayCircular<>();
+    }
+}
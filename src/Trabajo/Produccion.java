@@ -0,0 +1,78 @@
+package Trabajo;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+// Orden de producción atómica: o se consumen todos los ingredientes y envases
+// de la receta, se agrega el lote del producto y se registra el movimiento, o
+// no cambia nada. Primero se reserva el stock de todos los ítems de una vez
+// (ver ItemConLotes.reservarTodos); si alguno no alcanza no se reserva nada.
+// Con todo reservado, el registro en el diario y el consumo van juntos bajo
+// los locks de los ítems (ver ItemConLotes.aplicarOrden): un barrido de
+// vencidos no puede meterse entre los dos y cambiar qué lotes se consumen.
+public class Produccion {
+    private final DiarioMovimientos diario; // Puede ser null (sin diario)
+    private final List<MovimientoInventario> movimientos;
+
+    public Produccion(DiarioMovimientos diario, List<MovimientoInventario> movimientos) {
+        this.diario = diario;
+        this.movimientos = movimientos;
+    }
+
+    public Lote producir(Producto producto, BigDecimal cantidad, BigDecimal precioTotal, Date fechaVencimiento)
+            throws StockBajoException {
+        Lote lote = Lote.nuevo(cantidad, fechaVencimiento, precioTotal);
+        producir(producto, lote);
+        return lote;
+    }
+
+    public void producir(Producto producto, Lote lote) throws StockBajoException {
+        long inicio = Metricas.inicio();
+        List<Map.Entry<? extends ItemConLotes, Long>> receta = entradas(producto.getReceta());
+        ItemConLotes[] items = new ItemConLotes[receta.size()];
+        long[] cantidades = new long[items.length];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = receta.get(i).getKey();
+            cantidades[i] = Fijo.multiplicar(receta.get(i).getValue(), lote.getCantidadFija());
+        }
+
+        // 1. Reservar todo o nada
+        ItemConLotes.reservarTodos(items, cantidades);
+
+        // 2. Registrar y aplicar con los locks de todos los ítems tomados; es una
+        // operación para la instantánea (ver DiarioMovimientos)
+        if (diario != null) {
+            diario.iniciarOperacion();
+        }
+        try {
+            long secuencia = ItemConLotes.aplicarOrden(items, cantidades, producto, lote,
+                    () -> diario != null ? diario.registrarOrdenProduccion(producto, lote, items, cantidades) : -1);
+            MovimientoInventario movimiento = new MovimientoInventario("Producción", new Date(), producto.getNombre(), lote.getCantidad());
+            synchronized (movimientos) {
+                movimientos.add(movimiento);
+            }
+            // 3. Esperar a que el registro sea durable, ya sin bloquear los ítems
+            if (secuencia >= 0) {
+                diario.esperarRegistro(secuencia);
+            }
+        } finally {
+            if (diario != null) {
+                diario.terminarOperacion();
+            }
+        }
+        Metricas.contar(Metricas.ORDENES_PRODUCCION);
+        Metricas.registrar(Metricas.PRODUCCION, inicio);
+    }
+
+    // Ingredientes y envases de la receta con su cantidad por unidad. Se copian
+    // antes de dimensionar nada: los mapas son concurrentes y un ajuste de la
+    // receta en paralelo puede agregar o quitar ítems mientras se recorren
+    static List<Map.Entry<? extends ItemConLotes, Long>> entradas(Receta receta) {
+        List<Map.Entry<? extends ItemConLotes, Long>> entradas = new ArrayList<>(receta.getIngredientes().entrySet());
+        entradas.addAll(receta.getEnvases().entrySet());
+        return entradas;
+    }
+}
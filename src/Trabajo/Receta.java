@@ -1,58 +1,115 @@
 package Trabajo;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 
 public class Receta {
-    private HashMap<Ingrediente, BigDecimal> ingredientes;
-    private HashMap<Envase, BigDecimal> envases;
+    // Cantidades requeridas por unidad producida, en punto fijo (ver Fijo).
+    // Mapas concurrentes: una orden de producción puede leer la receta mientras se ajusta
+    private final ConcurrentHashMap<Ingrediente, Long> ingredientes;
+    private final ConcurrentHashMap<Envase, Long> envases;
+    private RecetaCompilada compilada; // Cache de compilar(); se descarta al cambiar la receta
 
     public Receta() {
-        this.ingredientes = new HashMap<>();
-        this.envases = new HashMap<>();
+        this.ingredientes = new ConcurrentHashMap<>();
+        this.envases = new ConcurrentHashMap<>();
     }
 
     public void agregarIngrediente(Ingrediente ingrediente, BigDecimal cantidad) {
-        if (ingrediente == null || cantidad.compareTo(BigDecimal.ZERO) <= 0) {
+        agregarIngrediente(ingrediente, porUnidad(cantidad));
+    }
+
+    public void agregarEnvase(Envase envase, BigDecimal cantidad) {
+        agregarEnvase(envase, porUnidad(cantidad));
+    }
+
+    // La validación es sobre el valor ya redondeado: 0.00001 queda en 0 y se rechaza
+    private static long porUnidad(BigDecimal cantidad) {
+        try {
+            return Fijo.desde(cantidad);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("La cantidad por unidad está fuera de rango.");
+        }
+    }
+
+    // Alta directa en punto fijo (restauración de instantáneas y diario)
+    void agregarIngrediente(Ingrediente ingrediente, long cantidad) {
+        if (ingrediente == null || cantidad <= 0) {
             throw new IllegalArgumentException("Ingrediente no puede ser nulo y la cantidad debe ser positiva.");
         }
         ingredientes.put(ingrediente, cantidad);
+        invalidarCompilada();
     }
 
-    public void agregarEnvase(Envase envase, BigDecimal cantidad) {
-        if (envase == null || cantidad.compareTo(BigDecimal.ZERO) <= 0) {
+    void agregarEnvase(Envase envase, long cantidad) {
+        if (envase == null || cantidad <= 0) {
             throw new IllegalArgumentException("Envase no puede ser nulo y la cantidad debe ser positiva.");
         }
         envases.put(envase, cantidad);
+        invalidarCompilada();
+    }
+
+    // Cantidades por unidad producida, en punto fijo
+    Map<Ingrediente, Long> getIngredientes() {
+        return ingredientes;
+    }
+
+    Map<Envase, Long> getEnvases() {
+        return envases;
+    }
+
+    // Receta compilada con los números de ítem del Inventario (ver RecetaCompilada).
+    // Todos sus ingredientes y envases deben estar registrados en el inventario.
+    public synchronized RecetaCompilada compilar() {
+        RecetaCompilada actual = compilada;
+        if (actual == null) {
+            // Un cambio concurrente espera este lock para descartar lo compilado
+            actual = RecetaCompilada.compilar(this, Receta::numeroRegistrado);
+            compilada = actual;
+        }
+        return actual;
+    }
+
+    private static int numeroRegistrado(ItemConLotes item) {
+        int numero = item.getNumero();
+        if (numero < 0) {
+            throw new IllegalStateException("'" + item.getNombre() + "' no está registrado en el inventario.");
+        }
+        return numero;
+    }
+
+    private synchronized void invalidarCompilada() {
+        compilada = null;
     }
 
     public void ajustarReceta() {
         ajustarIngredientes();
         ajustarEnvases();
+        invalidarCompilada();
     }
 
     private void ajustarIngredientes() {
-        Iterator<Map.Entry<Ingrediente, BigDecimal>> iterator = ingredientes.entrySet().iterator();
+        Iterator<Map.Entry<Ingrediente, Long>> iterator = ingredientes.entrySet().iterator();
         ajustarIngredientesRecursivo(iterator);
     }
 
-    private void ajustarIngredientesRecursivo(Iterator<Map.Entry<Ingrediente, BigDecimal>> iterator) {
+    private void ajustarIngredientesRecursivo(Iterator<Map.Entry<Ingrediente, Long>> iterator) {
         if (!iterator.hasNext()) {
             return;
         }
-        Map.Entry<Ingrediente, BigDecimal> entry = iterator.next();
+        Map.Entry<Ingrediente, Long> entry = iterator.next();
         Ingrediente ingrediente = entry.getKey();
-        BigDecimal cantidadRequerida = entry.getValue();
-        BigDecimal stockDisponible = ingrediente.obtenerCantidadTotal();
+        long cantidadRequerida = entry.getValue();
+        long stockDisponible = ingrediente.obtenerCantidadTotalFija();
 
-        if (cantidadRequerida.compareTo(stockDisponible) > 0) {
+        if (cantidadRequerida > stockDisponible) {
             System.out.println("Stock insuficiente para ingrediente: " + ingrediente.getNombre());
-            if (stockDisponible.compareTo(BigDecimal.ZERO) > 0) {
-                System.out.println("Ajustando cantidad a " + stockDisponible);
-                ingredientes.put(ingrediente, stockDisponible);
+            if (stockDisponible > 0) {
+                System.out.println("Ajustando cantidad a " + Fijo.aBigDecimal(stockDisponible));
+                entry.setValue(stockDisponible);
             } else {
                 System.out.println("Eliminando ingrediente de la receta: " + ingrediente.getNombre());
                 iterator.remove();
@@ -62,24 +119,24 @@ public class Receta {
     }
 
     private void ajustarEnvases() {
-        Iterator<Map.Entry<Envase, BigDecimal>> iterator = envases.entrySet().iterator();
+        Iterator<Map.Entry<Envase, Long>> iterator = envases.entrySet().iterator();
         ajustarEnvasesRecursivo(iterator);
     }
 
-    private void ajustarEnvasesRecursivo(Iterator<Map.Entry<Envase, BigDecimal>> iterator) {
+    private void ajustarEnvasesRecursivo(Iterator<Map.Entry<Envase, Long>> iterator) {
         if (!iterator.hasNext()) {
             return;
         }
-        Map.Entry<Envase, BigDecimal> entry = iterator.next();
+        Map.Entry<Envase, Long> entry = iterator.next();
         Envase envase = entry.getKey();
-        BigDecimal cantidadRequerida = entry.getValue();
-        BigDecimal stockDisponible = envase.obtenerCantidadTotal();
+        long cantidadRequerida = entry.getValue();
+        long stockDisponible = envase.obtenerCantidadTotalFija();
 
-        if (cantidadRequerida.compareTo(stockDisponible) > 0) {
+        if (cantidadRequerida > stockDisponible) {
             System.out.println("Stock insuficiente para envase: " + envase.getNombre());
-            if (stockDisponible.compareTo(BigDecimal.ZERO) > 0) {
-                System.out.println("Ajustando cantidad a " + stockDisponible);
-                envases.put(envase, stockDisponible);
+            if (stockDisponible > 0) {
+                System.out.println("Ajustando cantidad a " + Fijo.aBigDecimal(stockDisponible));
+                entry.setValue(stockDisponible);
             } else {
                 System.out.println("Eliminando envase de la receta: " + envase.getNombre());
                 iterator.remove();
@@ -89,58 +146,50 @@ public class Receta {
     }
 
     public BigDecimal calcularCostoTotal() {
-        BigDecimal costoTotal = BigDecimal.ZERO;
-        for (Map.Entry<Ingrediente, BigDecimal> entry : ingredientes.entrySet()) {
-            Ingrediente ingrediente = entry.getKey();
-            BigDecimal cantidad = entry.getValue();
-            BigDecimal costoUnitario = ingrediente.calcularCostoTotal().divide(ingrediente.obtenerCantidadTotal(), 4, RoundingMode.HALF_UP);
-            costoTotal = costoTotal.add(costoUnitario.multiply(cantidad));
+        long costoTotal = 0;
+        for (Map.Entry<Ingrediente, Long> entry : ingredientes.entrySet()) {
+            costoTotal = Fijo.sumar(costoTotal, costoRequerido(entry.getKey(), entry.getValue()));
         }
-        for (Map.Entry<Envase, BigDecimal> entry : envases.entrySet()) {
-            Envase envase = entry.getKey();
-            BigDecimal cantidad = entry.getValue();
-            BigDecimal costoUnitario = envase.calcularCostoTotal().divide(envase.obtenerCantidadTotal(), 4, RoundingMode.HALF_UP);
-            costoTotal = costoTotal.add(costoUnitario.multiply(cantidad));
+        for (Map.Entry<Envase, Long> entry : envases.entrySet()) {
+            costoTotal = Fijo.sumar(costoTotal, costoRequerido(entry.getKey(), entry.getValue()));
         }
-        return costoTotal.setScale(2, RoundingMode.HALF_UP);
+        return Fijo.aBigDecimalEscalado(costoTotal).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // Costo de la cantidad requerida al costo unitario promedio del stock actual
+    private static long costoRequerido(ItemConLotes item, long cantidad) {
+        long costoUnitario = Fijo.dividir(item.calcularCostoTotalFijo(), item.obtenerCantidadTotalFija());
+        return Fijo.multiplicar(costoUnitario, cantidad);
     }
 
     public int calcularMaximaProduccion() {
-        int maxProduccion = Integer.MAX_VALUE;
-        for (Map.Entry<Ingrediente, BigDecimal> entry : ingredientes.entrySet()) {
-            Ingrediente ingrediente = entry.getKey();
-            BigDecimal cantidadRequerida = entry.getValue();
-            BigDecimal stockDisponible = ingrediente.obtenerCantidadTotal();
-            int maxConIngrediente = stockDisponible.divide(cantidadRequerida, RoundingMode.DOWN).intValue();
+        long maxProduccion = Integer.MAX_VALUE;
+        for (Map.Entry<Ingrediente, Long> entry : ingredientes.entrySet()) {
+            long maxConIngrediente = Fijo.cociente(entry.getKey().obtenerCantidadTotalFija(), entry.getValue());
             if (maxConIngrediente < maxProduccion) {
                 maxProduccion = maxConIngrediente;
             }
         }
-        for (Map.Entry<Envase, BigDecimal> entry : envases.entrySet()) {
-            Envase envase = entry.getKey();
-            BigDecimal cantidadRequerida = entry.getValue();
-            BigDecimal stockDisponible = envase.obtenerCantidadTotal();
-            int maxConEnvase = stockDisponible.divide(cantidadRequerida, RoundingMode.DOWN).intValue();
+        for (Map.Entry<Envase, Long> entry : envases.entrySet()) {
+            long maxConEnvase = Fijo.cociente(entry.getKey().obtenerCantidadTotalFija(), entry.getValue());
             if (maxConEnvase < maxProduccion) {
                 maxProduccion = maxConEnvase;
             }
         }
-        return maxProduccion;
+        return (int) maxProduccion;
     }
 
     public void consumirIngredientes(BigDecimal cantidadProduccion) throws StockBajoException {
-        for (Map.Entry<Ingrediente, BigDecimal> entry : ingredientes.entrySet()) {
-            Ingrediente ingrediente = entry.getKey();
-            BigDecimal cantidadRequerida = entry.getValue().multiply(cantidadProduccion);
-            ingrediente.consumirCantidad(cantidadRequerida);
+        long produccion = Fijo.desde(cantidadProduccion);
+        for (Map.Entry<Ingrediente, Long> entry : ingredientes.entrySet()) {
+            entry.getKey().consumirCantidad(Fijo.multiplicar(entry.getValue(), produccion));
         }
     }
 
     public void consumirEnvases(BigDecimal cantidadProduccion) throws StockBajoException {
-        for (Map.Entry<Envase, BigDecimal> entry : envases.entrySet()) {
-            Envase envase = entry.getKey();
-            BigDecimal cantidadRequerida = entry.getValue().multiply(cantidadProduccion);
-            envase.consumirCantidad(cantidadRequerida);
+        long produccion = Fijo.desde(cantidadProduccion);
+        for (Map.Entry<Envase, Long> entry : envases.entrySet()) {
+            entry.getKey().consumirCantidad(Fijo.multiplicar(entry.getValue(), produccion));
         }
     }
 
@@ -148,14 +197,14 @@ public class Receta {
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append("Ingredientes:\n");
-        for (Map.Entry<Ingrediente, BigDecimal> entry : ingredientes.entrySet()) {
+        for (Map.Entry<Ingrediente, Long> entry : ingredientes.entrySet()) {
             sb.append("- ").append(entry.getKey().getNombre())
-                    .append(": ").append(entry.getValue()).append(" unidades\n");
+                    .append(": ").append(Fijo.aBigDecimal(entry.getValue())).append(" unidades\n");
         }
         sb.append("Envases:\n");
-        for (Map.Entry<Envase, BigDecimal> entry : envases.entrySet()) {
+        for (Map.Entry<Envase, Long> entry : envases.entrySet()) {
             sb.append("- ").append(entry.getKey().getNombre())
-                    .append(": ").append(entry.getValue()).append(" unidades\n");
+                    .append(": ").append(Fijo.aBigDecimal(entry.getValue())).append(" unidades\n");
         }
         sb.append("Costo Total de la Receta: S/.").append(calcularCostoTotal().toPlainString()).append("\n");
         return sb.toString();
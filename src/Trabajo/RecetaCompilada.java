@@ -0,0 +1,97 @@
+package Trabajo;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+// Forma "compilada" de una receta: arreglos densos con el número de cada ítem
+// (ver Inventario.getItem) y la cantidad requerida por unidad, en punto fijo.
+// Las consultas reciben el stock o los costos de todos los ítems como un
+// arreglo indexado por número (Inventario.capturarStock), así que evaluar
+// miles de recetas son bucles sobre long[] sin mapas, hashing ni objetos.
+public final class RecetaCompilada {
+    private final int[] items;
+    private final long[] cantidades;
+
+    private RecetaCompilada(int[] items, long[] cantidades) {
+        this.items = items;
+        this.cantidades = cantidades;
+    }
+
+    // Compila la receta numerando sus ítems con 'numero'
+    static RecetaCompilada compilar(Receta receta, ToIntFunction<ItemConLotes> numero) {
+        Map<Ingrediente, Long> ingredientes = receta.getIngredientes();
+        Map<Envase, Long> envases = receta.getEnvases();
+        int[] items = new int[ingredientes.size() + envases.size()];
+        long[] cantidades = new long[items.length];
+        int j = 0;
+        for (Map.Entry<Ingrediente, Long> entry : ingredientes.entrySet()) {
+            if (j == items.length) {
+                break; // La receta cambió mientras se compilaba; se toma lo leído
+            }
+            items[j] = numero.applyAsInt(entry.getKey());
+            cantidades[j++] = entry.getValue();
+        }
+        for (Map.Entry<Envase, Long> entry : envases.entrySet()) {
+            if (j == items.length) {
+                break;
+            }
+            items[j] = numero.applyAsInt(entry.getKey());
+            cantidades[j++] = entry.getValue();
+        }
+        if (j < items.length) {
+            items = Arrays.copyOf(items, j);
+            cantidades = Arrays.copyOf(cantidades, j);
+        }
+        return new RecetaCompilada(items, cantidades);
+    }
+
+    public int tamano() {
+        return items.length;
+    }
+
+    public int getItem(int j) {
+        return items[j];
+    }
+
+    // Cantidad por unidad producida, en punto fijo
+    public long getCantidad(int j) {
+        return cantidades[j];
+    }
+
+    // Unidades enteras que alcanza a producir 'stock' (punto fijo, por número de
+    // ítem); sin ítems no hay límite, igual que Receta.calcularMaximaProduccion
+    public long maximaProduccion(long[] stock) {
+        long maximo = Long.MAX_VALUE;
+        for (int j = 0; j < items.length; j++) {
+            maximo = Math.min(maximo, Math.max(0, stock[items[j]]) / cantidades[j]);
+        }
+        return maximo;
+    }
+
+    // Indica si 'stock' alcanza para producir 'unidades'
+    public boolean alcanza(long[] stock, long unidades) {
+        for (int j = 0; j < items.length; j++) {
+            if (Math.multiplyExact(cantidades[j], unidades) > stock[items[j]]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Descuenta de 'stock' lo que consume producir 'unidades' (sin verificar)
+    public void descontar(long[] stock, long unidades) {
+        for (int j = 0; j < items.length; j++) {
+            stock[items[j]] -= Math.multiplyExact(cantidades[j], unidades);
+        }
+    }
+
+    // Costo de una unidad, con 'costoUnitario' en punto fijo por número de ítem
+    public long costoPorUnidad(long[] costoUnitario) {
+        long costo = 0;
+        for (int j = 0; j < items.length; j++) {
+            costo = Fijo.sumar(costo, Fijo.multiplicar(costoUnitario[items[j]], cantidades[j]));
+        }
+        return costo;
+    }
+}
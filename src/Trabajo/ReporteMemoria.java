@@ -0,0 +1,70 @@
+package Trabajo;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.Date;
+
+// Huella en el heap de los lotes: mide el heap ocupado (después de forzar la
+// recolección) antes y después de crear lotes sueltos y de cargar data.txt,
+// e informa los bytes por lote y por ítem. Solo usa DataLoader, Inventario y
+// los constructores públicos de Lote, para poder comparar versiones distintas
+// del inventario con el mismo reporte. Conviene correrlo con un heap fijo
+// (-Xms = -Xmx) y sin otras cargas en la JVM.
+//
+// Uso: java Trabajo.ReporteMemoria [data.txt] [lotes sueltos]
+public class ReporteMemoria {
+    private static final MemoryMXBean MEMORIA = ManagementFactory.getMemoryMXBean();
+
+    public static void main(String[] args) {
+        String archivo = args.length > 0 ? args[0] : "data.txt";
+        int sueltos = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        long antes = heapOcupado();
+        Lote[] lotes = new Lote[sueltos];
+        long hoy = System.currentTimeMillis();
+        for (int i = 0; i < sueltos; i++) {
+            lotes[i] = new Lote(GeneradorCodigos.nuevoCodigoLote(), 1 + i % 100,
+                    new Date(hoy + (i % 365) * 86_400_000L), 1000);
+        }
+        long bytes = heapOcupado() - antes - 16L - 4L * sueltos; // Sin contar el arreglo
+        Reference.reachabilityFence(lotes);
+        lotes = null;
+        System.out.printf("Lotes sueltos: %d, %.1f bytes por lote%n", sueltos, bytes / (double) sueltos);
+
+        antes = heapOcupado();
+        Inventario inventario = new Inventario();
+        DataLoader loader = new DataLoader();
+        loader.cargarDatos(archivo, inventario);
+        bytes = heapOcupado() - antes;
+        long numeroLotes = 0;
+        for (Ingrediente ingrediente : inventario.getIngredientes()) {
+            numeroLotes += ingrediente.getNumeroLotes();
+        }
+        for (Envase envase : inventario.getEnvases()) {
+            numeroLotes += envase.getNumeroLotes();
+        }
+        int items = inventario.getNumeroItems();
+        Reference.reachabilityFence(inventario);
+        Reference.reachabilityFence(loader);
+        System.out.printf("%s: %d ítems, %d lotes, %.1f MB en el heap%n", archivo, items, numeroLotes, bytes / 1e6);
+        if (numeroLotes > 0) {
+            System.out.printf("  %.1f bytes por lote (incluye la parte de cada ítem)%n", bytes / (double) numeroLotes);
+        }
+        if (items > 0) {
+            System.out.printf("  %.1f bytes por ítem con sus lotes%n", bytes / (double) items);
+        }
+    }
+
+    // Heap usado después de recolectar hasta que deja de bajar
+    private static long heapOcupado() {
+        long anterior = Long.MAX_VALUE;
+        long actual = MEMORIA.getHeapMemoryUsage().getUsed();
+        for (int i = 0; i < 10 && actual < anterior; i++) {
+            System.gc();
+            anterior = actual;
+            actual = MEMORIA.getHeapMemoryUsage().getUsed();
+        }
+        return actual;
+    }
+}
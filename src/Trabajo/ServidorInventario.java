@@ -0,0 +1,453 @@
+package Trabajo;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+
+// API HTTP/JSON sobre un Inventario compartido, con el HttpServer del JDK.
+// Cada petición corre en su propio hilo virtual si la JVM los tiene (Java 21
+// o posterior); en versiones anteriores, en un pool fijo de hilos de
+// plataforma (-Dinventario.http.hilos, 256 si no se indica). Las altas de
+// lotes y las órdenes de producción van al mismo diario que el menú; con
+// CADA_BLOQUE la respuesta sale cuando el registro ya es durable, y las
+// peticiones simultáneas comparten el force() del bloque. Cada petición se
+// autentica con HTTP Basic contra los usuarios de Usuarios.txt.
+//
+//   GET  /api/items?tipo=ingrediente|envase|producto[&nombre=N][&desde=0&limite=100]
+//   GET  /api/buscar?tipo=...&q=texto
+//   POST /api/lotes        {"item":..,"cantidad":..,"precioTotal":..,"vencimiento":"yyyy-MM-dd"}
+//   POST /api/producciones {"producto":..,"cantidad":..,"precioTotal":..,"vencimiento":"yyyy-MM-dd"}
+//   GET  /api/reportes/general|ingredientes|envases|productos[?formato=json|csv|texto]
+//   GET  /api/vencimientos?dias=7
+//
+// Los errores se responden como {"error":"mensaje"}: 400 datos inválidos,
+// 401 sin credenciales válidas, 404 ítem inexistente, 405 método no permitido, 409 stock insuficiente,
+// 500 error interno.
+public class ServidorInventario implements AutoCloseable {
+    private static final int LIMITE_PREDETERMINADO = 100;
+    private static final int LIMITE_MAXIMO = 1000;
+
+    static {
+        // El HttpServer escribe la cabecera y el cuerpo en segmentos separados; con
+        // Nagle activo y el ACK retardado del cliente cada respuesta esperaba ~40 ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final Inventario inventario;
+    private final DiarioMovimientos diario; // Puede ser null (sin diario)
+    private final Produccion produccion;
+    private final HttpServer servidor;
+    private final ExecutorService ejecutor;
+    private final BiPredicate<String, String> credenciales; // (usuario, contraseña) -> válidas
+
+    public ServidorInventario(InetSocketAddress direccion, Inventario inventario, DiarioMovimientos diario,
+                              List<MovimientoInventario> movimientos, BiPredicate<String, String> credenciales)
+            throws IOException {
+        this.inventario = inventario;
+        this.credenciales = credenciales;
+        this.diario = diario;
+        this.produccion = new Produccion(diario, movimientos);
+        this.servidor = HttpServer.create(direccion, 1024);
+        this.ejecutor = nuevoEjecutor();
+        servidor.setExecutor(ejecutor);
+        servidor.createContext("/api/items", intercambio -> atender(intercambio, "GET", this::items));
+        servidor.createContext("/api/buscar", intercambio -> atender(intercambio, "GET", this::buscar));
+        servidor.createContext("/api/lotes", intercambio -> atender(intercambio, "POST", this::agregarLote));
+        servidor.createContext("/api/producciones", intercambio -> atender(intercambio, "POST", this::producir));
+        servidor.createContext("/api/reportes/", intercambio -> atender(intercambio, "GET", this::reporte));
+        servidor.createContext("/api/vencimientos", intercambio -> atender(intercambio, "GET", this::vencimientos));
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    public int getPuerto() {
+        return servidor.getAddress().getPort();
+    }
+
+    // Un hilo virtual por petición (Executors.newVirtualThreadPerTaskExecutor,
+    // buscado por reflexión para seguir compilando con Java 17); si no está o
+    // es una vista previa deshabilitada, un pool fijo de hilos de plataforma
+    static ExecutorService nuevoEjecutor() {
+        try {
+            Method metodo = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) metodo.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            AtomicInteger contador = new AtomicInteger();
+            return Executors.newFixedThreadPool(Integer.getInteger("inventario.http.hilos", 256), r -> {
+                Thread hilo = new Thread(r, "http-" + contador.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+
+    // Deja de aceptar conexiones y espera hasta 5 s a las peticiones en curso
+    @Override
+    public void close() {
+        servidor.stop(0);
+        ejecutor.shutdown();
+        try {
+            ejecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private interface Manejador {
+        void atender(HttpExchange intercambio) throws IOException, StockBajoException;
+    }
+
+    // Respuesta de error con su código HTTP
+    private static final class ErrorHttp extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int codigo;
+
+        ErrorHttp(int codigo, String mensaje) {
+            super(mensaje);
+            this.codigo = codigo;
+        }
+    }
+
+    private void atender(HttpExchange intercambio, String metodo, Manejador manejador) {
+        try {
+            autenticar(intercambio);
+            if (!intercambio.getRequestMethod().equals(metodo)) {
+                intercambio.getResponseHeaders().set("Allow", metodo);
+                throw new ErrorHttp(405, "use " + metodo);
+            }
+            manejador.atender(intercambio);
+        } catch (ErrorHttp e) {
+            responderError(intercambio, e.codigo, e.getMessage());
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responderError(intercambio, 400, e.getMessage());
+        } catch (StockBajoException e) {
+            responderError(intercambio, 409, e.getMessage());
+        } catch (IOException | UncheckedIOException | IllegalStateException e) {
+            responderError(intercambio, 500, e.getMessage());
+        } catch (RuntimeException e) {
+            // Un error no previsto igual recibe respuesta; sin esto el cliente veía la conexión cerrada
+            responderError(intercambio, 500, e.toString());
+        } finally {
+            intercambio.close();
+        }
+    }
+
+    // Authorization: Basic base64(usuario:contraseña)
+    private void autenticar(HttpExchange intercambio) {
+        String cabecera = intercambio.getRequestHeaders().getFirst("Authorization");
+        if (cabecera != null && cabecera.regionMatches(true, 0, "Basic ", 0, 6)) {
+            String usuarioYContrasena;
+            try {
+                usuarioYContrasena = new String(Base64.getDecoder().decode(cabecera.substring(6).trim()),
+                        StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                usuarioYContrasena = "";
+            }
+            int separador = usuarioYContrasena.indexOf(':');
+            if (separador >= 0 && credenciales.test(usuarioYContrasena.substring(0, separador),
+                    usuarioYContrasena.substring(separador + 1))) {
+                return;
+            }
+        }
+        intercambio.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"inventario\", charset=\"UTF-8\"");
+        throw new ErrorHttp(401, "credenciales inválidas");
+    }
+
+    // --- Consultas ---
+
+    private void items(HttpExchange intercambio) throws IOException {
+        Map<String, String> parametros = parametros(intercambio);
+        String tipo = requerido(parametros, "tipo");
+        String nombre = parametros.get("nombre");
+        if (nombre != null) {
+            ItemConLotes item = buscar(tipo, nombre);
+            if (item == null) {
+                throw new ErrorHttp(404, tipo + " '" + nombre + "' no registrado");
+            }
+            intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            intercambio.sendResponseHeaders(200, 0);
+            try (EscritorReportes escritor = escritor(intercambio, EscritorReportes.Formato.JSON)) {
+                escritor.reporteItem(item);
+            }
+            return;
+        }
+        List<? extends ItemConLotes> lista = lista(tipo);
+        int desde = Math.max(0, entero(parametros, "desde", 0));
+        int limite = Math.min(LIMITE_MAXIMO, Math.max(0, entero(parametros, "limite", LIMITE_PREDETERMINADO)));
+        int hasta = (int) Math.min(lista.size(), (long) desde + limite);
+        StringBuilder sb = new StringBuilder("{\"total\":").append(lista.size()).append(",\"nombres\":[");
+        for (int i = desde; i < hasta; i++) {
+            sb.append(i > desde ? "," : "");
+            EscritorReportes.anexarTextoJson(sb, lista.get(i).getNombre());
+        }
+        responder(intercambio, 200, sb.append("]}\n"));
+    }
+
+    private void buscar(HttpExchange intercambio) throws IOException {
+        Map<String, String> parametros = parametros(intercambio);
+        String tipo = requerido(parametros, "tipo");
+        String texto = requerido(parametros, "q");
+        List<? extends ItemConLotes> encontrados;
+        switch (tipo) {
+            case "ingrediente":
+                encontrados = inventario.buscarIngredientes(texto);
+                break;
+            case "envase":
+                encontrados = inventario.buscarEnvases(texto);
+                break;
+            case "producto":
+                encontrados = inventario.buscarProductos(texto);
+                break;
+            default:
+                throw new IllegalArgumentException("tipo desconocido '" + tipo + "'");
+        }
+        StringBuilder sb = new StringBuilder("{\"nombres\":[");
+        for (int i = 0; i < encontrados.size(); i++) {
+            sb.append(i > 0 ? "," : "");
+            EscritorReportes.anexarTextoJson(sb, encontrados.get(i).getNombre());
+        }
+        responder(intercambio, 200, sb.append("]}\n"));
+    }
+
+    private void vencimientos(HttpExchange intercambio) throws IOException {
+        int dias = entero(parametros(intercambio), "dias", 7);
+        if (dias < 1) {
+            throw new IllegalArgumentException("'dias' debe ser al menos 1");
+        }
+        LocalDate hoy = LocalDate.now();
+        StringBuilder sb = new StringBuilder("{\"dias\":[");
+        boolean primero = true;
+        for (IndiceVencimientos.ResumenDia dia : inventario.getIndiceVencimientos()
+                .resumenPorDia(hoy, hoy.plusDays(dias - 1L)).values()) {
+            sb.append(primero ? "{\"dia\":\"" : ",{\"dia\":\"").append(dia.getDia())
+                    .append("\",\"lotes\":").append(dia.getLotes())
+                    .append(",\"cantidad\":").append(dia.getCantidad().toPlainString())
+                    .append(",\"valor\":").append(dia.getValor().toPlainString()).append('}');
+            primero = false;
+        }
+        responder(intercambio, 200, sb.append("]}\n"));
+    }
+
+    // Los reportes van en flujo (chunked), sin armar la respuesta completa
+    private void reporte(HttpExchange intercambio) throws IOException {
+        String nombre = intercambio.getRequestURI().getPath().substring("/api/reportes/".length());
+        String textoFormato = parametros(intercambio).getOrDefault("formato", "json");
+        EscritorReportes.Formato formato;
+        try {
+            formato = EscritorReportes.Formato.valueOf(textoFormato.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("formato desconocido '" + textoFormato + "'");
+        }
+        if (!nombre.matches("general|ingredientes|envases|productos")) {
+            throw new ErrorHttp(404, "reporte desconocido '" + nombre + "'");
+        }
+        intercambio.getResponseHeaders().set("Content-Type", formato == EscritorReportes.Formato.JSON
+                ? "application/json; charset=utf-8"
+                : formato == EscritorReportes.Formato.CSV ? "text/csv; charset=utf-8" : "text/plain; charset=utf-8");
+        intercambio.sendResponseHeaders(200, 0);
+        try (EscritorReportes escritor = escritor(intercambio, formato)) {
+            switch (nombre) {
+                case "general":
+                    escritor.reporteGeneral(inventario);
+                    break;
+                case "ingredientes":
+                    escritor.reporteIngredientes(inventario.getIngredientes());
+                    break;
+                case "envases":
+                    escritor.reporteEnvases(inventario.getEnvases());
+                    break;
+                default:
+                    escritor.reporteProductos(inventario.getProductos());
+            }
+        }
+    }
+
+    // --- Altas ---
+
+    // Lote de un ingrediente (con vencimiento) o de un envase (sin vencimiento)
+    private void agregarLote(HttpExchange intercambio) throws IOException {
+        Map<String, String> campos = cuerpo(intercambio);
+        String nombre = requerido(campos, "item");
+        BigDecimal cantidad = cantidad(requerido(campos, "cantidad"));
+        BigDecimal precioTotal = cantidad(requerido(campos, "precioTotal"));
+        ItemConLotes item = inventario.buscarIngrediente(nombre);
+        Lote lote;
+        if (item != null) {
+            lote = Lote.nuevo(cantidad, fecha(requerido(campos, "vencimiento")), precioTotal);
+        } else {
+            item = inventario.buscarEnvase(nombre);
+            if (item == null) {
+                throw new ErrorHttp(404, "'" + nombre + "' no es un ingrediente ni un envase registrado");
+            }
+            lote = Lote.nuevo(cantidad, null, precioTotal);
+        }
+        // Registro y aplicación bajo el lock del ítem; si el diario lo rechaza, el
+        // lote no entra y el cliente puede reintentar
+        item.agregarLote(lote, diario);
+        responderLote(intercambio, "item", item, lote);
+    }
+
+    private void producir(HttpExchange intercambio) throws IOException, StockBajoException {
+        Map<String, String> campos = cuerpo(intercambio);
+        String nombre = requerido(campos, "producto");
+        Producto producto = inventario.buscarProducto(nombre);
+        if (producto == null) {
+            throw new ErrorHttp(404, "producto '" + nombre + "' no registrado");
+        }
+        Lote lote = produccion.producir(producto, cantidad(requerido(campos, "cantidad")),
+                cantidad(requerido(campos, "precioTotal")), fecha(requerido(campos, "vencimiento")));
+        responderLote(intercambio, "producto", producto, lote);
+    }
+
+    private static void responderLote(HttpExchange intercambio, String clave, ItemConLotes item, Lote lote)
+            throws IOException {
+        StringBuilder sb = new StringBuilder("{\"").append(clave).append("\":");
+        EscritorReportes.anexarTextoJson(sb, item.getNombre());
+        sb.append(",\"lote\":");
+        EscritorReportes.anexarJson(sb, lote);
+        responder(intercambio, 201, sb.append("}\n"));
+    }
+
+    // --- Utilidades ---
+
+    private ItemConLotes buscar(String tipo, String nombre) {
+        switch (tipo) {
+            case "ingrediente":
+                return inventario.buscarIngrediente(nombre);
+            case "envase":
+                return inventario.buscarEnvase(nombre);
+            case "producto":
+                return inventario.buscarProducto(nombre);
+            default:
+                throw new IllegalArgumentException("tipo desconocido '" + tipo + "'");
+        }
+    }
+
+    private List<? extends ItemConLotes> lista(String tipo) {
+        switch (tipo) {
+            case "ingrediente":
+                return inventario.getIngredientes();
+            case "envase":
+                return inventario.getEnvases();
+            case "producto":
+                return inventario.getProductos();
+            default:
+                throw new IllegalArgumentException("tipo desconocido '" + tipo + "'");
+        }
+    }
+
+    private static EscritorReportes escritor(HttpExchange intercambio, EscritorReportes.Formato formato) {
+        return new EscritorReportes(new OutputStreamWriter(intercambio.getResponseBody(), StandardCharsets.UTF_8),
+                formato);
+    }
+
+    private static Map<String, String> parametros(HttpExchange intercambio) {
+        Map<String, String> parametros = new HashMap<>();
+        String consulta = intercambio.getRequestURI().getRawQuery();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(clave, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    private static Map<String, String> cuerpo(HttpExchange intercambio) throws IOException {
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            return LectorJson.leerObjeto(new String(entrada.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String requerido(Map<String, String> campos, String clave) {
+        String valor = campos.get(clave);
+        if (valor == null || valor.isEmpty()) {
+            throw new IllegalArgumentException("falta '" + clave + "'");
+        }
+        return valor;
+    }
+
+    private static int entero(Map<String, String> parametros, String clave, int predeterminado) {
+        String valor = parametros.get(clave);
+        if (valor == null) {
+            return predeterminado;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("'" + clave + "' debe ser un número entero");
+        }
+    }
+
+    private static BigDecimal cantidad(String texto) {
+        BigDecimal cantidad;
+        try {
+            cantidad = new BigDecimal(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("cantidad inválida '" + texto + "'");
+        }
+        if (cantidad.signum() < 0) {
+            throw new IllegalArgumentException("la cantidad no puede ser negativa");
+        }
+        return cantidad;
+    }
+
+    // yyyy-MM-dd, al inicio del día en la zona del sistema (como las fechas del menú)
+    private static Date fecha(String texto) {
+        return Date.from(LocalDate.parse(texto).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static void responder(HttpExchange intercambio, int codigo, CharSequence json) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        intercambio.sendResponseHeaders(codigo, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    // Si la respuesta ya empezó (un reporte a medias) solo queda cortar la conexión
+    private static void responderError(HttpExchange intercambio, int codigo, String mensaje) {
+        if (intercambio.getResponseCode() != -1) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        EscritorReportes.anexarTextoJson(sb, mensaje == null ? "error interno" : mensaje);
+        try {
+            responder(intercambio, codigo, sb.append("}\n"));
+        } catch (IOException e) {
+            // El cliente ya cerró la conexión
+        }
+    }
+}
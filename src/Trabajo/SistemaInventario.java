@@ -1,15 +1,39 @@
 package Trabajo;
 
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 
 public class SistemaInventario {
-    private final Inventario inventario;
+    private Inventario inventario;
     private Usuario usuarioActual;
     private static final HashMap<String, String> credenciales = new HashMap<>();
     private final List<MovimientoInventario> movimientos;
     private final Stack<Runnable> menuStack; // Pila para gestionar los menús
+    private static final long UMBRAL_CARGA_PARALELA = 64L * 1024 * 1024;
+    private static final Path ARCHIVO_INSTANTANEA = Paths.get("src/inventario.snap");
+    private static final Path ARCHIVO_DIARIO = Paths.get("src/movimientos.diario");
+    private static final String ARCHIVO_USUARIOS = "src/Usuarios.txt";
+    private DiarioMovimientos diario;
+    private BarridoVencimientos barrido; // Solo si se pidió con -Dinventario.vencimientos.barridoMin
+    private long secuenciaInstantanea = 0; // Último registro del diario incluido en la instantánea
+    private CargadorPerezoso cargadorPerezoso; // Solo con -Dinventario.carga.perezosa=true
+    private AlmacenMapeado almacenMapeado; // Solo con -Dinventario.almacen.mapeado=archivo
+    private boolean instantaneaRestaurada = false; // El inventario salió de la instantánea, no de data.txt
+    private int erroresInformados = 0; // De cargadorPerezoso, ya mostrados
 
     public SistemaInventario() {
         this.inventario = new Inventario();
@@ -19,29 +43,412 @@ public class SistemaInventario {
 
     public static void main(String[] args) {
         SistemaInventario sistema = new SistemaInventario();
+        if (args.length > 0 && args[0].equals("--lotes")) {
+            System.exit(sistema.ejecutarLotes(args.length > 1 ? args[1] : "-"));
+        }
+        if (args.length > 0 && args[0].equals("--servidor")) {
+            int puerto = 8080;
+            if (args.length > 1) {
+                try {
+                    puerto = Integer.parseInt(args[1]);
+                } catch (NumberFormatException e) {
+                    puerto = -1;
+                }
+                if (puerto < 0 || puerto > 65535) {
+                    System.out.println("Puerto inválido: " + args[1] + ". Uso: --servidor [puerto]");
+                    System.exit(2);
+                }
+            }
+            if (!sistema.iniciarServidor(puerto)) {
+                System.exit(2);
+            }
+            return;
+        }
         sistema.iniciar();
     }
 
-    public void iniciar() {
-        String filePath = "src/Usuarios.txt";
-        LectorUsuarioContrasena lector = LectorUsuarioContrasena.getInstance();
-        int resultado = lector.leerArchivoUsuarioYContrasena(filePath, credenciales);
+    // Modo sin menú (ver ModoLotes): --lotes archivo, o --lotes - para la entrada estándar.
+    // El diario usa PERIODICA salvo que se indique otra política, y se sincroniza cada
+    // -Dinventario.lotes.operacionesPorLote=N operaciones (1000 si no se indica).
+    // Sin menú no hay a quién pedirle el login: el usuario y la contraseña de Usuarios.txt
+    // se toman de las variables de entorno INVENTARIO_USUARIO e INVENTARIO_CONTRASENA.
+    // Devuelve 0 si todo se aplicó, 1 si alguna línea tuvo error y 2 si el lote no pudo correr.
+    public int ejecutarLotes(String archivo) {
+        if (!cargarCredenciales() || !autenticarDesdeEntorno()) {
+            return 2;
+        }
+        cargarDatosIniciales();
+        if (!abrirDiario("PERIODICA")) {
+            cerrarAlmacenMapeado(false);
+            return 2;
+        }
+        activarAlmacenMapeado();
+        ModoLotes modo = new ModoLotes(inventario, diario, movimientos, System.out);
+        modo.setOperacionesPorLote(Integer.getInteger("inventario.lotes.operacionesPorLote", 1000));
+        try (BufferedReader entrada = archivo.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                : Files.newBufferedReader(Paths.get(archivo), StandardCharsets.UTF_8)) {
+            modo.ejecutar(entrada);
+        } catch (IOException | UncheckedIOException | IllegalStateException e) {
+            // Sin poder leer el lote o escribir el diario no se guarda la instantánea
+            System.out.println("No se pudo ejecutar el lote: " + e.getMessage());
+            System.out.print(modo.resumen());
+            cerrarDiario();
+            cerrarAlmacenMapeado(false);
+            cerrarCargaPerezosa();
+            return 2;
+        }
+        for (ErrorCarga error : modo.getErrores()) {
+            System.out.println("Error en " + archivo + ", " + error);
+        }
+        System.out.print(modo.resumen());
+        boolean guardada = guardarInstantanea();
+        cerrarDiario();
+        cerrarAlmacenMapeado(guardada);
+        cerrarCargaPerezosa();
+        return modo.getErrores().isEmpty() ? 0 : 1;
+    }
 
-        if (resultado == -1) {
-            System.out.println("No se pudo cargar el archivo de usuarios.");
+    // API HTTP (ver ServidorInventario): --servidor [puerto]. El diario usa CADA_BLOQUE
+    // salvo que se indique otra política. Escucha solo en 127.0.0.1 salvo que se indique
+    // -Dinventario.http.direccion=host (0.0.0.0 para todas las interfaces), y cada petición
+    // se autentica con los usuarios de Usuarios.txt. El servidor sigue atendiendo después
+    // de volver; al terminar el proceso (Ctrl+C o SIGTERM) se cierra y se guarda la instantánea.
+    public boolean iniciarServidor(int puerto) {
+        if (!cargarCredenciales()) {
+            return false;
+        }
+        String host = System.getProperty("inventario.http.direccion", "127.0.0.1");
+        InetSocketAddress direccion = new InetSocketAddress(host, puerto);
+        if (direccion.isUnresolved()) {
+            System.out.println("Dirección inválida para el servidor: " + host);
+            return false;
+        }
+        cargarDatosIniciales();
+        if (!abrirDiario("CADA_BLOQUE")) {
+            cerrarAlmacenMapeado(false);
+            return false;
+        }
+        activarAlmacenMapeado();
+        Metricas.registrarMBean(inventario);
+        iniciarBarridoVencimientos();
+        ServidorInventario servidor;
+        try {
+            servidor = new ServidorInventario(direccion, inventario, diario, movimientos,
+                    SistemaInventario::credencialesValidas);
+        } catch (IOException e) {
+            System.out.println("No se pudo iniciar el servidor en " + host + ":" + puerto + ": " + e.getMessage());
+            cerrarDiario();
+            cerrarAlmacenMapeado(false);
+            cerrarCargaPerezosa();
+            return false;
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            servidor.close();
+            if (barrido != null) {
+                barrido.close();
+            }
+            boolean guardada = guardarInstantanea();
+            cerrarDiario();
+            cerrarAlmacenMapeado(guardada);
+            cerrarCargaPerezosa();
+        }, "cierre-servidor"));
+        servidor.iniciar();
+        System.out.println("Servidor de inventario en http://" + host + ":" + servidor.getPuerto() + "/api");
+        return true;
+    }
+
+    public void iniciar() {
+        if (!cargarCredenciales()) {
             return;
         }
 
         cargarDatosIniciales(); 
+        if (!abrirDiario("CADA_BLOQUE")) {
+            cerrarAlmacenMapeado(false);
+            return;
+        }
+        activarAlmacenMapeado();
+        Metricas.registrarMBean(inventario);
+        iniciarBarridoVencimientos();
 
         autenticarUsuario();
         mostrarMenu();
+        if (barrido != null) {
+            barrido.close();
+        }
+        boolean guardada = guardarInstantanea();
+        cerrarDiario();
+        cerrarAlmacenMapeado(guardada);
+        cerrarCargaPerezosa();
     }
 
     private void cargarDatosIniciales() {
+        abrirAlmacenMapeado();
+        cargarInventario();
+        // -Dinventario.almacen.columnar=true: valoraciones sobre columnas de primitivos (ver AlmacenColumnar)
+        if (Boolean.getBoolean("inventario.almacen.columnar")) {
+            inventario.activarAlmacenColumnar();
+        }
+    }
+
+    private void cargarInventario() {
+        // Si hay una instantánea de la sesión anterior se restaura en lugar de data.txt
+        if (Files.exists(ARCHIVO_INSTANTANEA)) {
+            try {
+                secuenciaInstantanea = new Instantanea().cargar(ARCHIVO_INSTANTANEA, inventario, movimientos,
+                        almacenMapeado);
+                instantaneaRestaurada = true;
+                return;
+            } catch (IOException e) {
+                System.out.println("No se pudo restaurar la instantánea: " + e.getMessage() + ". Se cargará data.txt.");
+                inventario = new Inventario();
+                movimientos.clear();
+            }
+        }
+        cargarDataTxt();
+    }
+
+    private void cargarDataTxt() {
         String dataFilePath = "src/data.txt";
         DataLoader dataLoader = new DataLoader();
-        dataLoader.cargarDatos(dataFilePath, inventario);
+        boolean perezosa = Boolean.getBoolean("inventario.carga.perezosa");
+        if (perezosa && System.getProperty("inventario.almacen.mapeado") != null) {
+            // Pasar los lotes al almacén mapeado obliga a leerlos todos al arrancar
+            System.out.println("La carga perezosa no se usa con el almacén mapeado.");
+            perezosa = false;
+        }
+        if (perezosa && cargarPerezoso(dataFilePath)) {
+            cargarProductos(dataLoader);
+            return;
+        }
+        // Los archivos grandes (importaciones nocturnas) se cargan en paralelo
+        if (new File(dataFilePath).length() > UMBRAL_CARGA_PARALELA) {
+            long inicio = System.nanoTime();
+            long lineas = dataLoader.cargarDatosParalelo(dataFilePath, inventario);
+            long milis = Math.max(1, (System.nanoTime() - inicio) / 1_000_000);
+            if (lineas >= 0) {
+                System.out.println("Datos cargados: " + lineas + " líneas en " + milis + " ms ("
+                        + lineas * 1000 / milis + " líneas/s).");
+            }
+        } else {
+            dataLoader.cargarDatos(dataFilePath, inventario);
+        }
+        for (ErrorCarga error : dataLoader.getErrores()) {
+            System.out.println("Dato inválido en " + dataFilePath + ", " + error);
+        }
+        cargarProductos(dataLoader);
+    }
+
+    // Recetas opcionales, por ejemplo las de GeneradorDatos
+    private void cargarProductos(DataLoader dataLoader) {
+        String productosFilePath = "src/productos.txt";
+        if (new File(productosFilePath).exists()) {
+            dataLoader.cargarProductos(productosFilePath, inventario);
+            for (ErrorCarga error : dataLoader.getErrores()) {
+                System.out.println("Dato inválido en " + productosFilePath + ", " + error);
+            }
+        }
+    }
+
+    // Carga perezosa (ver CargadorPerezoso): -Dinventario.carga.perezosa=true, con
+    // -Dinventario.carga.maxItems=N para mantener a lo sumo N ítems leídos (0 = sin límite)
+    private boolean cargarPerezoso(String dataFilePath) {
+        try {
+            cargadorPerezoso = new CargadorPerezoso(dataFilePath, Integer.getInteger("inventario.carga.maxItems", 0));
+            cargadorPerezoso.cargar(inventario);
+        } catch (IOException e) {
+            System.out.println("No se pudo abrir " + dataFilePath + " para la carga perezosa: " + e.getMessage()
+                    + ". Se cargará completo.");
+            cerrarCargaPerezosa();
+            inventario = new Inventario();
+            return false;
+        }
+        erroresInformados = cargadorPerezoso.getErrores().size();
+        for (ErrorCarga error : cargadorPerezoso.getErrores()) {
+            System.out.println("Dato inválido en " + dataFilePath + ", " + error);
+        }
+        return true;
+    }
+
+    // Informa los errores de los lotes leídos durante la sesión y cierra data.txt
+    private void cerrarCargaPerezosa() {
+        if (cargadorPerezoso == null) {
+            return;
+        }
+        List<ErrorCarga> errores = cargadorPerezoso.getErrores();
+        for (ErrorCarga error : errores.subList(erroresInformados, errores.size())) {
+            System.out.println("Dato inválido en src/data.txt, " + error);
+        }
+        try {
+            cargadorPerezoso.close();
+        } catch (IOException e) {
+            System.out.println("Error al cerrar data.txt: " + e.getMessage());
+        }
+        cargadorPerezoso = null;
+    }
+
+    // Abre el diario de movimientos y reaplica lo registrado después de la última instantánea.
+    // La política de sincronización y la latencia de agrupación se configuran con
+    // -Dinventario.diario.politica=CADA_BLOQUE|PERIODICA|NINGUNA y -Dinventario.diario.latenciaMs=N
+    private boolean abrirDiario(String politicaPredeterminada) {
+        try {
+            DiarioMovimientos.PoliticaSincronizacion politica = DiarioMovimientos.PoliticaSincronizacion.valueOf(
+                    System.getProperty("inventario.diario.politica", politicaPredeterminada));
+            long latenciaMs = Long.parseLong(System.getProperty("inventario.diario.latenciaMs", "2"));
+            diario = new DiarioMovimientos(ARCHIVO_DIARIO, politica, latenciaMs, TimeUnit.MILLISECONDS, secuenciaInstantanea);
+            long reproducidos = diario.reproducir(inventario, movimientos, secuenciaInstantanea);
+            if (reproducidos > 0) {
+                System.out.println("Se recuperaron " + reproducidos + " movimientos del diario.");
+            }
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("No se pudo abrir el diario de movimientos: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Retiro periódico de los lotes vencidos: -Dinventario.vencimientos.barridoMin=N (minutos, 0 = no)
+    private void iniciarBarridoVencimientos() {
+        long minutos = Long.getLong("inventario.vencimientos.barridoMin", 0);
+        if (minutos > 0) {
+            barrido = new BarridoVencimientos(inventario, diario, movimientos);
+            barrido.iniciar(minutos, TimeUnit.MINUTES);
+        }
+    }
+
+    private void cerrarDiario() {
+        try {
+            diario.close();
+        } catch (IOException e) {
+            System.out.println("Error al cerrar el diario de movimientos: " + e.getMessage());
+        }
+    }
+
+    // Devuelve false si no se pudo guardar (o vaciar el diario después)
+    private boolean guardarInstantanea() {
+        try {
+            // Sin operaciones a medias: la secuencia corresponde al estado guardado
+            long secuencia = diario.conOperacionesDetenidas(
+                    hasta -> new Instantanea().guardar(ARCHIVO_INSTANTANEA, inventario, movimientos, hasta));
+            // Lo que ya está en la instantánea no hace falta reproducirlo
+            diario.vaciar(secuencia);
+            secuenciaInstantanea = secuencia;
+            return true;
+        } catch (IOException e) {
+            System.out.println("No se pudo guardar la instantánea del inventario: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // Lotes fuera del heap (ver AlmacenMapeado): -Dinventario.almacen.mapeado=archivo.
+    // Se abre antes de restaurar la instantánea: si se cerró al día con ella (misma
+    // secuencia), los ítems que tienen cola en el archivo se restauran sobre ella sin
+    // pasar sus lotes por el heap (ver Instantanea) y el diario se reproduce encima.
+    // Sus colas son FIFO: requiere -Dinventario.consumo=FIFO. Si no se puede abrir,
+    // los lotes quedan en memoria.
+    private void abrirAlmacenMapeado() {
+        String ruta = System.getProperty("inventario.almacen.mapeado");
+        if (ruta == null) {
+            return;
+        }
+        if (PoliticaConsumo.predeterminada() != PoliticaConsumo.FIFO) {
+            System.out.println("El almacén mapeado requiere -Dinventario.consumo=FIFO; los lotes quedan en memoria.");
+            return;
+        }
+        try {
+            Path archivo = Paths.get(ruta);
+            try {
+                almacenMapeado = new AlmacenMapeado(archivo);
+            } catch (IOException e) {
+                System.out.println("Se descarta el almacén mapeado " + ruta + ": " + e.getMessage());
+                Files.delete(archivo);
+                almacenMapeado = new AlmacenMapeado(archivo);
+            }
+        } catch (IOException | UncheckedIOException | IllegalArgumentException e) {
+            System.out.println("No se pudo abrir el almacén mapeado " + ruta + ": " + e.getMessage()
+                    + ". Los lotes quedan en memoria.");
+        }
+    }
+
+    // Con el diario ya reproducido, pasa al almacén los ítems que todavía tienen
+    // sus lotes en memoria. La instantánea y el diario siguen siendo la fuente de
+    // verdad: si el archivo no estaba al día con la instantánea restaurada (una
+    // caída, otra instantánea, data.txt) se vacía antes y se llena con lo cargado.
+    private void activarAlmacenMapeado() {
+        if (almacenMapeado == null) {
+            return;
+        }
+        try {
+            if (!instantaneaRestaurada || almacenMapeado.getSecuenciaCierre() != secuenciaInstantanea) {
+                almacenMapeado.vaciar();
+            }
+            inventario.activarAlmacenMapeado(almacenMapeado); // Si falla a mitad, los ítems ya pasados siguen allí
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            System.out.println("No se pudo pasar los lotes al almacén mapeado: " + e.getMessage()
+                    + ". Los que faltan quedan en memoria.");
+        }
+    }
+
+    // Con la instantánea guardada el archivo queda marcado al día con su secuencia
+    // y el próximo arranque lo reutiliza; si no, se volverá a llenar
+    private void cerrarAlmacenMapeado(boolean instantaneaGuardada) {
+        if (almacenMapeado == null) {
+            return;
+        }
+        try {
+            if (instantaneaGuardada) {
+                almacenMapeado.cerrar(secuenciaInstantanea);
+            } else {
+                almacenMapeado.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Error al cerrar el almacén mapeado: " + e.getMessage());
+        }
+        almacenMapeado = null;
+    }
+
+    // Registra en el diario el alta del ítem junto con sus lotes iniciales. Va
+    // antes de agregar el ítem al inventario: si el diario falla, no se agrega.
+    private void registrarAltaEnDiario(ItemConLotes item) {
+        if (item instanceof Ingrediente) {
+            diario.registrarIngrediente((Ingrediente) item);
+        } else if (item instanceof Envase) {
+            diario.registrarEnvase((Envase) item);
+        }
+        long secuencia = -1;
+        for (Lote lote : item.getLotes()) {
+            secuencia = diario.registrarIngresoLote(item, lote);
+        }
+        if (secuencia >= 0) {
+            diario.esperarRegistro(secuencia);
+        }
+    }
+
+    private boolean cargarCredenciales() {
+        LectorUsuarioContrasena lector = LectorUsuarioContrasena.getInstance();
+        if (lector.leerArchivoUsuarioYContrasena(ARCHIVO_USUARIOS, credenciales) == -1) {
+            System.out.println("No se pudo cargar el archivo de usuarios.");
+            return false;
+        }
+        return true;
+    }
+
+    static boolean credencialesValidas(String nombreUsuario, String contrasena) {
+        return nombreUsuario != null && contrasena != null && contrasena.equals(credenciales.get(nombreUsuario));
+    }
+
+    // Login de los modos sin menú (ver ejecutarLotes)
+    private boolean autenticarDesdeEntorno() {
+        String nombreUsuario = System.getenv("INVENTARIO_USUARIO");
+        String contrasena = System.getenv("INVENTARIO_CONTRASENA");
+        if (!credencialesValidas(nombreUsuario, contrasena)) {
+            System.out.println("Credenciales incorrectas: defina INVENTARIO_USUARIO e INVENTARIO_CONTRASENA con un usuario de "
+                    + ARCHIVO_USUARIOS + ".");
+            return false;
+        }
+        usuarioActual = new Usuario(nombreUsuario, contrasena);
+        return true;
     }
 
     private void autenticarUsuario() {
@@ -54,7 +461,7 @@ public class SistemaInventario {
             System.out.print("Ingrese su contraseña: ");
             String contrasena = scanner.nextLine();
 
-            if (credenciales.containsKey(nombreUsuario) && credenciales.get(nombreUsuario).equals(contrasena)) {
+            if (credencialesValidas(nombreUsuario, contrasena)) {
                 usuarioActual = new Usuario(nombreUsuario, contrasena);
                 autenticado = true;
                 System.out.println("Autenticación exitosa. Bienvenido, " + nombreUsuario + "!");
@@ -78,6 +485,7 @@ public class SistemaInventario {
                 System.out.println("6. Agregar Stock de Envase");
                 System.out.println("7. Crear Orden de Producción");
                 System.out.println("8. Buscar Ingrediente, Envase o Producto");
+                System.out.println("9. Planificar Producción");
                 System.out.println("0. Salir");
                 System.out.print("Seleccione una opción: ");
                 String opcionStr = scanner.nextLine();
@@ -116,6 +524,9 @@ public class SistemaInventario {
                         menuStack.push(this::mostrarMenu);
                         buscarIngredienteOEnvase(scanner);
                         break;
+                    case 9:
+                        planificarProduccion();
+                        break;
                     case 0:
                         System.out.println("Saliendo del sistema.");
                         break;
@@ -167,14 +578,14 @@ public class SistemaInventario {
 
                         for (int i = 0; i < numLotes; i++) {
                             System.out.println("=== Lote " + (i + 1) + " ===");
-                            String codigoLote = generarCodigoLote();
                             BigDecimal cantidad = leerCantidad(scanner, "Cantidad (ejemplo: 100.5): ");
                             BigDecimal precioTotal = leerCantidad(scanner, "Precio total del lote (ejemplo: 500.00): ");
                             Date fechaVencimiento = leerFecha(scanner, "Fecha de Vencimiento (dd/MM/yyyy): ");
-                            Lote lote = new Lote(codigoLote, cantidad, fechaVencimiento, precioTotal);
+                            Lote lote = Lote.nuevo(cantidad, fechaVencimiento, precioTotal);
                             ingrediente.agregarLote(lote);
                         }
 
+                        registrarAltaEnDiario(ingrediente);
                         inventario.agregarIngrediente(ingrediente);
                         System.out.println("Ingrediente registrado exitosamente.");
                         break;
@@ -218,13 +629,13 @@ public class SistemaInventario {
 
                         for (int i = 0; i < numLotes; i++) {
                             System.out.println("=== Lote " + (i + 1) + " ===");
-                            String codigoLote = generarCodigoLote();
                             BigDecimal cantidad = leerCantidad(scanner, "Cantidad (ejemplo: 1000): ");
                             BigDecimal precioTotal = leerCantidad(scanner, "Precio total del lote (ejemplo: 2000.00): ");
-                            Lote lote = new Lote(codigoLote, cantidad, precioTotal);
+                            Lote lote = Lote.nuevo(cantidad, null, precioTotal);
                             envase.agregarLote(lote);
                         }
 
+                        registrarAltaEnDiario(envase);
                         inventario.agregarEnvase(envase);
                         System.out.println("Envase registrado exitosamente.");
                         break;
@@ -283,7 +694,12 @@ public class SistemaInventario {
                                 }
                                 Ingrediente ingrediente = listaIngredientes.get(numIngrediente - 1);
                                 BigDecimal cantidad = leerCantidad(scanner, "Cantidad requerida (ejemplo: 0.5): ");
-                                receta.agregarIngrediente(ingrediente, cantidad);
+                                try {
+                                    receta.agregarIngrediente(ingrediente, cantidad);
+                                } catch (IllegalArgumentException e) {
+                                    System.out.println(e.getMessage() + " Intente nuevamente.");
+                                    continue;
+                                }
                                 break;
                             }
                         }
@@ -311,7 +727,12 @@ public class SistemaInventario {
                                 }
                                 Envase envase = listaEnvases.get(numEnvase - 1);
                                 BigDecimal cantidad = leerCantidad(scanner, "Cantidad requerida (ejemplo: 1): ");
-                                receta.agregarEnvase(envase, cantidad);
+                                try {
+                                    receta.agregarEnvase(envase, cantidad);
+                                } catch (IllegalArgumentException e) {
+                                    System.out.println(e.getMessage() + " Intente nuevamente.");
+                                    continue;
+                                }
                                 break;
                             }
                         }
@@ -320,6 +741,7 @@ public class SistemaInventario {
 
                         Producto producto = new Producto(nombre, categoria, receta);
 
+                        diario.registrarProducto(producto);
                         inventario.agregarProducto(producto);
                         System.out.println("Producto registrado exitosamente.");
                         break;
@@ -346,6 +768,9 @@ public class SistemaInventario {
             System.out.println("3. Reporte de Envases");
             System.out.println("4. Reporte de Producciones");
             System.out.println("5. Reporte General");
+            System.out.println("6. Lotes por Vencer");
+            System.out.println("7. Exportar Reporte (CSV/JSON)");
+            System.out.println("8. Valoración por Categoría");
             System.out.println("0. Volver al menú anterior");
             System.out.print("Seleccione una opción: ");
             try {
@@ -367,6 +792,15 @@ public class SistemaInventario {
                     case 5:
                         inventario.generarReporteGeneral();
                         break;
+                    case 6:
+                        reporteVencimientos(scanner);
+                        break;
+                    case 7:
+                        exportarReporte(scanner);
+                        break;
+                    case 8:
+                        System.out.println(new ValoradorInventario().valorar(inventario));
+                        break;
                     case 0:
                         regresarMenuAnterior();
                         return;
@@ -413,12 +847,11 @@ public class SistemaInventario {
 
                         for (int i = 0; i < numLotes; i++) {
                             System.out.println("=== Lote " + (i + 1) + " ===");
-                            String codigoLote = generarCodigoLote();
                             BigDecimal cantidad = leerCantidad(scanner, "Cantidad (ejemplo: 50): ");
                             BigDecimal precioTotal = leerCantidad(scanner, "Precio total del lote (ejemplo: 100.00): ");
                             Date fechaVencimiento = leerFecha(scanner, "Fecha de Vencimiento (dd/MM/yyyy): ");
-                            Lote lote = new Lote(codigoLote, cantidad, fechaVencimiento, precioTotal);
-                            ingrediente.agregarLote(lote);
+                            Lote lote = Lote.nuevo(cantidad, fechaVencimiento, precioTotal);
+                            ingrediente.agregarLote(lote, diario);
                         }
 
                         System.out.println("Lotes agregados exitosamente al ingrediente.");
@@ -469,11 +902,10 @@ public class SistemaInventario {
 
                         for (int i = 0; i < numLotes; i++) {
                             System.out.println("=== Lote " + (i + 1) + " ===");
-                            String codigoLote = generarCodigoLote();
                             BigDecimal cantidad = leerCantidad(scanner, "Cantidad (ejemplo: 500): ");
                             BigDecimal precioTotal = leerCantidad(scanner, "Precio total del lote (ejemplo: 800.00): ");
-                            Lote lote = new Lote(codigoLote, cantidad, precioTotal);
-                            envase.agregarLote(lote);
+                            Lote lote = Lote.nuevo(cantidad, null, precioTotal);
+                            envase.agregarLote(lote, diario);
                         }
 
                         System.out.println("Lotes agregados exitosamente al envase.");
@@ -591,21 +1023,16 @@ public class SistemaInventario {
                             if (cantidadLote.compareTo(BigDecimal.ZERO) == 0) {
                                 continue; // Saltar al siguiente lote si el usuario canceló este
                             }
+                            BigDecimal precioTotal = leerCantidad(scanner, "Precio total del lote (ejemplo: 1500.00): ");
+                            Date fechaVencimiento = leerFecha(scanner, "Fecha de Vencimiento (dd/MM/yyyy): ");
+                            Lote lote = Lote.nuevo(cantidadLote, fechaVencimiento, precioTotal);
                             try {
-                                producto.getReceta().consumirIngredientes(cantidadLote);
-                                producto.getReceta().consumirEnvases(cantidadLote);
+                                // Consume la receta, agrega el lote y registra el movimiento de una sola vez
+                                new Produccion(diario, movimientos).producir(producto, lote);
                             } catch (StockBajoException e) {
                                 System.out.println("Error en la producción: " + e.getMessage());
                                 continue;
                             }
-                            String codigoLote = generarCodigoLote();
-                            BigDecimal precioTotal = leerCantidad(scanner, "Precio total del lote (ejemplo: 1500.00): ");
-                            Date fechaVencimiento = leerFecha(scanner, "Fecha de Vencimiento (dd/MM/yyyy): ");
-                            Lote lote = new Lote(codigoLote, cantidadLote, fechaVencimiento, precioTotal);
-                            producto.agregarLote(lote);
-                            Date fechaProduccion = new Date();
-                            MovimientoInventario movimiento = new MovimientoInventario("Producción", fechaProduccion, producto.getNombre(), cantidadLote);
-                            movimientos.add(movimiento);
                             System.out.println("Lote de producción agregado exitosamente.");
                         }
                         break;
@@ -623,8 +1050,15 @@ public class SistemaInventario {
         } while (opcion != 0);
     }
 
-    private String generarCodigoLote() {
-        return UUID.randomUUID().toString();
+    // Sugiere cuántas unidades producir de cada producto repartiendo el stock compartido
+    private void planificarProduccion() {
+        List<Producto> listaProductos = inventario.getProductos();
+        if (listaProductos.isEmpty()) {
+            System.out.println("No hay productos registrados.");
+            return;
+        }
+        System.out.println("\n=== Planificar Producción ===");
+        System.out.print(new PlanificadorProduccion().planificar(inventario, Map.of(), Map.of()));
     }
 
     private Date leerFecha(Scanner scanner, String mensaje) {
@@ -640,6 +1074,21 @@ public class SistemaInventario {
         }
     }
 
+    private Path leerRuta(Scanner scanner, String mensaje) {
+        while (true) {
+            System.out.print(mensaje);
+            String ruta = scanner.nextLine().trim();
+            try {
+                if (!ruta.isEmpty()) {
+                    return Paths.get(ruta);
+                }
+                System.out.println("Ingrese una ruta de archivo.");
+            } catch (InvalidPathException e) {
+                System.out.println("Ruta inválida: " + e.getMessage() + ". Intente nuevamente.");
+            }
+        }
+    }
+
     private BigDecimal leerCantidad(Scanner scanner, String mensaje) {
         while (true) {
             System.out.print(mensaje);
@@ -650,7 +1099,10 @@ public class SistemaInventario {
                     System.out.println("La cantidad no puede ser negativa. Intente nuevamente.");
                     continue;
                 }
+                Fijo.desde(cantidad); // Tiene que entrar en punto fijo (ver Lote.nuevo)
                 return cantidad;
+            } catch (ArithmeticException e) {
+                System.out.println("La cantidad es demasiado grande. Intente nuevamente.");
             } catch (NumberFormatException e) {
                 System.out.println("Entrada inválida. Por favor, ingrese un número válido (ejemplo: 100.5).");
             }
@@ -663,8 +1115,57 @@ public class SistemaInventario {
             System.out.println("No hay movimientos registrados.");
             return;
         }
-        for (MovimientoInventario movimiento : movimientos) {
-            System.out.println(movimiento);
+        synchronized (movimientos) {
+            for (MovimientoInventario movimiento : movimientos) {
+                System.out.println(movimiento);
+            }
+        }
+    }
+
+    private void exportarReporte(Scanner scanner) {
+        System.out.print("Formato (1. CSV, 2. JSON): ");
+        EscritorReportes.Formato formato = Integer.parseInt(scanner.nextLine()) == 2
+                ? EscritorReportes.Formato.JSON : EscritorReportes.Formato.CSV;
+        System.out.print("Contenido (1. Productos, 2. Ingredientes, 3. Envases, 4. General): ");
+        int contenido = Integer.parseInt(scanner.nextLine());
+        Path archivo = leerRuta(scanner, "Archivo de destino: ");
+        try (EscritorReportes escritor = new EscritorReportes(Files.newBufferedWriter(archivo, StandardCharsets.UTF_8), formato)) {
+            switch (contenido) {
+                case 1:
+                    escritor.reporteProductos(inventario.getProductos());
+                    break;
+                case 2:
+                    escritor.reporteIngredientes(inventario.getIngredientes());
+                    break;
+                case 3:
+                    escritor.reporteEnvases(inventario.getEnvases());
+                    break;
+                default:
+                    escritor.reporteGeneral(inventario);
+            }
+            System.out.println("Reporte exportado a " + archivo.toAbsolutePath());
+        } catch (IOException e) {
+            System.out.println("No se pudo exportar el reporte: " + e.getMessage());
+        }
+    }
+
+    private void reporteVencimientos(Scanner scanner) {
+        System.out.print("Días a considerar (desde hoy): ");
+        int dias = Integer.parseInt(scanner.nextLine());
+        LocalDate hoy = LocalDate.now();
+        IndiceVencimientos indice = inventario.getIndiceVencimientos();
+        Map<LocalDate, IndiceVencimientos.ResumenDia> resumen = indice.resumenPorDia(hoy, hoy.plusDays(dias - 1L));
+        System.out.println("\n=== Lotes por Vencer ===");
+        if (resumen.isEmpty()) {
+            System.out.println("No hay lotes que venzan en los próximos " + dias + " días.");
+            return;
+        }
+        for (IndiceVencimientos.ResumenDia dia : resumen.values()) {
+            System.out.println(dia);
+        }
+        for (Lote lote : indice.lotesPorVencer(dias)) {
+            ItemConLotes item = lote.getPropietario();
+            System.out.println((item != null ? item.getNombre() + " - " : "") + lote);
         }
     }
 
@@ -1,6 +1,8 @@
 package Trabajo;
 
 public class StockBajoException extends Exception {
+    private static final long serialVersionUID = 1L;
+
     public StockBajoException(String message) {
         super(message);
     }
@@ -0,0 +1,22 @@
+package Trabajo;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Tabla compartida de textos que se repiten mucho entre ítems (categorías de
+// ingredientes y productos, tipos de envase): cada valor distinto queda una
+// sola vez en memoria, sin depender de String.intern.
+final class TablaTextos {
+    private static final ConcurrentHashMap<String, String> TEXTOS = new ConcurrentHashMap<>();
+
+    private TablaTextos() {
+    }
+
+    // La instancia compartida igual a 'texto' (null sigue siendo null)
+    static String unico(String texto) {
+        if (texto == null) {
+            return null;
+        }
+        String unico = TEXTOS.putIfAbsent(texto, texto);
+        return unico != null ? unico : texto;
+    }
+}
@@ -0,0 +1,109 @@
+package Trabajo;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Resultado de ValoradorInventario: valor del stock en total, por tipo de ítem
+// (Ingrediente, Envase, Producto) y por categoría dentro de cada tipo (la
+// categoría de ingredientes y productos, el tipo de los envases).
+public class ValoracionInventario {
+    // Ítems, lotes, stock y valor de un grupo de ítems
+    public static final class Grupo {
+        private final String nombre;
+        private final long items;
+        private final long lotes;
+        private final long cantidad; // Punto fijo, ver Fijo
+        private final long valor;    // Punto fijo, ver Fijo
+
+        Grupo(String nombre, long items, long lotes, long cantidad, long valor) {
+            this.nombre = nombre;
+            this.items = items;
+            this.lotes = lotes;
+            this.cantidad = cantidad;
+            this.valor = valor;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public long getItems() {
+            return items;
+        }
+
+        public long getLotes() {
+            return lotes;
+        }
+
+        public BigDecimal getCantidad() {
+            return Fijo.aBigDecimal(cantidad);
+        }
+
+        // Suma exacta del costo de los lotes (4 decimales)
+        public BigDecimal getValor() {
+            return Fijo.aBigDecimalEscalado(valor);
+        }
+
+        public BigDecimal getValorRedondeado() {
+            return getValor().setScale(2, RoundingMode.HALF_UP);
+        }
+
+        long getValorFijo() {
+            return valor;
+        }
+
+        long getCantidadFija() {
+            return cantidad;
+        }
+
+        @Override
+        public String toString() {
+            return nombre + ": " + items + " ítem(s), " + lotes + " lote(s), valor S/." + getValorRedondeado().toPlainString();
+        }
+    }
+
+    private final Grupo total;
+    private final Map<String, Grupo> porTipo;
+    private final Map<String, Map<String, Grupo>> porCategoria;
+
+    ValoracionInventario(Grupo total, Map<String, Grupo> porTipo, Map<String, Map<String, Grupo>> porCategoria) {
+        this.total = total;
+        this.porTipo = porTipo;
+        this.porCategoria = porCategoria;
+    }
+
+    public Grupo getTotal() {
+        return total;
+    }
+
+    // "Ingrediente", "Envase" y "Producto", en ese orden
+    public Map<String, Grupo> getPorTipo() {
+        return Collections.unmodifiableMap(porTipo);
+    }
+
+    public Grupo getTipo(String tipo) {
+        return porTipo.get(tipo);
+    }
+
+    // Categorías de un tipo, en orden alfabético
+    public Map<String, Grupo> getPorCategoria(String tipo) {
+        return Collections.unmodifiableMap(porCategoria.getOrDefault(tipo, new LinkedHashMap<>()));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Valoración del Inventario:\n");
+        for (Grupo tipo : porTipo.values()) {
+            sb.append(tipo).append("\n");
+            for (Grupo categoria : getPorCategoria(tipo.getNombre()).values()) {
+                sb.append("  - ").append(categoria).append("\n");
+            }
+        }
+        sb.append("Total: S/.").append(total.getValorRedondeado().toPlainString()).append("\n");
+        return sb.toString();
+    }
+}
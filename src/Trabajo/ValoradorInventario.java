@@ -0,0 +1,243 @@
+package Trabajo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+// Valoración del inventario para el cierre de mes: recorre todos los lotes de
+// todos los ítems (no usa los acumulados) repartiendo las listas de ítems en
+// tareas fork-join. Cada hoja suma por categoría en punto fijo y los parciales
+// se juntan al volver; como la suma de long es exacta y asociativa, el
+// resultado no depende de cómo se repartió el trabajo ni del número de hilos.
+//
+// Si el Inventario tiene AlmacenColumnar, se recorren sus columnas en tramos
+// de lotes (mismo resultado, sin pasar por las colas de cada ítem), salvo que
+// algún ítem tenga lotes sin leer de data.txt: esos no están en el almacén.
+public class ValoradorInventario {
+    private static final int ITEMS_POR_TAREA = 64;
+    private static final int LOTES_POR_TAREA = 1 << 16;
+
+    private final ForkJoinPool pool;
+
+    public ValoradorInventario() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ValoradorInventario(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public ValoracionInventario valorar(Inventario inventario) {
+        AlmacenColumnar almacen = inventario.getAlmacenColumnar();
+        if (almacen != null) {
+            ValoracionInventario valoracion = valorar(inventario, almacen);
+            if (valoracion != null) {
+                return valoracion;
+            }
+        }
+        return pool.invoke(new RecursiveTask<ValoracionInventario>() {
+            @Override
+            protected ValoracionInventario compute() {
+                Tarea ingredientes = new Tarea(inventario.getIngredientes(), 0, inventario.getIngredientes().size());
+                Tarea envases = new Tarea(inventario.getEnvases(), 0, inventario.getEnvases().size());
+                Tarea productos = new Tarea(inventario.getProductos(), 0, inventario.getProductos().size());
+                ForkJoinTask.invokeAll(ingredientes, envases, productos);
+                return resultado(ingredientes.join(), envases.join(), productos.join());
+            }
+        });
+    }
+
+    // Recorre las franjas del almacén de a una; null si hay ítems con lotes fuera de memoria
+    private ValoracionInventario valorar(Inventario inventario, AlmacenColumnar almacen) {
+        int numeroIngredientes = inventario.getIngredientes().size();
+        int numeroEnvases = inventario.getEnvases().size();
+        int numeroProductos = inventario.getProductos().size();
+        // Leído después: incluye el número de todos los ítems contados arriba
+        int[] grupoPorItem = new int[inventario.getNumeroItems()];
+        Arrays.fill(grupoPorItem, -1);
+        List<Acumulado> grupos = new ArrayList<>();
+        Map<String, Acumulado> ingredientes = agrupar(inventario.getIngredientes(), numeroIngredientes, grupoPorItem, grupos);
+        Map<String, Acumulado> envases = agrupar(inventario.getEnvases(), numeroEnvases, grupoPorItem, grupos);
+        Map<String, Acumulado> productos = agrupar(inventario.getProductos(), numeroProductos, grupoPorItem, grupos);
+        if (ingredientes == null || envases == null || productos == null) {
+            return null;
+        }
+        long[][] sumas = new long[3][grupos.size()];
+        almacen.consultar(columnas -> TareaColumnas.sumar(sumas,
+                pool.invoke(new TareaColumnas(columnas, grupoPorItem, grupos.size(), 0, columnas.tamano))));
+        for (int g = 0; g < grupos.size(); g++) {
+            Acumulado acumulado = grupos.get(g);
+            acumulado.lotes = sumas[0][g];
+            acumulado.cantidad = sumas[1][g];
+            acumulado.valor = sumas[2][g];
+        }
+        return resultado(ingredientes, envases, productos);
+    }
+
+    // Numera un grupo por cada categoría de los primeros 'cantidad' ítems y
+    // anota el de cada ítem; null si alguno tiene lotes fuera de memoria
+    private static Map<String, Acumulado> agrupar(List<? extends ItemConLotes> items, int cantidad, int[] grupoPorItem,
+                                                  List<Acumulado> grupos) {
+        Map<String, Acumulado> categorias = new HashMap<>();
+        Map<String, Integer> numeros = new HashMap<>();
+        for (int i = 0; i < cantidad; i++) {
+            ItemConLotes item = items.get(i);
+            if (!item.isLotesEnMemoria()) {
+                return null;
+            }
+            String categoria = EscritorReportes.categoria(item);
+            Integer grupo = numeros.get(categoria);
+            if (grupo == null) {
+                grupo = grupos.size();
+                numeros.put(categoria, grupo);
+                Acumulado acumulado = new Acumulado();
+                grupos.add(acumulado);
+                categorias.put(categoria, acumulado);
+            }
+            grupos.get(grupo).items++;
+            grupoPorItem[item.getNumero()] = grupo;
+        }
+        return categorias;
+    }
+
+    private static ValoracionInventario resultado(Map<String, Acumulado> ingredientes, Map<String, Acumulado> envases,
+                                                  Map<String, Acumulado> productos) {
+        Map<String, ValoracionInventario.Grupo> porTipo = new LinkedHashMap<>();
+        Map<String, Map<String, ValoracionInventario.Grupo>> porCategoria = new HashMap<>();
+        Acumulado total = new Acumulado();
+        agregarTipo("Ingrediente", ingredientes, porTipo, porCategoria, total);
+        agregarTipo("Envase", envases, porTipo, porCategoria, total);
+        agregarTipo("Producto", productos, porTipo, porCategoria, total);
+        return new ValoracionInventario(total.grupo("Total"), porTipo, porCategoria);
+    }
+
+    private static void agregarTipo(String tipo, Map<String, Acumulado> categorias,
+                                    Map<String, ValoracionInventario.Grupo> porTipo,
+                                    Map<String, Map<String, ValoracionInventario.Grupo>> porCategoria, Acumulado total) {
+        Acumulado acumuladoTipo = new Acumulado();
+        Map<String, ValoracionInventario.Grupo> grupos = new LinkedHashMap<>();
+        for (Map.Entry<String, Acumulado> entry : new TreeMap<>(categorias).entrySet()) {
+            acumuladoTipo.sumar(entry.getValue());
+            grupos.put(entry.getKey(), entry.getValue().grupo(entry.getKey()));
+        }
+        total.sumar(acumuladoTipo);
+        porTipo.put(tipo, acumuladoTipo.grupo(tipo));
+        porCategoria.put(tipo, grupos);
+    }
+
+    // Valora items[desde, hasta) y devuelve los acumulados por categoría
+    private static final class Tarea extends RecursiveTask<Map<String, Acumulado>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends ItemConLotes> items;
+        private final int desde;
+        private final int hasta;
+
+        Tarea(List<? extends ItemConLotes> items, int desde, int hasta) {
+            this.items = items;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected Map<String, Acumulado> compute() {
+            if (hasta - desde <= ITEMS_POR_TAREA) {
+                Map<String, Acumulado> categorias = new HashMap<>();
+                for (int i = desde; i < hasta; i++) {
+                    ItemConLotes item = items.get(i);
+                    Acumulado acumulado = categorias.computeIfAbsent(EscritorReportes.categoria(item), k -> new Acumulado());
+                    acumulado.items++;
+                    item.recorrerLotes(acumulado);
+                }
+                return categorias;
+            }
+            int mitad = (desde + hasta) >>> 1;
+            Tarea izquierda = new Tarea(items, desde, mitad);
+            izquierda.fork();
+            Map<String, Acumulado> derecha = new Tarea(items, mitad, hasta).compute();
+            Map<String, Acumulado> resultado = izquierda.join();
+            for (Map.Entry<String, Acumulado> entry : derecha.entrySet()) {
+                resultado.merge(entry.getKey(), entry.getValue(), Acumulado::sumar);
+            }
+            return resultado;
+        }
+    }
+
+    // Suma los lotes [desde, hasta) de las columnas por grupo: {lotes, cantidad, valor} × grupo
+    private static final class TareaColumnas extends RecursiveTask<long[][]> {
+        private static final long serialVersionUID = 1L;
+
+        private final AlmacenColumnar.Columnas columnas;
+        private final int[] grupoPorItem;
+        private final int grupos;
+        private final int desde;
+        private final int hasta;
+
+        TareaColumnas(AlmacenColumnar.Columnas columnas, int[] grupoPorItem, int grupos, int desde, int hasta) {
+            this.columnas = columnas;
+            this.grupoPorItem = grupoPorItem;
+            this.grupos = grupos;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected long[][] compute() {
+            if (hasta - desde <= LOTES_POR_TAREA) {
+                long[][] sumas = new long[3][grupos];
+                columnas.sumarPorGrupo(grupoPorItem, sumas[0], sumas[1], sumas[2], desde, hasta);
+                return sumas;
+            }
+            int mitad = (desde + hasta) >>> 1;
+            TareaColumnas izquierda = new TareaColumnas(columnas, grupoPorItem, grupos, desde, mitad);
+            izquierda.fork();
+            long[][] derecha = new TareaColumnas(columnas, grupoPorItem, grupos, mitad, hasta).compute();
+            return sumar(izquierda.join(), derecha);
+        }
+
+        // Suma 'otras' en 'sumas' y devuelve 'sumas'
+        static long[][] sumar(long[][] sumas, long[][] otras) {
+            for (int g = 0; g < sumas[0].length; g++) {
+                sumas[0][g] += otras[0][g];
+                sumas[1][g] = Fijo.sumar(sumas[1][g], otras[1][g]);
+                sumas[2][g] = Fijo.sumar(sumas[2][g], otras[2][g]);
+            }
+            return sumas;
+        }
+    }
+
+    // Sumas de un grupo; como Consumer suma cada lote recorrido
+    private static final class Acumulado implements Consumer<Lote> {
+        long items;
+        long lotes;
+        long cantidad;
+        long valor;
+
+        @Override
+        public void accept(Lote lote) {
+            lotes++;
+            cantidad = Fijo.sumar(cantidad, lote.getCantidadFija());
+            valor = Fijo.sumar(valor, lote.getCostoTotalFijo());
+        }
+
+        Acumulado sumar(Acumulado otro) {
+            items += otro.items;
+            lotes += otro.lotes;
+            cantidad = Fijo.sumar(cantidad, otro.cantidad);
+            valor = Fijo.sumar(valor, otro.valor);
+            return this;
+        }
+
+        ValoracionInventario.Grupo grupo(String nombre) {
+            return new ValoracionInventario.Grupo(nombre, items, lotes, cantidad, valor);
+        }
+    }
+}
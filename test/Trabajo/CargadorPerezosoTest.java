@@ -0,0 +1,110 @@
+package Trabajo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CargadorPerezosoTest {
+    private static final int INGREDIENTES = 20;
+    private static final int ENVASES = 5;
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void cargaLoMismoQueDataLoader() throws Exception {
+        Path datos = escribirDatos();
+        Inventario completo = new Inventario();
+        new DataLoader().cargarDatos(datos.toString(), completo);
+        Inventario perezoso = new Inventario();
+        try (CargadorPerezoso cargador = new CargadorPerezoso(datos.toString(), 0)) {
+            cargador.cargar(perezoso);
+            assertEquals(completo.getNumeroItems(), perezoso.getNumeroItems());
+            for (int i = 0; i < completo.getNumeroItems(); i++) {
+                assertEquals(sinCodigos(completo.getItem(i)), sinCodigos(perezoso.getItem(i)));
+            }
+            assertTrue(cargador.getErrores().isEmpty());
+        }
+    }
+
+    // Un ítem descargado y vuelto a leer conserva los códigos de sus lotes
+    @Test
+    void alDescargarYReleerLosCodigosNoCambian() throws Exception {
+        Path datos = escribirDatos();
+        Inventario inventario = new Inventario();
+        try (CargadorPerezoso cargador = new CargadorPerezoso(datos.toString(), 3)) {
+            cargador.cargar(inventario);
+            Map<Integer, String> vistos = new HashMap<>();
+            for (int vuelta = 0; vuelta < 3; vuelta++) {
+                for (int i = 0; i < inventario.getNumeroItems(); i++) {
+                    String firma = Pruebas.firma(inventario.getItem(i));
+                    String anterior = vistos.putIfAbsent(i, firma);
+                    if (anterior != null) {
+                        assertEquals(anterior, firma, "ítem " + i);
+                    }
+                }
+            }
+            assertTrue(cargador.getDescargas() > 0);
+            assertTrue(cargador.getLecturas() > inventario.getNumeroItems());
+        }
+    }
+
+    // Lo modificado no se puede volver a leer de data.txt: el ítem queda en memoria
+    @Test
+    void unItemModificadoNoSeDescarga() throws Exception {
+        Path datos = escribirDatos();
+        Inventario inventario = new Inventario();
+        try (CargadorPerezoso cargador = new CargadorPerezoso(datos.toString(), 3)) {
+            cargador.cargar(inventario);
+            ItemConLotes item = inventario.getItem(2);
+            item.consumirCantidad(Fijo.desdeEntero(1));
+            String firma = Pruebas.firma(item);
+            for (int i = 0; i < inventario.getNumeroItems(); i++) {
+                inventario.getItem(i).obtenerCantidadTotalFija();
+                inventario.getItem(i).getLotes();
+            }
+            assertTrue(cargador.getDescargas() > 0);
+            assertEquals(firma, Pruebas.firma(item));
+        }
+    }
+
+    private Path escribirDatos() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < INGREDIENTES; i++) {
+            sb.append("Ingrediente|Ingrediente ").append(i).append("|Secos\n");
+            for (int l = 1; l <= 3; l++) {
+                sb.append("Lote|").append(i + l).append('|').append(10 * l).append(".50|")
+                        .append(String.format("%02d/%02d/2030", l, 1 + i % 12)).append('\n');
+            }
+        }
+        for (int i = 0; i < ENVASES; i++) {
+            sb.append("Envase|Envase ").append(i).append("|Vidrio\n");
+            sb.append("Lote|").append(100 + i).append("|25.00\n");
+        }
+        Path datos = carpeta.resolve("data.txt");
+        Files.write(datos, sb.toString().getBytes(StandardCharsets.UTF_8));
+        return datos;
+    }
+
+    // Como Pruebas.firma, sin los códigos (cada carga los genera de nuevo)
+    private static String sinCodigos(ItemConLotes item) {
+        StringBuilder sb = new StringBuilder(item.getNombre())
+                .append('|').append(item.getNumeroLotes())
+                .append('|').append(item.obtenerCantidadTotalFija())
+                .append('|').append(item.calcularCostoTotalFijo());
+        for (Lote lote : item.getLotes()) {
+            sb.append(';').append(lote.getCantidadFija())
+                    .append(',').append(lote.getCostoUnitarioFijo())
+                    .append(',').append(lote.getDiaVencimiento());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,105 @@
+package Trabajo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static Trabajo.Pruebas.enDias;
+import static Trabajo.Pruebas.firma;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ColaMapeadaTest {
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void alReabrirLosLotesSiguenIguales() throws Exception {
+        Path archivo = carpeta.resolve("lotes.map");
+        String firma;
+        try (AlmacenMapeado almacen = new AlmacenMapeado(archivo)) {
+            Ingrediente harina = new Ingrediente("Harina", "Secos", almacen.cola("Ingrediente:Harina"));
+            for (int i = 1; i <= 5; i++) {
+                harina.agregarLote(Lote.nuevo(Fijo.desdeEntero(i * 10), enDias(i), Fijo.desdeEntero(i * 7)));
+            }
+            harina.agregarLote(new Lote("LOTE-2019-07", Fijo.desdeEntero(4), null, Fijo.desdeEntero(2)));
+            harina.consumirCantidad(Fijo.desdeEntero(25)); // El primero entero y parte del segundo
+            firma = firma(harina);
+        }
+
+        try (AlmacenMapeado almacen = new AlmacenMapeado(archivo)) {
+            assertEquals(List.of("Ingrediente:Harina"), almacen.getNombresColas());
+            Ingrediente harina = new Ingrediente("Harina", "Secos", almacen.cola("Ingrediente:Harina"));
+            assertEquals(firma, firma(harina));
+            assertEquals(5, harina.getNumeroLotes());
+        }
+    }
+
+    @Test
+    void losRegistrosLiberadosSeReutilizan() throws Exception {
+        try (AlmacenMapeado almacen = new AlmacenMapeado(carpeta.resolve("lotes.map"))) {
+            Ingrediente harina = new Ingrediente("Harina", "Secos", almacen.cola("Ingrediente:Harina"));
+            for (int i = 0; i < 10; i++) {
+                harina.agregarLote(Lote.nuevo(Fijo.desdeEntero(1), null, Fijo.desdeEntero(1)));
+            }
+            int usados = almacen.getRegistrosUsados();
+
+            harina.consumirCantidad(Fijo.desdeEntero(4));
+            assertEquals(4, almacen.getRegistrosLibres());
+            assertEquals(usados - 4, almacen.getRegistrosUsados());
+
+            for (int i = 0; i < 4; i++) {
+                harina.agregarLote(Lote.nuevo(Fijo.desdeEntero(1), null, Fijo.desdeEntero(1)));
+            }
+            assertEquals(0, almacen.getRegistrosLibres());
+            assertEquals(usados, almacen.getRegistrosUsados());
+            assertEquals(10, harina.getNumeroLotes());
+        }
+    }
+
+    // El barrido solo desengancha los lotes vencidos, en cualquier lugar de la cadena
+    @Test
+    void retirarVencidosLiberaSoloLosRetirados() throws Exception {
+        try (AlmacenMapeado almacen = new AlmacenMapeado(carpeta.resolve("lotes.map"))) {
+            Ingrediente harina = new Ingrediente("Harina", "Secos", almacen.cola("Ingrediente:Harina"));
+            int[] dias = {5, -2, 5, -1, -3, 5};
+            for (int dia : dias) {
+                harina.agregarLote(Lote.nuevo(Fijo.desdeEntero(1), enDias(dia), Fijo.desdeEntero(1)));
+            }
+            List<Lote> antes = harina.getLotes();
+            int usados = almacen.getRegistrosUsados();
+
+            List<Lote> vencidos = harina.retirarVencidos(LocalDate.now(), null);
+
+            assertEquals(List.of(antes.get(1).getCodigoLote(), antes.get(3).getCodigoLote(), antes.get(4).getCodigoLote()),
+                    vencidos.stream().map(Lote::getCodigoLote).toList());
+            List<Lote> despues = harina.getLotes();
+            assertEquals(List.of(antes.get(0).getCodigoLote(), antes.get(2).getCodigoLote(), antes.get(5).getCodigoLote()),
+                    despues.stream().map(Lote::getCodigoLote).toList());
+            assertEquals(3, almacen.getRegistrosLibres());
+            assertEquals(usados - 3, almacen.getRegistrosUsados());
+            assertEquals(Fijo.desdeEntero(3), harina.obtenerCantidadTotalFija());
+            harina.agregarLote(Lote.nuevo(Fijo.desdeEntero(1), null, Fijo.desdeEntero(1)));
+            assertEquals(4, harina.getNumeroLotes());
+        }
+    }
+
+    @Test
+    void cerrarAnotaLaSecuenciaYCloseNo() throws Exception {
+        Path archivo = carpeta.resolve("lotes.map");
+        new AlmacenMapeado(archivo).cerrar(17);
+        AlmacenMapeado reabierto = new AlmacenMapeado(archivo);
+        assertEquals(17, reabierto.getSecuenciaCierre());
+        reabierto.close();
+        try (AlmacenMapeado otraVez = new AlmacenMapeado(archivo)) {
+            assertEquals(-1, otraVez.getSecuenciaCierre());
+            otraVez.cola("Ingrediente:Harina").addLast(Lote.nuevo(Fijo.desdeEntero(1), null, Fijo.desdeEntero(1)));
+            otraVez.vaciar();
+            assertTrue(otraVez.getNombresColas().isEmpty());
+            assertEquals(0, otraVez.getRegistrosUsados());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package Trabajo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static Trabajo.Pruebas.enDias;
+import static Trabajo.Pruebas.firma;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class DiarioMovimientosTest {
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void reproducirDejaLosItemsComoEnLaSesionOriginal() throws Exception {
+        Path archivo = carpeta.resolve("movimientos.diario");
+        Inventario inventario = new Inventario();
+        DiarioMovimientos diario = abrir(archivo);
+        Ingrediente harina = new Ingrediente("Harina", "Secos");
+        diario.registrarIngrediente(harina);
+        inventario.agregarIngrediente(harina);
+        Envase bolsa = new Envase("Bolsa", "Papel");
+        diario.registrarEnvase(bolsa);
+        inventario.agregarEnvase(bolsa);
+        Receta receta = new Receta();
+        receta.agregarIngrediente(harina, new BigDecimal("2"));
+        receta.agregarEnvase(bolsa, BigDecimal.ONE);
+        Producto pan = new Producto("Pan", "Panadería", receta);
+        diario.registrarProducto(pan);
+        inventario.agregarProducto(pan);
+        ingresar(diario, harina, Lote.nuevo(Fijo.desdeEntero(10), enDias(30), Fijo.desdeEntero(25)));
+        ingresar(diario, harina, Lote.nuevo(Fijo.desdeEntero(5), enDias(60), Fijo.desdeEntero(20)));
+        ingresar(diario, bolsa, Lote.nuevo(Fijo.desdeEntero(100), null, Fijo.desdeEntero(50)));
+        new Produccion(diario, new ArrayList<>()).producir(pan, Lote.nuevo(Fijo.desdeEntero(6), enDias(10), Fijo.desdeEntero(30)));
+        diario.close();
+
+        Inventario recuperado = new Inventario();
+        DiarioMovimientos otro = abrir(archivo);
+        long reproducidos = otro.reproducir(recuperado, new ArrayList<>(), 0);
+        otro.close();
+
+        assertEquals(7, reproducidos);
+        assertEquals(firma(harina), firma(recuperado.buscarIngrediente("Harina")));
+        assertEquals(firma(bolsa), firma(recuperado.buscarEnvase("Bolsa")));
+        assertEquals(pan.getReceta().toString(), recuperado.buscarProducto("Pan").getReceta().toString());
+        assertEquals(firma(pan), firma(recuperado.buscarProducto("Pan")));
+    }
+
+    // Un lote vencido que no se retiró porque cubría lo reservado no debe
+    // retirarse al reproducir: la producción que lo consumió después fallaría
+    @Test
+    void retiroDeVencidosConReservaSeReproduceIgual() throws Exception {
+        Path archivo = carpeta.resolve("movimientos.diario");
+        Inventario inventario = new Inventario();
+        List<MovimientoInventario> movimientos = new ArrayList<>();
+        DiarioMovimientos diario = abrir(archivo);
+        Ingrediente harina = new Ingrediente("Harina", "Secos");
+        diario.registrarIngrediente(harina);
+        inventario.agregarIngrediente(harina);
+        for (Date vencimiento : new Date[]{enDias(-3), enDias(-3), enDias(30)}) {
+            ingresar(diario, harina, Lote.nuevo(Fijo.desdeEntero(10), vencimiento, Fijo.desdeEntero(10)));
+        }
+        ItemConLotes[] items = {harina};
+        long[] cantidades = {Fijo.desdeEntero(15)};
+        ItemConLotes.reservarTodos(items, cantidades);
+
+        int retirados = new BarridoVencimientos(inventario, diario, movimientos).barrer(LocalDate.now());
+
+        Producto pan = new Producto("Pan", "Panadería", new Receta());
+        diario.registrarProducto(pan);
+        inventario.agregarProducto(pan);
+        Lote producido = Lote.nuevo(Fijo.desdeEntero(1), enDias(30), Fijo.desdeEntero(1));
+        diario.registrarOrdenProduccion(pan, producido, items, cantidades);
+        harina.consumirReservado(cantidades[0]);
+        pan.agregarLote(producido);
+        diario.close();
+
+        Inventario recuperado = new Inventario();
+        DiarioMovimientos otro = abrir(archivo);
+        otro.reproducir(recuperado, new ArrayList<>(), 0);
+        otro.close();
+
+        assertEquals(1, retirados);
+        assertEquals(firma(harina), firma(recuperado.buscarIngrediente("Harina")));
+        Producto panRecuperado = recuperado.buscarProducto("Pan");
+        assertNotNull(panRecuperado);
+        assertEquals(firma(pan), firma(panRecuperado));
+    }
+
+    // Un barrido que llega mientras se registra una orden espera a que se
+    // consuma: si retirara antes el lote vencido, la orden consumiría otro
+    // lote que al reproducir (orden y luego retiro) ya no es el mismo
+    @Test
+    void barridoDuranteUnaOrdenNoCambiaLoQueSeConsume() throws Exception {
+        Path archivo = carpeta.resolve("movimientos.diario");
+        Inventario inventario = new Inventario();
+        List<MovimientoInventario> movimientos = new ArrayList<>();
+        Thread[] barrido = new Thread[1];
+        DiarioMovimientos diario = new DiarioMovimientos(archivo, DiarioMovimientos.PoliticaSincronizacion.CADA_BLOQUE,
+                1, TimeUnit.MILLISECONDS, 0) {
+            @Override
+            public long registrarOrdenProduccion(Producto producto, Lote lote, ItemConLotes[] items, long[] cantidades) {
+                long secuencia = super.registrarOrdenProduccion(producto, lote, items, cantidades);
+                barrido[0] = new Thread(() -> new BarridoVencimientos(inventario, this, movimientos).barrer(LocalDate.now()));
+                barrido[0].start();
+                // Hasta que el barrido quede esperando el lock del ítem (o termine)
+                while (barrido[0].getState() != Thread.State.WAITING && barrido[0].getState() != Thread.State.TERMINATED) {
+                    Thread.onSpinWait();
+                }
+                return secuencia;
+            }
+        };
+        Ingrediente harina = new Ingrediente("Harina", "Secos");
+        diario.registrarIngrediente(harina);
+        inventario.agregarIngrediente(harina);
+        harina.agregarLote(Lote.nuevo(Fijo.desdeEntero(10), enDias(-3), Fijo.desdeEntero(10)), diario);
+        harina.agregarLote(Lote.nuevo(Fijo.desdeEntero(10), enDias(30), Fijo.desdeEntero(10)), diario);
+        Receta receta = new Receta();
+        receta.agregarIngrediente(harina, BigDecimal.ONE);
+        Producto pan = new Producto("Pan", "Panadería", receta);
+        diario.registrarProducto(pan);
+        inventario.agregarProducto(pan);
+
+        new Produccion(diario, movimientos).producir(pan, Lote.nuevo(Fijo.desdeEntero(5), enDias(30), Fijo.desdeEntero(1)));
+        barrido[0].join();
+        diario.close();
+
+        Inventario recuperado = new Inventario();
+        DiarioMovimientos otro = abrir(archivo);
+        otro.reproducir(recuperado, new ArrayList<>(), 0);
+        otro.close();
+
+        assertEquals(Fijo.desdeEntero(10), harina.obtenerCantidadTotalFija());
+        assertEquals(1, harina.getNumeroLotes());
+        assertEquals(firma(harina), firma(recuperado.buscarIngrediente("Harina")));
+        assertEquals(firma(pan), firma(recuperado.buscarProducto("Pan")));
+    }
+
+    @Test
+    void reproducirSaltaLoQueYaIncluyeLaInstantanea() throws Exception {
+        Path archivo = carpeta.resolve("movimientos.diario");
+        DiarioMovimientos diario = abrir(archivo);
+        diario.registrarIngrediente(new Ingrediente("Harina", "Secos"));
+        long secuencia = diario.getUltimaSecuencia();
+        diario.registrarIngrediente(new Ingrediente("Azúcar", "Secos"));
+        diario.close();
+
+        Inventario recuperado = new Inventario();
+        DiarioMovimientos otro = abrir(archivo);
+        long reproducidos = otro.reproducir(recuperado, new ArrayList<>(), secuencia);
+        otro.close();
+
+        assertEquals(1, reproducidos);
+        assertEquals(1, recuperado.getNumeroItems());
+        assertNotNull(recuperado.buscarIngrediente("Azúcar"));
+    }
+
+    private static DiarioMovimientos abrir(Path archivo) throws Exception {
+        return new DiarioMovimientos(archivo, DiarioMovimientos.PoliticaSincronizacion.CADA_BLOQUE, 1,
+                TimeUnit.MILLISECONDS, 0);
+    }
+
+    private static void ingresar(DiarioMovimientos diario, ItemConLotes item, Lote lote) {
+        item.agregarLote(lote, diario);
+    }
+}
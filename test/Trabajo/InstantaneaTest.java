@@ -0,0 +1,116 @@
+package Trabajo;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstantaneaTest {
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void guardarYCargarConservaItemsLotesYMovimientos() throws Exception {
+        Inventario inventario = new Inventario();
+        List<MovimientoInventario> movimientos = new ArrayList<>();
+        Ingrediente harina = new Ingrediente("Harina", "Secos");
+        harina.agregarLote(Lote.nuevo(Fijo.desdeEntero(10), new Date(1_900_000_000_000L), Fijo.desdeEntero(25)));
+        // Un código que no es un UUID va como texto
+        harina.agregarLote(new Lote("LOTE-2019-07", Fijo.desde(new BigDecimal("2.5")), new Date(1_800_000_000_000L),
+                Fijo.desdeEntero(7)));
+        inventario.agregarIngrediente(harina);
+        Envase bolsa = new Envase("Bolsa", "Papel");
+        bolsa.agregarLote(Lote.nuevo(Fijo.desdeEntero(100), null, Fijo.desdeEntero(50)));
+        inventario.agregarEnvase(bolsa);
+        Receta receta = new Receta();
+        receta.agregarIngrediente(harina, new BigDecimal("0.5"));
+        receta.agregarEnvase(bolsa, BigDecimal.ONE);
+        Producto pan = new Producto("Pan", "Panadería", receta);
+        pan.agregarLote(Lote.nuevo(Fijo.desdeEntero(3), new Date(1_850_000_000_000L), Fijo.desdeEntero(9)));
+        inventario.agregarProducto(pan);
+        movimientos.add(new MovimientoInventario("Ingreso", new Date(1_700_000_000_000L), "Harina", BigDecimal.TEN));
+        Path archivo = carpeta.resolve("inventario.snap");
+
+        new Instantanea().guardar(archivo, inventario, movimientos, 42);
+        Inventario restaurado = new Inventario();
+        List<MovimientoInventario> movimientosRestaurados = new ArrayList<>();
+        long secuencia = new Instantanea().cargar(archivo, restaurado, movimientosRestaurados);
+
+        assertEquals(42, secuencia);
+        assertEquals(3, restaurado.getNumeroItems());
+        assertEquals(Pruebas.firma(harina),
+                Pruebas.firma(restaurado.buscarIngrediente("Harina")));
+        assertEquals(Pruebas.firma(bolsa), Pruebas.firma(restaurado.buscarEnvase("Bolsa")));
+        Producto panRestaurado = restaurado.buscarProducto("Pan");
+        assertEquals(Pruebas.firma(pan), Pruebas.firma(panRestaurado));
+        assertEquals(receta.toString(), panRestaurado.getReceta().toString());
+        assertEquals(movimientos.toString(), movimientosRestaurados.toString());
+        assertEquals(harina.getLotes().get(1).getFechaIngreso(),
+                restaurado.buscarIngrediente("Harina").getLotes().get(1).getFechaIngreso());
+    }
+
+    // Con el almacén cerrado con la misma secuencia, los ítems usan su cola y los
+    // lotes guardados se saltan; con otra secuencia se restauran en memoria
+    @Test
+    void conElAlmacenAlDiaLosLotesNoSeLeen() throws Exception {
+        Path mapa = carpeta.resolve("lotes.map");
+        Path archivo = carpeta.resolve("inventario.snap");
+        String firma;
+        try (AlmacenMapeado almacen = new AlmacenMapeado(mapa)) {
+            Inventario inventario = new Inventario();
+            inventario.activarAlmacenMapeado(almacen);
+            Ingrediente harina = new Ingrediente("Harina", "Secos");
+            inventario.agregarIngrediente(harina);
+            for (int i = 1; i <= 3; i++) {
+                harina.agregarLote(Lote.nuevo(Fijo.desdeEntero(i * 10), null, Fijo.desdeEntero(i)));
+            }
+            harina.consumirCantidad(Fijo.desdeEntero(5));
+            firma = Pruebas.firma(harina);
+            new Instantanea().guardar(archivo, inventario, new ArrayList<>(), 7);
+            almacen.cerrar(7);
+        }
+
+        try (AlmacenMapeado almacen = new AlmacenMapeado(mapa)) {
+            Inventario restaurado = new Inventario();
+            assertEquals(7, new Instantanea().cargar(archivo, restaurado, new ArrayList<>(), almacen));
+            Ingrediente harina = restaurado.buscarIngrediente("Harina");
+            assertTrue(harina.isLotesMapeados());
+            assertEquals(firma, Pruebas.firma(harina));
+            almacen.cerrar(8);
+        }
+
+        try (AlmacenMapeado almacen = new AlmacenMapeado(mapa)) {
+            Inventario restaurado = new Inventario();
+            new Instantanea().cargar(archivo, restaurado, new ArrayList<>(), almacen);
+            Ingrediente harina = restaurado.buscarIngrediente("Harina");
+            assertFalse(harina.isLotesMapeados());
+            assertEquals(firma, Pruebas.firma(harina));
+        }
+    }
+
+    @Test
+    void unaInstantaneaTruncadaSeRechaza() throws Exception {
+        Inventario inventario = new Inventario();
+        Ingrediente harina = new Ingrediente("Harina", "Secos");
+        harina.agregarLote(Lote.nuevo(Fijo.desdeEntero(10), null, Fijo.desdeEntero(25)));
+        inventario.agregarIngrediente(harina);
+        Path archivo = carpeta.resolve("inventario.snap");
+        new Instantanea().guardar(archivo, inventario, new ArrayList<>(), 1);
+        byte[] bytes = Files.readAllBytes(archivo);
+        Files.write(archivo, Arrays.copyOf(bytes, bytes.length - 5));
+
+        assertThrows(IOException.class, () -> new Instantanea().cargar(archivo, new Inventario(), new ArrayList<>()));
+    }
+}
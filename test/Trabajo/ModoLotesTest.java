@@ -0,0 +1,35 @@
+package Trabajo;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ModoLotesTest {
+    // Una cantidad que no entra en Fijo es un error de esa línea, no del lote entero
+    @Test
+    void unaCantidadFueraDeRangoSeAnotaYSeSigue() throws Exception {
+        Inventario inventario = new Inventario();
+        ModoLotes modo = new ModoLotes(inventario, null, new ArrayList<>(), new PrintStream(new ByteArrayOutputStream()));
+        String lote = "ingrediente|Pimienta|Especias\n"
+                + "lote|Pimienta|1e30|5|01/01/2030\n"
+                + "lote|Pimienta|3|5|01/01/2030\n";
+
+        modo.ejecutar(new BufferedReader(new StringReader(lote)));
+
+        List<ErrorCarga> errores = modo.getErrores();
+        assertEquals(1, errores.size());
+        assertEquals(2, errores.get(0).getLinea());
+        assertTrue(errores.get(0).getMensaje().startsWith("lote: valor fuera de rango"));
+        Ingrediente pimienta = inventario.buscarIngrediente("Pimienta");
+        assertEquals(1, pimienta.getNumeroLotes());
+        assertEquals(Fijo.desdeEntero(3), pimienta.obtenerCantidadTotalFija());
+    }
+}
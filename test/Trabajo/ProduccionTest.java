@@ -0,0 +1,30 @@
+package Trabajo;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ProduccionTest {
+    // Si el lote producido no entra en el producto, no se consume nada
+    @Test
+    void unLoteQueNoEntraNoConsumeLaReceta() throws Exception {
+        Ingrediente harina = new Ingrediente("Harina", "Secos");
+        harina.agregarLote(Lote.nuevo(Fijo.desdeEntero(10), null, Fijo.desdeEntero(10)));
+        Receta receta = new Receta();
+        receta.agregarIngrediente(harina, BigDecimal.ONE);
+        Producto pan = new Producto("Pan", "Panadería", receta);
+        pan.agregarLote(Lote.nuevo(Long.MAX_VALUE - Fijo.UNO, null, 0));
+        String antes = Pruebas.firma(harina);
+
+        assertThrows(ArithmeticException.class, () -> new Produccion(null, new ArrayList<>())
+                .producir(pan, Lote.nuevo(Fijo.desdeEntero(2), null, Fijo.desdeEntero(1))));
+
+        assertEquals(antes, Pruebas.firma(harina));
+        assertEquals(Fijo.desdeEntero(10), harina.obtenerCantidadDisponibleFija());
+        assertEquals(1, pan.getNumeroLotes());
+    }
+}
@@ -0,0 +1,30 @@
+package Trabajo;
+
+import java.util.Date;
+
+// Ayudas comunes de las pruebas
+final class Pruebas {
+    static final long DIA = 86_400_000L;
+
+    private Pruebas() {}
+
+    static Date enDias(int dias) {
+        return new Date(System.currentTimeMillis() + dias * DIA);
+    }
+
+    // Acumulados y lotes (código, cantidad, costo, vencimiento) en orden de consumo
+    static String firma(ItemConLotes item) {
+        StringBuilder sb = new StringBuilder(item.getNombre())
+                .append('|').append(item.getNumeroLotes())
+                .append('|').append(item.obtenerCantidadTotalFija())
+                .append('|').append(item.calcularCostoTotalFijo())
+                .append('|').append(item.calcularCostoUnitarioTotalFijo());
+        for (Lote lote : item.getLotes()) {
+            sb.append(';').append(lote.getCodigoLote())
+                    .append(',').append(lote.getCantidadFija())
+                    .append(',').append(lote.getCostoUnitarioFijo())
+                    .append(',').append(lote.getDiaVencimiento());
+        }
+        return sb.toString();
+    }
+}